@@ -1,18 +1,29 @@
 package com.applitools.eyes;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.apache.commons.codec.binary.Base64;
 
 /**
  * An application output (title, image, etc).
  */
-@JsonIgnoreProperties({"screenshot64"})
+@JsonIgnoreProperties({"screenshot64", "screenshotBytes"})
 public class AppOutput {
 
     /**
      * The title of the screen of the application being captured.
      */
     private final String title;
-    private final String screenshot64;
+    private final byte[] screenshotBytes;
+
+    /**
+     * @param title           The title of the window.
+     * @param screenshotBytes The screenshot's bytes (the bytes can be in
+     *                        either compressed or uncompressed form).
+     */
+    public AppOutput(String title, byte[] screenshotBytes) {
+        this.title = title;
+        this.screenshotBytes = screenshotBytes;
+    }
 
     /**
      * @param title        The title of the window.
@@ -21,15 +32,27 @@ public class AppOutput {
      *                     uncompressed form)
      */
     public AppOutput(String title, String screenshot64) {
-        this.title = title;
-        this.screenshot64 = screenshot64;
+        this(title, screenshot64 != null ?
+                Base64.decodeBase64(screenshot64) : null);
     }
 
     public String getTitle() {
         return title;
     }
 
+    /**
+     * @return The screenshot's bytes (compressed or uncompressed).
+     */
+    public byte[] getScreenshotBytes() {
+        return screenshotBytes;
+    }
+
+    /**
+     * @return Base64 encoding of the screenshot's bytes. The encoding is
+     * created on each call, so prefer {@link #getScreenshotBytes()}.
+     */
     public String getScreenshot64() {
-        return screenshot64;
+        return screenshotBytes != null ?
+                Base64.encodeBase64String(screenshotBytes) : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,138 @@
+package com.applitools.eyes;
+
+import com.applitools.utils.ArgumentGuard;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks the failures of requests to an Eyes server. After too many
+ * consecutive failures the circuit "opens": requests fail fast for a
+ * while, instead of each waiting for its own timeouts. Then a single
+ * request is let through, and its outcome decides whether the circuit
+ * closes again.
+ *
+ * All the connectors of the process share a circuit breaker per server.
+ */
+public class CircuitBreaker {
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final int DEFAULT_OPEN_DURATION = 30 * 1000; // ms
+
+    private static final Map<String, CircuitBreaker> serverBreakers =
+            new HashMap<>();
+
+    private final int failureThreshold;
+    private final int openDuration;
+
+    private int consecutiveFailures;
+    private long openedAt = -1;
+    private Thread probingThread;
+
+    /**
+     * @param failureThreshold The number of consecutive failures which
+     *                         opens the circuit.
+     * @param openDuration     The time the circuit stays open before a
+     *                         request is let through (milliseconds).
+     */
+    public CircuitBreaker(int failureThreshold, int openDuration) {
+        ArgumentGuard.greaterThanZero(failureThreshold, "failureThreshold");
+        ArgumentGuard.greaterThanOrEqualToZero(openDuration, "openDuration");
+
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Opens after 5 consecutive failures, for 30 seconds.
+     */
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION);
+    }
+
+    /**
+     * @param serverUrl The URL of an Eyes server.
+     * @return The circuit breaker of the server (shared by all connectors).
+     */
+    public static CircuitBreaker forServer(URI serverUrl) {
+        ArgumentGuard.notNull(serverUrl, "serverUrl");
+
+        String key = serverUrl.getScheme() + "://" + serverUrl.getAuthority();
+        synchronized (serverBreakers) {
+            CircuitBreaker breaker = serverBreakers.get(key);
+            if (breaker == null) {
+                breaker = new CircuitBreaker();
+                serverBreakers.put(key, breaker);
+            }
+            return breaker;
+        }
+    }
+
+    /**
+     * @return Whether a request can be sent. While the circuit is open,
+     * only a single (probe) request is allowed once the open duration
+     * elapsed.
+     */
+    public synchronized boolean allowRequest() {
+        if (openedAt < 0) {
+            return true;
+        }
+
+        if (probingThread == null
+                && getCurrentTime() - openedAt >= openDuration) {
+            probingThread = Thread.currentThread();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Records a successful request, which closes the circuit.
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        openedAt = -1;
+        probingThread = null;
+    }
+
+    /**
+     * Records a failed request. Opens the circuit if the threshold was
+     * reached, or if the request was a probe.
+     */
+    public synchronized void recordFailure() {
+        ++consecutiveFailures;
+        if (probingThread != null
+                || consecutiveFailures >= failureThreshold) {
+            openedAt = getCurrentTime();
+            probingThread = null;
+        }
+    }
+
+    /**
+     * Ends a request of the current thread whose outcome was recorded by
+     * neither {@link #recordSuccess()} nor {@link #recordFailure()} (e.g.,
+     * it was throttled). If it was the probe, the circuit stays open and
+     * another request can probe the server. Otherwise, does nothing.
+     */
+    public synchronized void releaseProbe() {
+        if (probingThread == Thread.currentThread()) {
+            probingThread = null;
+        }
+    }
+
+    /**
+     * @return Whether the circuit is open (i.e., requests fail fast).
+     */
+    public synchronized boolean isOpen() {
+        return openedAt >= 0;
+    }
+
+    /**
+     * @return The current time (milliseconds).
+     */
+    protected long getCurrentTime() {
+        return System.currentTimeMillis();
+    }
+}
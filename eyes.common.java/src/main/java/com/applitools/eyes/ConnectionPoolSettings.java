@@ -0,0 +1,113 @@
+package com.applitools.eyes;
+
+import com.applitools.utils.ArgumentGuard;
+
+/**
+ * Encapsulates settings of a pool of keep-alive HTTP connections to the Eyes
+ * server. Server connectors which are configured with equal settings share
+ * the same pool (process wide), so parallel tests reuse each other's
+ * connections instead of opening (and TLS handshaking) new ones.
+ */
+public class ConnectionPoolSettings {
+
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    private static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 100;
+    private static final int DEFAULT_IDLE_TIMEOUT = 30 * 1000; // ms
+    private static final int DEFAULT_KEEP_ALIVE = 5 * 60 * 1000; // ms
+
+    private final int maxConnectionsPerRoute;
+    private final int maxConnectionsTotal;
+    private final int idleTimeout;
+    private final int keepAlive;
+
+    /**
+     * @param maxConnectionsPerRoute The maximum number of connections to a
+     *                               single server.
+     * @param maxConnectionsTotal    The maximum number of connections in the
+     *                               pool.
+     * @param idleTimeout            Connections which have been idle for this
+     *                               long are closed (milliseconds).
+     * @param keepAlive              The maximum time a connection is kept
+     *                               open for reuse (milliseconds).
+     */
+    public ConnectionPoolSettings(int maxConnectionsPerRoute,
+                                  int maxConnectionsTotal, int idleTimeout,
+                                  int keepAlive) {
+        ArgumentGuard.greaterThanZero(maxConnectionsPerRoute,
+                "maxConnectionsPerRoute");
+        ArgumentGuard.greaterThanZero(maxConnectionsTotal,
+                "maxConnectionsTotal");
+        ArgumentGuard.greaterThanZero(idleTimeout, "idleTimeout");
+        ArgumentGuard.greaterThanZero(keepAlive, "keepAlive");
+
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        this.idleTimeout = idleTimeout;
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Defines a pool of up to 20 connections per server and 100 connections
+     * in total, which are closed after being idle for 30 seconds or open for
+     * 5 minutes.
+     */
+    public ConnectionPoolSettings() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_TOTAL,
+                DEFAULT_IDLE_TIMEOUT, DEFAULT_KEEP_ALIVE);
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * @return The idle time after which a connection is closed
+     * (milliseconds).
+     */
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * @return The maximum time a connection is kept open (milliseconds).
+     */
+    public int getKeepAlive() {
+        return keepAlive;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ConnectionPoolSettings)) {
+            return false;
+        }
+        ConnectionPoolSettings settings = (ConnectionPoolSettings) other;
+        return maxConnectionsPerRoute == settings.maxConnectionsPerRoute
+                && maxConnectionsTotal == settings.maxConnectionsTotal
+                && idleTimeout == settings.idleTimeout
+                && keepAlive == settings.keepAlive;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = maxConnectionsPerRoute;
+        result = 31 * result + maxConnectionsTotal;
+        result = 31 * result + idleTimeout;
+        result = 31 * result + keepAlive;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPoolSettings(maxPerRoute: %d, " +
+                        "maxTotal: %d, idleTimeout: %d, keepAlive: %d)",
+                maxConnectionsPerRoute, maxConnectionsTotal, idleTimeout,
+                keepAlive);
+    }
+}
@@ -0,0 +1,52 @@
+package com.applitools.eyes;
+
+import com.applitools.utils.ArgumentGuard;
+import com.applitools.utils.GzipUtils;
+
+import java.nio.charset.Charset;
+
+/**
+ * The JSON body of a request, encoded (and compressed, if needed) once, so
+ * it can be re-sent as is.
+ */
+public class JsonRequestBody {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final byte[] bytes;
+    private final String contentEncoding;
+
+    /**
+     * @param json        The JSON data.
+     * @param compression (optional) If not {@code null}, the body is gzip
+     *                    encoded when it's large enough.
+     */
+    public JsonRequestBody(String json,
+                           RequestCompressionSettings compression) {
+        ArgumentGuard.notNull(json, "json");
+
+        byte[] body = json.getBytes(UTF8);
+        if (compression != null && compression.shouldCompress(body.length)) {
+            bytes = GzipUtils.compress(body);
+            contentEncoding = GzipUtils.GZIP_ENCODING;
+        } else {
+            bytes = body;
+            contentEncoding = null;
+        }
+    }
+
+    /**
+     * @return The bytes of the body (possibly compressed).
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return The value of the "Content-Encoding" header of the request, or
+     * {@code null} if the body isn't encoded.
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+}
@@ -0,0 +1,232 @@
+package com.applitools.eyes;
+
+import com.applitools.utils.ArgumentGuard;
+import com.applitools.utils.GzipUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The binary body of a "matchWindow" request: the length of the JSON data
+ * (4 bytes, big endian), the JSON data and the screenshot's bytes.
+ *
+ * The body is written directly to the request's stream, so the screenshot
+ * isn't copied into intermediate buffers (unless the HTTP client buffers the
+ * body itself), and its length is known in advance so the request doesn't
+ * have to use chunked encoding.
+ *
+ * The body can be gzip encoded. In that case only the JSON data is actually
+ * compressed: the screenshot is already compressed, so it's written as
+ * "stored" deflate blocks. This keeps the length known in advance, and
+ * doesn't waste time on re-compressing the screenshot.
+ */
+public class MatchWindowRequestBody {
+
+    private static final int LENGTH_PREFIX_SIZE = 4;
+
+    private static final byte[] GZIP_HEADER =
+            {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final int GZIP_TRAILER_SIZE = 8;
+    private static final int MAX_STORED_BLOCK_SIZE = 0xFFFF;
+    private static final int STORED_BLOCK_HEADER_SIZE = 5;
+
+    private final byte[] jsonData;
+    private final byte[] screenshot;
+
+    // When the body is gzip encoded, these hold the compressed length
+    // prefix and JSON data, and the gzip trailer.
+    private final byte[] compressedHeader;
+    private final byte[] gzipTrailer;
+
+    /**
+     * @param jsonMapper The mapper to use for serializing {@code matchData}.
+     * @param matchData  The data of the request. Everything EXCEPT for the
+     *                   screenshot is serialized as JSON.
+     * @throws EyesException If the data could not be serialized.
+     */
+    public MatchWindowRequestBody(ObjectMapper jsonMapper,
+                                  MatchWindowData matchData)
+            throws EyesException {
+        this(jsonMapper, matchData, null);
+    }
+
+    /**
+     * @param jsonMapper  The mapper to use for serializing {@code matchData}.
+     * @param matchData   The data of the request. Everything EXCEPT for the
+     *                    screenshot is serialized as JSON.
+     * @param compression (optional) If not {@code null}, the body is gzip
+     *                    encoded when the JSON data is large enough.
+     * @throws EyesException If the data could not be serialized.
+     */
+    public MatchWindowRequestBody(ObjectMapper jsonMapper,
+                                  MatchWindowData matchData,
+                                  RequestCompressionSettings compression)
+            throws EyesException {
+        ArgumentGuard.notNull(jsonMapper, "jsonMapper");
+        ArgumentGuard.notNull(matchData, "matchData");
+
+        // The JSON is small compared to the screenshot, and we need its
+        // length before writing it anyway. The request might be sent in the
+        // background, so we don't rely on the mapper's (mutable) root
+        // wrapping configuration.
+        try {
+            jsonData = jsonMapper.writer()
+                    .without(SerializationFeature.WRAP_ROOT_VALUE)
+                    .writeValueAsBytes(matchData);
+        } catch (IOException e) {
+            throw new EyesException(
+                    "Failed to serialize data for matchWindow!", e);
+        }
+
+        // Notice the screenshot can be either in compressed or
+        // uncompressed form.
+        byte[] screenshotBytes = matchData.getAppOutput().getScreenshotBytes();
+        screenshot = screenshotBytes != null ? screenshotBytes : new byte[0];
+
+        if (compression != null && compression.shouldCompress(
+                LENGTH_PREFIX_SIZE + jsonData.length)) {
+            compressedHeader = deflateHeader();
+            gzipTrailer = createGzipTrailer();
+        } else {
+            compressedHeader = null;
+            gzipTrailer = null;
+        }
+    }
+
+    /**
+     * @return The value of the "Content-Encoding" header of the request, or
+     * {@code null} if the body isn't encoded.
+     */
+    public String getContentEncoding() {
+        return compressedHeader != null ? GzipUtils.GZIP_ENCODING : null;
+    }
+
+    /**
+     * @return The number of bytes in the request body.
+     */
+    public long getContentLength() {
+        if (compressedHeader == null) {
+            return LENGTH_PREFIX_SIZE + jsonData.length + screenshot.length;
+        }
+
+        return GZIP_HEADER.length + compressedHeader.length
+                + getStoredBlocksCount() * STORED_BLOCK_HEADER_SIZE
+                + screenshot.length + GZIP_TRAILER_SIZE;
+    }
+
+    /**
+     * Writes the request body.
+     *
+     * @param output The stream to write to. Not closed.
+     * @throws IOException If there was a problem writing to the stream.
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        ArgumentGuard.notNull(output, "output");
+
+        if (compressedHeader == null) {
+            DataOutputStream dos = new DataOutputStream(output);
+            dos.writeInt(jsonData.length);
+            dos.write(jsonData);
+            dos.write(screenshot);
+            dos.flush();
+            return;
+        }
+
+        output.write(GZIP_HEADER);
+        output.write(compressedHeader);
+
+        // The compressed header ends on a byte boundary, so the screenshot
+        // can follow as stored blocks (the last one marked as final).
+        int blocksCount = getStoredBlocksCount();
+        byte[] blockHeader = new byte[STORED_BLOCK_HEADER_SIZE];
+        for (int i = 0; i < blocksCount; ++i) {
+            int offset = i * MAX_STORED_BLOCK_SIZE;
+            int length = Math.min(MAX_STORED_BLOCK_SIZE,
+                    screenshot.length - offset);
+            blockHeader[0] = (byte) (i == blocksCount - 1 ? 1 : 0);
+            blockHeader[1] = (byte) length;
+            blockHeader[2] = (byte) (length >>> 8);
+            blockHeader[3] = (byte) ~length;
+            blockHeader[4] = (byte) (~length >>> 8);
+            output.write(blockHeader);
+            output.write(screenshot, offset, length);
+        }
+
+        output.write(gzipTrailer);
+        output.flush();
+    }
+
+    /**
+     * @return The number of stored blocks holding the screenshot (at least
+     * one, since the last block marks the end of the data).
+     */
+    private int getStoredBlocksCount() {
+        return Math.max(1, (screenshot.length + MAX_STORED_BLOCK_SIZE - 1)
+                / MAX_STORED_BLOCK_SIZE);
+    }
+
+    /**
+     * @return The length of the JSON data (4 bytes, big endian).
+     */
+    private byte[] getLengthPrefix() {
+        return new byte[] {
+                (byte) (jsonData.length >>> 24),
+                (byte) (jsonData.length >>> 16),
+                (byte) (jsonData.length >>> 8),
+                (byte) jsonData.length};
+    }
+
+    /**
+     * @return The length prefix and the JSON data as (raw) deflate data,
+     * flushed to a byte boundary and NOT marked as final.
+     */
+    private byte[] deflateHeader() {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            ByteArrayOutputStream compressed =
+                    new ByteArrayOutputStream(jsonData.length / 4 + 64);
+            byte[] buffer = new byte[4096];
+            deflater.setInput(getLengthPrefix());
+            drain(deflater, Deflater.NO_FLUSH, buffer, compressed);
+            deflater.setInput(jsonData);
+            drain(deflater, Deflater.SYNC_FLUSH, buffer, compressed);
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void drain(Deflater deflater, int flush, byte[] buffer,
+                              ByteArrayOutputStream output) {
+        int count;
+        do {
+            count = deflater.deflate(buffer, 0, buffer.length, flush);
+            output.write(buffer, 0, count);
+        } while (count == buffer.length || !deflater.needsInput());
+    }
+
+    /**
+     * @return The gzip trailer: the CRC and size of the uncompressed body.
+     */
+    private byte[] createGzipTrailer() {
+        CRC32 crc = new CRC32();
+        crc.update(getLengthPrefix());
+        crc.update(jsonData);
+        crc.update(screenshot);
+
+        long crcValue = crc.getValue();
+        long size = LENGTH_PREFIX_SIZE + jsonData.length + screenshot.length;
+        byte[] trailer = new byte[GZIP_TRAILER_SIZE];
+        for (int i = 0; i < 4; ++i) {
+            trailer[i] = (byte) (crcValue >>> (8 * i));
+            trailer[4 + i] = (byte) (size >>> (8 * i));
+        }
+        return trailer;
+    }
+}
@@ -0,0 +1,51 @@
+package com.applitools.eyes;
+
+import com.applitools.utils.ArgumentGuard;
+
+/**
+ * Encapsulates settings for compressing the bodies of requests to the Eyes
+ * server (using "Content-Encoding: gzip"). When compression is enabled, the
+ * server is also asked to compress its responses.
+ */
+public class RequestCompressionSettings {
+
+    private static final int DEFAULT_THRESHOLD = 1024; // bytes
+
+    private final int threshold;
+
+    /**
+     * @param threshold Bodies smaller than this (bytes) are sent as is,
+     *                  since compressing them doesn't pay off.
+     */
+    public RequestCompressionSettings(int threshold) {
+        ArgumentGuard.greaterThanOrEqualToZero(threshold, "threshold");
+        this.threshold = threshold;
+    }
+
+    /**
+     * Compresses bodies of 1KB or more.
+     */
+    public RequestCompressionSettings() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @return The minimal size of a body which is compressed (bytes).
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param length The number of (compressible) bytes in a body.
+     * @return Whether a body of the given length should be compressed.
+     */
+    public boolean shouldCompress(long length) {
+        return length >= threshold;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestCompressionSettings(threshold: " + threshold + ")";
+    }
+}
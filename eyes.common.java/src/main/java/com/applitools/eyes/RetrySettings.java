@@ -0,0 +1,124 @@
+package com.applitools.eyes;
+
+import com.applitools.utils.ArgumentGuard;
+
+import java.util.Random;
+
+/**
+ * Encapsulates settings for retrying requests to the Eyes server which
+ * failed due to transient errors. Requests such as startSession and
+ * matchWindow aren't idempotent, so they are only retried when the server
+ * surely didn't handle them: when the connection couldn't be established,
+ * or on a 429/502/503/504 response. Retries are delayed by an exponential
+ * backoff with jitter, so parallel tests don't retry in lock step.
+ */
+public class RetrySettings {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final int DEFAULT_INITIAL_BACKOFF = 500; // ms
+    private static final int DEFAULT_MAX_BACKOFF = 5000; // ms
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int BAD_GATEWAY = 502;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final int GATEWAY_TIMEOUT = 504;
+
+    private final int maxAttempts;
+    private final int initialBackoff;
+    private final int maxBackoff;
+
+    /**
+     * @param maxAttempts    The maximum number of times a request is sent
+     *                       (1 means no retries).
+     * @param initialBackoff The delay before the first retry (milliseconds).
+     * @param maxBackoff     The maximum delay before a retry (milliseconds).
+     */
+    public RetrySettings(int maxAttempts, int initialBackoff,
+                         int maxBackoff) {
+        ArgumentGuard.greaterThanZero(maxAttempts, "maxAttempts");
+        ArgumentGuard.greaterThanOrEqualToZero(initialBackoff,
+                "initialBackoff");
+        ArgumentGuard.greaterThanOrEqualToZero(maxBackoff, "maxBackoff");
+
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = Math.max(initialBackoff, maxBackoff);
+    }
+
+    /**
+     * Sends a request up to 3 times, waiting about 0.5 seconds before the
+     * first retry (doubled on each retry, up to 5 seconds).
+     */
+    public RetrySettings() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF,
+                DEFAULT_MAX_BACKOFF);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return The delay before the first retry (milliseconds).
+     */
+    public int getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * @return The maximum delay before a retry (milliseconds).
+     */
+    public int getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * @param retry  The number of the retry (1 for the first retry).
+     * @param random The source of the jitter.
+     * @return The delay before the retry (milliseconds): between half and
+     * all of the exponential backoff.
+     */
+    public long getBackoff(int retry, Random random) {
+        ArgumentGuard.greaterThanZero(retry, "retry");
+        ArgumentGuard.notNull(random, "random");
+
+        long backoff = initialBackoff;
+        for (int i = 1; i < retry && backoff < maxBackoff; ++i) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, maxBackoff);
+
+        long half = backoff / 2;
+        return half + (long) (random.nextDouble() * (backoff - half));
+    }
+
+    /**
+     * @param statusCode The status code of a response.
+     * @return Whether the response indicates that the request wasn't
+     * handled due to a transient error, so it can be retried. Notice that a
+     * 500 response might be sent after the request was (partially) handled.
+     */
+    public static boolean isRetriableStatus(int statusCode) {
+        return statusCode == TOO_MANY_REQUESTS
+                || statusCode == BAD_GATEWAY
+                || statusCode == SERVICE_UNAVAILABLE
+                || statusCode == GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * @param statusCode The status code of a response.
+     * @return Whether the response indicates that the client is throttled.
+     * The server is available in this case, so the response isn't counted
+     * as a failure by the {@link CircuitBreaker}.
+     */
+    public static boolean isThrottlingStatus(int statusCode) {
+        return statusCode == TOO_MANY_REQUESTS;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RetrySettings(maxAttempts: %d, " +
+                        "initialBackoff: %d, maxBackoff: %d)",
+                maxAttempts, initialBackoff, maxBackoff);
+    }
+}
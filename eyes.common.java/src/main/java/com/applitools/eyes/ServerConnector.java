@@ -1,6 +1,7 @@
 package com.applitools.eyes;
 
 import java.net.URI;
+import java.util.concurrent.Future;
 
 /**
  * Defines the interface which should be implemented by a ServerConnector.
@@ -15,6 +16,36 @@ public interface ServerConnector {
     void setProxy(ProxySettings proxySettings);
     ProxySettings getProxy();
 
+    /**
+     * Sets a shared pool of keep-alive connections to use. Connectors
+     * configured with equal settings share the same pool.
+     *
+     * @param connectionPoolSettings The settings of the pool, or
+     *                               {@code null} for no shared pool.
+     */
+    void setConnectionPool(ConnectionPoolSettings connectionPoolSettings);
+    ConnectionPoolSettings getConnectionPool();
+
+    /**
+     * Sets the compression of request bodies. When set, compressed responses
+     * are accepted as well.
+     *
+     * @param requestCompressionSettings The compression settings, or
+     *                                   {@code null} for no compression.
+     */
+    void setRequestCompression(
+            RequestCompressionSettings requestCompressionSettings);
+    RequestCompressionSettings getRequestCompression();
+
+    /**
+     * Sets the retrying of requests which failed due to transient errors.
+     *
+     * @param retrySettings The retry settings, or {@code null} for no
+     *                      retries.
+     */
+    void setRetrySettings(RetrySettings retrySettings);
+    RetrySettings getRetrySettings();
+
     /**
      *
      * @return The server timeout. (Seconds).
@@ -43,10 +74,26 @@ public interface ServerConnector {
     TestResults stopSession(final RunningSession runningSession,
                                    final boolean isAborted, final boolean save);
 
+    /**
+     * Same as {@link #stopSession(RunningSession, boolean, boolean)}, except
+     * that the server is polled in the background until the session is
+     * stopped.
+     *
+     * @param runningSession The running session to be stopped.
+     * @return A future for the TestResults of the stopped running session.
+     */
+    Future<TestResults> stopSessionAsync(RunningSession runningSession,
+                                         boolean isAborted, boolean save);
+
     /**
      * Matches the current window (held by the WebDriver) to the expected
      * window.
      *
+     * Blocks until the server responds. Matches which are sent in the
+     * background go through the session's {@code MatchWindowQueue}, which
+     * calls this method from a single thread, so that the server receives
+     * the screenshots of a session in order.
+     *
      * @param runningSession The current agent's running session.
      * @param matchData Encapsulation of a capture taken from the application.
      * @return The results of the window matching.
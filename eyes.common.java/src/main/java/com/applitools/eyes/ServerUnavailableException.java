@@ -0,0 +1,12 @@
+package com.applitools.eyes;
+
+/**
+ * Applitools Eyes exception indicating that a request was not sent, since
+ * the Eyes server failed too many recent requests (see
+ * {@link CircuitBreaker}).
+ */
+public class ServerUnavailableException extends EyesException {
+    public ServerUnavailableException(String message) {
+        super(message);
+    }
+}
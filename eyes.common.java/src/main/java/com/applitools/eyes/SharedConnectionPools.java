@@ -0,0 +1,138 @@
+package com.applitools.eyes;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process wide pools of keep-alive HTTP connections, one for each
+ * (distinct) {@link ConnectionPoolSettings}. Used by the server connectors
+ * which are based on the Apache HTTP client (which they provide, hence the
+ * optional dependency).
+ */
+public class SharedConnectionPools {
+
+    private static final int MIN_EVICTION_PERIOD = 1000; // ms
+
+    private static final Map<ConnectionPoolSettings,
+            HttpClientConnectionManager> pools = new HashMap<>();
+    private static ScheduledExecutorService idleConnectionsEvictor;
+
+    private SharedConnectionPools() {}
+
+    /**
+     * @param settings The settings of the pool.
+     * @return The connection manager of the pool matching the given
+     * settings. The returned manager ignores {@code shutdown()}, so closing a
+     * client doesn't close the connections of other clients.
+     */
+    public static synchronized HttpClientConnectionManager get(
+            ConnectionPoolSettings settings) {
+        HttpClientConnectionManager pool = pools.get(settings);
+        if (pool == null) {
+            final PoolingHttpClientConnectionManager connectionManager =
+                    new PoolingHttpClientConnectionManager(
+                            settings.getKeepAlive(), TimeUnit.MILLISECONDS);
+            connectionManager.setDefaultMaxPerRoute(
+                    settings.getMaxConnectionsPerRoute());
+            connectionManager.setMaxTotal(settings.getMaxConnectionsTotal());
+
+            final int idleTimeout = settings.getIdleTimeout();
+            int evictionPeriod = Math.max(MIN_EVICTION_PERIOD, idleTimeout / 2);
+            getIdleConnectionsEvictor().scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(idleTimeout,
+                            TimeUnit.MILLISECONDS);
+                }
+            }, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+
+            pool = new SharedConnectionManager(connectionManager);
+            pools.put(settings, pool);
+        }
+        return pool;
+    }
+
+    private static ScheduledExecutorService getIdleConnectionsEvictor() {
+        if (idleConnectionsEvictor == null) {
+            idleConnectionsEvictor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactory() {
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable,
+                                    "eyes-idle-connections-evictor");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return idleConnectionsEvictor;
+    }
+
+    /**
+     * A connection manager which delegates to a shared connection manager,
+     * except for {@link #shutdown()}.
+     */
+    private static class SharedConnectionManager
+            implements HttpClientConnectionManager {
+
+        private final HttpClientConnectionManager connectionManager;
+
+        public SharedConnectionManager(
+                HttpClientConnectionManager connectionManager) {
+            this.connectionManager = connectionManager;
+        }
+
+        public ConnectionRequest requestConnection(HttpRoute route,
+                                                   Object state) {
+            return connectionManager.requestConnection(route, state);
+        }
+
+        public void releaseConnection(HttpClientConnection connection,
+                                      Object newState, long validDuration,
+                                      TimeUnit timeUnit) {
+            connectionManager.releaseConnection(connection, newState,
+                    validDuration, timeUnit);
+        }
+
+        public void connect(HttpClientConnection connection, HttpRoute route,
+                            int connectTimeout, HttpContext context)
+                throws IOException {
+            connectionManager.connect(connection, route, connectTimeout,
+                    context);
+        }
+
+        public void upgrade(HttpClientConnection connection, HttpRoute route,
+                            HttpContext context) throws IOException {
+            connectionManager.upgrade(connection, route, context);
+        }
+
+        public void routeComplete(HttpClientConnection connection,
+                                  HttpRoute route, HttpContext context)
+                throws IOException {
+            connectionManager.routeComplete(connection, route, context);
+        }
+
+        public void closeIdleConnections(long idleTime, TimeUnit timeUnit) {
+            connectionManager.closeIdleConnections(idleTime, timeUnit);
+        }
+
+        public void closeExpiredConnections() {
+            connectionManager.closeExpiredConnections();
+        }
+
+        public void shutdown() {
+            // The connections are shared with other clients.
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.applitools.utils;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bicubic image scaling which works directly on the pixel bytes of
+ * {@link BufferedImage#TYPE_4BYTE_ABGR} images.
+ *
+ * The rows are interpolated first and then the columns, where each pass is
+ * split by row bands on the {@link ImageProcessingPool}. When scaling down by
+ * more than a half, the image is first interpolated to a multiple of the
+ * target size and then averaged.
+ *
+ * The interpolation weights are fixed-point. The intermediate buffers are
+ * kept and reused by subsequent calls, so an instance must not be used by
+ * several threads at once.
+ */
+public class BicubicScaler {
+
+    private static final int CHANNELS = 4;
+    private static final int WEIGHT_BITS = 14;
+    private static final int WEIGHT_ONE = 1 << WEIGHT_BITS;
+    private static final int WEIGHT_ROUNDING = 1 << (WEIGHT_BITS - 1);
+
+    // The minimal number of bytes a task handles before it stops splitting.
+    private static final int MIN_BAND_BYTES = 64 * 1024;
+
+    private byte[] rowsBuffer;
+    private byte[] columnsBuffer;
+
+    /**
+     * Scales an image to the given size.
+     *
+     * @param image        The image to scale.
+     * @param targetWidth  The width of the scaled image.
+     * @param targetHeight The height of the scaled image.
+     * @return A new, scaled image.
+     */
+    public BufferedImage scale(BufferedImage image, int targetWidth,
+                               int targetHeight) {
+        ArgumentGuard.notNull(image, "image");
+        ArgumentGuard.greaterThanZero(targetWidth, "targetWidth");
+        ArgumentGuard.greaterThanZero(targetHeight, "targetHeight");
+
+        image = ImageUtils.normalizeImageType(image);
+
+        int srcWidth = image.getWidth();
+        int srcHeight = image.getHeight();
+
+        // When the target is smaller than half the source, we interpolate to a
+        // multiple of the target and then average.
+        int widthMultiplier = Math.max(1, srcWidth / targetWidth);
+        int heightMultiplier = Math.max(1, srcHeight / targetHeight);
+        int interpolatedWidth = targetWidth * widthMultiplier;
+        int interpolatedHeight = targetHeight * heightMultiplier;
+
+        BufferedImage scaledImage = new BufferedImage(targetWidth, targetHeight,
+                ImageUtils.REQUIRED_IMAGE_TYPE);
+        byte[] scaledPixels = getPixels(scaledImage);
+
+        ScaleJob job = new ScaleJob();
+        job.source = getPixels(image);
+        job.srcWidth = srcWidth;
+        job.srcHeight = srcHeight;
+        job.interpolatedWidth = interpolatedWidth;
+        job.interpolatedHeight = interpolatedHeight;
+        job.widthMultiplier = widthMultiplier;
+        job.heightMultiplier = heightMultiplier;
+        job.targetWidth = targetWidth;
+        job.rows = ensureRowsBuffer(interpolatedWidth * srcHeight * CHANNELS);
+        job.columnsPositions = new int[interpolatedWidth];
+        job.columnsWeights =
+                computeWeights(srcWidth, interpolatedWidth, job.columnsPositions);
+        job.rowsPositions = new int[interpolatedHeight];
+        job.rowsWeights =
+                computeWeights(srcHeight, interpolatedHeight, job.rowsPositions);
+
+        if (widthMultiplier * heightMultiplier > 1) {
+            job.columns = ensureColumnsBuffer(
+                    interpolatedWidth * interpolatedHeight * CHANNELS);
+            job.target = scaledPixels;
+        } else {
+            // No averaging needed, so the second pass writes the result.
+            job.columns = scaledPixels;
+        }
+
+        ImageProcessingPool.invoke(new ScalePassTask(job,
+                ScalePass.ROWS, 0, srcHeight, interpolatedWidth));
+        ImageProcessingPool.invoke(new ScalePassTask(job,
+                ScalePass.COLUMNS, 0, interpolatedHeight, interpolatedWidth));
+        if (job.target != null) {
+            ImageProcessingPool.invoke(new ScalePassTask(job,
+                    ScalePass.AVERAGE, 0, targetHeight, targetWidth));
+        }
+
+        return scaledImage;
+    }
+
+    private byte[] ensureRowsBuffer(int length) {
+        if (rowsBuffer == null || rowsBuffer.length < length) {
+            rowsBuffer = new byte[length];
+        }
+        return rowsBuffer;
+    }
+
+    private byte[] ensureColumnsBuffer(int length) {
+        if (columnsBuffer == null || columnsBuffer.length < length) {
+            columnsBuffer = new byte[length];
+        }
+        return columnsBuffer;
+    }
+
+    private static byte[] getPixels(BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Computes the source position and the 4 cubic weights for each
+     * destination position along an axis.
+     *
+     * @param srcLength The length of the axis in the source.
+     * @param dstLength The length of the axis in the destination.
+     * @param positions Output: the source position for each destination
+     *                  position.
+     * @return The weights, 4 consecutive values for each destination
+     * position.
+     */
+    private static int[] computeWeights(int srcLength, int dstLength,
+                                        int[] positions) {
+        int[] weights = new int[dstLength * 4];
+        for (int i = 0; i < dstLength; ++i) {
+            double position = (double) i * (srcLength - 1) / dstLength;
+            int floor = (int) Math.floor(position);
+            double t = position - floor;
+            double t2 = t * t;
+            double t3 = t2 * t;
+
+            positions[i] = floor;
+            int w0 = (int) Math.round((-t + (2 * t2) - t3) * WEIGHT_ONE);
+            int w2 = (int) Math.round((t + t2 - t3) * WEIGHT_ONE);
+            int w3 = (int) Math.round((-t2 + t3) * WEIGHT_ONE);
+            weights[i * 4] = w0;
+            // Making sure the weights sum up to exactly one.
+            weights[(i * 4) + 1] = WEIGHT_ONE - w0 - w2 - w3;
+            weights[(i * 4) + 2] = w2;
+            weights[(i * 4) + 3] = w3;
+        }
+        return weights;
+    }
+
+    /**
+     * Applies the cubic weights to 4 samples and clamps the result to a
+     * byte.
+     */
+    private static byte interpolate(int[] weights, int weightsOffset, int v0,
+                                    int v1, int v2, int v3) {
+        int value = ((weights[weightsOffset] * v0)
+                + (weights[weightsOffset + 1] * v1)
+                + (weights[weightsOffset + 2] * v2)
+                + (weights[weightsOffset + 3] * v3)
+                + WEIGHT_ROUNDING) >> WEIGHT_BITS;
+        if (value < 0) {
+            return 0;
+        }
+        if (value > 255) {
+            return (byte) 255;
+        }
+        return (byte) value;
+    }
+
+    /**
+     * Interpolates the rows {@code [firstRow, lastRow)} of the source into
+     * the rows buffer, which has the interpolated width.
+     */
+    private static void interpolateRows(ScaleJob job, int firstRow,
+                                        int lastRow) {
+        byte[] source = job.source;
+        byte[] rows = job.rows;
+        int srcWidth = job.srcWidth;
+        int width = job.interpolatedWidth;
+        int[] positions = job.columnsPositions;
+        int[] weights = job.columnsWeights;
+
+        for (int row = firstRow; row < lastRow; ++row) {
+            int srcRowOffset = row * srcWidth * CHANNELS;
+            int dstOffset = row * width * CHANNELS;
+            for (int column = 0; column < width; ++column) {
+                int position = positions[column];
+                int p1 = srcRowOffset + (position * CHANNELS);
+                int p2 = position < srcWidth - 1 ? p1 + CHANNELS : p1;
+                int p0 = position > 0 ? p1 - CHANNELS : -1;
+                int p3 = position < srcWidth - 2 ? p2 + CHANNELS : -1;
+
+                for (int c = 0; c < CHANNELS; ++c) {
+                    int v1 = source[p1 + c] & 0xff;
+                    int v2 = source[p2 + c] & 0xff;
+                    // Extrapolating beyond the edges.
+                    int v0 = p0 >= 0 ? source[p0 + c] & 0xff : (2 * v1) - v2;
+                    int v3 = p3 >= 0 ? source[p3 + c] & 0xff : (2 * v2) - v1;
+                    rows[dstOffset++] =
+                            interpolate(weights, column * 4, v0, v1, v2, v3);
+                }
+            }
+        }
+    }
+
+    /**
+     * Interpolates the columns of the rows buffer, into the rows
+     * {@code [firstRow, lastRow)} of the columns buffer.
+     */
+    private static void interpolateColumns(ScaleJob job, int firstRow,
+                                           int lastRow) {
+        byte[] rows = job.rows;
+        byte[] columns = job.columns;
+        int srcHeight = job.srcHeight;
+        int rowLength = job.interpolatedWidth * CHANNELS;
+        int[] positions = job.rowsPositions;
+        int[] weights = job.rowsWeights;
+
+        for (int row = firstRow; row < lastRow; ++row) {
+            int position = positions[row];
+            int r1 = position * rowLength;
+            int r2 = position < srcHeight - 1 ? r1 + rowLength : r1;
+            int r0 = position > 0 ? r1 - rowLength : -1;
+            int r3 = position < srcHeight - 2 ? r2 + rowLength : -1;
+            int weightsOffset = row * 4;
+            int dstOffset = row * rowLength;
+
+            for (int i = 0; i < rowLength; ++i) {
+                int v1 = rows[r1 + i] & 0xff;
+                int v2 = rows[r2 + i] & 0xff;
+                int v0 = r0 >= 0 ? rows[r0 + i] & 0xff : (2 * v1) - v2;
+                int v3 = r3 >= 0 ? rows[r3 + i] & 0xff : (2 * v2) - v1;
+                columns[dstOffset + i] =
+                        interpolate(weights, weightsOffset, v0, v1, v2, v3);
+            }
+        }
+    }
+
+    /**
+     * Averages blocks of the columns buffer into the rows
+     * {@code [firstRow, lastRow)} of the target.
+     */
+    private static void average(ScaleJob job, int firstRow, int lastRow) {
+        byte[] columns = job.columns;
+        byte[] target = job.target;
+        int widthMultiplier = job.widthMultiplier;
+        int heightMultiplier = job.heightMultiplier;
+        int targetWidth = job.targetWidth;
+        int srcRowLength = job.interpolatedWidth * CHANNELS;
+        int blockSize = widthMultiplier * heightMultiplier;
+        int[] sums = new int[CHANNELS];
+
+        for (int row = firstRow; row < lastRow; ++row) {
+            for (int column = 0; column < targetWidth; ++column) {
+                sums[0] = sums[1] = sums[2] = sums[3] = 0;
+                for (int y = 0; y < heightMultiplier; ++y) {
+                    int offset = ((row * heightMultiplier) + y) * srcRowLength
+                            + (column * widthMultiplier * CHANNELS);
+                    for (int x = 0; x < widthMultiplier; ++x) {
+                        for (int c = 0; c < CHANNELS; ++c) {
+                            sums[c] += columns[offset++] & 0xff;
+                        }
+                    }
+                }
+
+                int dstOffset = ((row * targetWidth) + column) * CHANNELS;
+                for (int c = 0; c < CHANNELS; ++c) {
+                    target[dstOffset + c] =
+                            (byte) ((sums[c] + (blockSize / 2)) / blockSize);
+                }
+            }
+        }
+    }
+
+    private enum ScalePass {
+        ROWS,
+        COLUMNS,
+        AVERAGE
+    }
+
+    /**
+     * The input, output and precomputed weights of a single scaling.
+     */
+    private static class ScaleJob {
+        private byte[] source;
+        private int srcWidth;
+        private int srcHeight;
+        private int interpolatedWidth;
+        private int interpolatedHeight;
+        private int widthMultiplier;
+        private int heightMultiplier;
+        private int targetWidth;
+
+        private int[] columnsPositions;
+        private int[] columnsWeights;
+        private int[] rowsPositions;
+        private int[] rowsWeights;
+
+        private byte[] rows;
+        private byte[] columns;
+        private byte[] target;
+    }
+
+    /**
+     * Runs a single pass over a band of output rows, splitting it in half
+     * while it's big enough.
+     */
+    private static class ScalePassTask extends RecursiveAction {
+        private final ScaleJob job;
+        private final ScalePass pass;
+        private final int firstRow;
+        private final int lastRow; // Exclusive
+        private final int rowWidth;
+
+        public ScalePassTask(ScaleJob job, ScalePass pass, int firstRow,
+                             int lastRow, int rowWidth) {
+            this.job = job;
+            this.pass = pass;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.rowWidth = rowWidth;
+        }
+
+        @Override
+        protected void compute() {
+            int rowsCount = lastRow - firstRow;
+            if (rowsCount > 1
+                    && (long) rowsCount * rowWidth * CHANNELS > 2 * MIN_BAND_BYTES) {
+                int middleRow = firstRow + (rowsCount / 2);
+                invokeAll(
+                        new ScalePassTask(job, pass, firstRow, middleRow, rowWidth),
+                        new ScalePassTask(job, pass, middleRow, lastRow, rowWidth));
+                return;
+            }
+
+            switch (pass) {
+                case ROWS:
+                    interpolateRows(job, firstRow, lastRow);
+                    break;
+                case COLUMNS:
+                    interpolateColumns(job, firstRow, lastRow);
+                    break;
+                default:
+                    average(job, firstRow, lastRow);
+                    break;
+            }
+        }
+    }
+}
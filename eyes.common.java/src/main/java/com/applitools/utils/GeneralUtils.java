@@ -9,6 +9,7 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
+import java.util.TimeZone;
 
 /**
  * General purpose utilities.
@@ -110,6 +111,29 @@ public class GeneralUtils {
         return cal;
     }
 
+    /**
+     * Creates {@link java.util.Calendar} instance from an RFC 1123 formatted
+     * string.
+     *
+     * @param dateTime An RFC 1123 formatted string.
+     * @return A {@link java.util.Calendar} instance representing the given
+     *          date and time.
+     * @throws java.text.ParseException If {@code dateTime} is not in the RFC
+     * 1123 format.
+     */
+    public static Calendar fromRfc1123(String dateTime)
+            throws ParseException {
+        ArgumentGuard.notNull(dateTime, "dateTime");
+
+        SimpleDateFormat formatter =
+                new SimpleDateFormat(DATE_FORMAT_RFC1123, Locale.US);
+        formatter.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+        cal.setTime(formatter.parse(dateTime));
+        return cal;
+    }
+
     /**
      * Sleeps the input amount of milliseconds.
      *
@@ -0,0 +1,131 @@
+package com.applitools.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Utilities for compressing request bodies and decompressing response
+ * bodies.
+ */
+public class GzipUtils {
+
+    /**
+     * The value of the "Accept-Encoding" header for requests whose response
+     * can be decompressed by {@link #decompress(byte[], String)}.
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    public static final String GZIP_ENCODING = "gzip";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private GzipUtils() {
+    }
+
+    /**
+     * @param data The bytes to compress.
+     * @return The bytes compressed in gzip format.
+     */
+    public static byte[] compress(byte[] data) {
+        ArgumentGuard.notNull(data, "data");
+
+        ByteArrayOutputStream compressed =
+                new ByteArrayOutputStream(data.length / 4 + 64);
+        try {
+            GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+            gzip.write(data);
+            gzip.close();
+        } catch (IOException e) {
+            // Can't happen when writing to memory.
+            throw new RuntimeException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Decodes a body according to its "Content-Encoding".
+     *
+     * @param data            The body's bytes.
+     * @param contentEncoding The value of the "Content-Encoding" header, or
+     *                        {@code null} if the body isn't encoded.
+     * @return The decoded bytes.
+     * @throws IOException If the encoding isn't supported, or the body is
+     * corrupt.
+     */
+    public static byte[] decompress(byte[] data, String contentEncoding)
+            throws IOException {
+        ArgumentGuard.notNull(data, "data");
+
+        if (contentEncoding == null) {
+            return data;
+        }
+
+        String encoding = contentEncoding.trim().toLowerCase();
+        if (encoding.isEmpty() || encoding.equals("identity")) {
+            return data;
+        }
+        if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+            return readToEnd(new GZIPInputStream(
+                    new ByteArrayInputStream(data)));
+        }
+        if (encoding.equals("deflate")) {
+            // "deflate" should be zlib wrapped, but some servers send raw
+            // deflate data.
+            try {
+                return inflate(data, false);
+            } catch (DataFormatException e) {
+                try {
+                    return inflate(data, true);
+                } catch (DataFormatException e2) {
+                    throw new IOException("Invalid deflate data!", e2);
+                }
+            }
+        }
+
+        throw new IOException("Unsupported content encoding: " +
+                contentEncoding);
+    }
+
+    private static byte[] inflate(byte[] data, boolean nowrap)
+            throws DataFormatException {
+        Inflater inflater = new Inflater(nowrap);
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream output =
+                    new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput()
+                        || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated deflate data!");
+                }
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] readToEnd(InputStream input) throws IOException {
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } finally {
+            input.close();
+        }
+    }
+}
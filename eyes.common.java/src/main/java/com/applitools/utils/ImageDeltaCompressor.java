@@ -3,11 +3,13 @@
  */
 package com.applitools.utils;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.io.*;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
@@ -19,6 +21,12 @@ public class ImageDeltaCompressor {
     private static final byte[] PREAMBLE;
     private static final byte COMPRESS_BY_RAW_BLOCKS_FORMAT = 3;
 
+    // How many block rows each worker thread compares per batch. The
+    // comparison of a batch runs while the previous batch is being deflated.
+    private static final int BLOCK_ROWS_PER_WORKER = 4;
+
+    private static final int DEFLATE_BUFFER_SIZE = 32 * 1024;
+
     // Init the preamble (needs to be in a static init block since we must
     // handle encoding exception).
     static {
@@ -35,115 +43,302 @@ public class ImageDeltaCompressor {
     }
 
     /**
-     * Encapsulates a result for the CompareAndCopyBlockChannelData function.
+     * The pixels of the source and target images, along with the block
+     * layout used for comparing them.
      */
-    private static class CompareAndCopyBlockChannelDataResult {
-        private boolean isIdentical;
-        private byte[] buffer;
+    private static class BlockGrid {
+        private final byte[] sourcePixels;
+        private final byte[] targetPixels;
+        private final int width;
+        private final int height;
+        private final int pixelLength;
+        private final int stride;
+        private final int blockSize;
+        private final int blockColumnsCount;
+        private final int blockRowsCount;
+        // Whether the raw pixels (all channels) of each block are identical.
+        // Filled in during the pass over the first channel.
+        private final boolean[] identicalBlocks;
 
         /**
-         *
-         * @param isIdentical Whether or not the target block was identical to
-         *                    the source block.
-         * @param buffer The target block's pixel values for a specific channel.
+         * @param sourcePixels The pixels of the source image.
+         * @param targetPixels The pixels of the target image.
+         * @param width The images width in pixels.
+         * @param height The images height in pixels.
+         * @param pixelLength Bytes per pixel. Since pixel might include alpha.
+         * @param blockSize The block size in pixels.
          */
-        public CompareAndCopyBlockChannelDataResult(boolean isIdentical,
-                byte[] buffer) {
-            this.isIdentical = isIdentical;
-            this.buffer = buffer;
+        public BlockGrid(byte[] sourcePixels, byte[] targetPixels, int width,
+                         int height, int pixelLength, int blockSize) {
+            this.sourcePixels = sourcePixels;
+            this.targetPixels = targetPixels;
+            this.width = width;
+            this.height = height;
+            this.pixelLength = pixelLength;
+            this.stride = width * pixelLength;
+            this.blockSize = blockSize;
+
+            // Calculating how many block columns and rows we've got.
+            this.blockColumnsCount = (width / blockSize)
+                    + ((width % blockSize) == 0 ? 0 : 1);
+            this.blockRowsCount = (height / blockSize)
+                    + ((height % blockSize) == 0 ? 0 : 1);
+            this.identicalBlocks =
+                    new boolean[blockColumnsCount * blockRowsCount];
         }
 
         /**
-         * @return Whether or not the target block was identical to the
-         * source block.
+         * @param blockColumn The block column index.
+         * @return The width of the image data contained in blocks of the
+         * given column.
          */
-        public boolean getIsIdentical() {
-            return isIdentical;
+        public int getActualBlockWidth(int blockColumn) {
+            return Math.min(width - (blockColumn * blockSize), blockSize);
         }
 
         /**
-         * @return The target block's pixel values for a specific channel.
+         * @param blockRow The block row index.
+         * @return The height of the image data contained in blocks of the
+         * given row.
          */
-        public byte[] getBuffer() {
-            return buffer;
+        public int getActualBlockHeight(int blockRow) {
+            return Math.min(height - (blockRow * blockSize), blockSize);
         }
     }
 
     /**
-     * Computes the width and height of the image data contained in the block
-     * at the input column and row.
-     * @param imageSize The image size in pixels.
-     * @param blockSize The block size for which we would like to compute the
-     *                  image data width and height.
-     * @param blockColumn The block column index
-     * @param blockRow The block row index
-     * @return The width and height of the image data contained in the block.
+     * Scratch space holding the comparison result of a single block row for a
+     * single channel. Instances are reused across rows and channels so that
+     * no memory is allocated per block.
      */
-    private static Dimension getActualBlockSize(Dimension imageSize,
-            int blockSize, int blockColumn, int blockRow) {
-        int actualWidth = Math.min(imageSize.width - (blockColumn * blockSize),
-                blockSize);
-        int actualHeight = Math.min(imageSize.height - (blockRow * blockSize),
-                                blockSize);
-
-        return new Dimension(actualWidth, actualHeight);
+    private static class BlockRowBuffer {
+        // The channel bytes of the changed blocks, one after the other.
+        private final byte[] channelBytes;
+        // The column indices of the changed blocks, in ascending order.
+        private final int[] changedColumns;
+        private int changedCount;
+
+        /**
+         * @param grid The grid for which the buffer is used.
+         */
+        public BlockRowBuffer(BlockGrid grid) {
+            channelBytes = new byte[grid.blockSize * grid.width];
+            changedColumns = new int[grid.blockColumnsCount];
+            changedCount = 0;
+        }
     }
 
     /**
-     * Compares a block of pixels between the source and target images.
-     * @param sourcePixels The pixels of the source block.
-     * @param targetPixels The pixels of the target block
-     * @param imageSize The image size in pixels.
-     * @param pixelLength Bytes per pixel. Since pixel might include alpha.
-     * @param blockSize The block size in pixels.
-     * @param blockColumn The column index of the block to compare.
-     * @param blockRow The row index of the block to compare.
-     * @param channel The channel for which we compare the blocks
-     * @return Whether the source and target blocks are identical,
-     * and a copy of the target block's channel bytes.
+     * Compares a range of block rows for a single channel, splitting the
+     * range between the pool's workers.
      */
-    @SuppressWarnings("SpellCheckingInspection")
-    private static CompareAndCopyBlockChannelDataResult
-            CompareAndCopyBlockChannelData(
-                byte[] sourcePixels, byte[] targetPixels,
-                Dimension imageSize, int pixelLength, int blockSize,
-            int blockColumn, int blockRow, int channel) {
+    private static class CompareBlockRowsTask extends RecursiveAction {
+        private final BlockGrid grid;
+        private final int channel;
+        private final boolean detectIdenticalBlocks;
+        private final int firstBlockRow;
+        private final int lastBlockRow; // Exclusive
+        private final BlockRowBuffer[] buffers;
+        private final int firstBufferIndex;
 
-        boolean isIdentical = true; // initial default
-
-        // Getting the actual amount of data in the block we wish to copy
-        Dimension actualBlockSize =
-                getActualBlockSize(imageSize, blockSize, blockColumn, blockRow);
+        /**
+         * @param grid The images and block layout to compare.
+         * @param channel The channel for which we compare the blocks.
+         * @param detectIdenticalBlocks Whether to compare the raw pixels of
+         *                              the blocks before comparing the
+         *                              channel. Should be set for the first
+         *                              channel only.
+         * @param firstBlockRow The first block row to compare.
+         * @param lastBlockRow The block row after the last one to compare.
+         * @param buffers The buffers to write the results to.
+         * @param firstBufferIndex The index of the buffer which should hold
+         *                         the result for {@code firstBlockRow}.
+         */
+        public CompareBlockRowsTask(BlockGrid grid, int channel,
+                                    boolean detectIdenticalBlocks,
+                                    int firstBlockRow, int lastBlockRow,
+                                    BlockRowBuffer[] buffers,
+                                    int firstBufferIndex) {
+            this.grid = grid;
+            this.channel = channel;
+            this.detectIdenticalBlocks = detectIdenticalBlocks;
+            this.firstBlockRow = firstBlockRow;
+            this.lastBlockRow = lastBlockRow;
+            this.buffers = buffers;
+            this.firstBufferIndex = firstBufferIndex;
+        }
 
-        int actualBlockHeight = actualBlockSize.height;
-        int actualBlockWidth = actualBlockSize.width;
+        @Override
+        protected void compute() {
+            int rowsCount = lastBlockRow - firstBlockRow;
+            if (rowsCount == 1) {
+                compareBlockRow(grid, firstBlockRow, channel,
+                        detectIdenticalBlocks, buffers[firstBufferIndex]);
+                return;
+            }
 
-        int stride = imageSize.width * pixelLength;
+            int middle = firstBlockRow + (rowsCount / 2);
+            invokeAll(
+                    new CompareBlockRowsTask(grid, channel,
+                            detectIdenticalBlocks, firstBlockRow, middle,
+                            buffers, firstBufferIndex),
+                    new CompareBlockRowsTask(grid, channel,
+                            detectIdenticalBlocks, middle, lastBlockRow,
+                            buffers,
+                            firstBufferIndex + (middle - firstBlockRow)));
+        }
+    }
 
-        // The number of bytes actually contained in the block for the
-        // current channel (might be less than blockSize*blockSize)
-        byte[] channelBytes = new byte[actualBlockHeight*actualBlockWidth];
-        int channelBytesOffset = 0;
+    /**
+     * Compares the raw pixels (all channels) of a block between the source
+     * and target images. The loop is unrolled to 8 bytes, with a single
+     * early exit check per 8 bytes.
+     * @param grid The images and block layout.
+     * @param actualBlockWidth The width of the image data in the block.
+     * @param actualBlockHeight The height of the image data in the block.
+     * @param blockColumn The column index of the block to compare.
+     * @param blockRow The row index of the block to compare.
+     * @return Whether the source and target blocks are identical.
+     */
+    private static boolean isIdenticalBlock(BlockGrid grid,
+            int actualBlockWidth, int actualBlockHeight,
+            int blockColumn, int blockRow) {
+        byte[] sourcePixels = grid.sourcePixels;
+        byte[] targetPixels = grid.targetPixels;
+        int rowBytesCount = actualBlockWidth * grid.pixelLength;
+        // The number of bytes which are compared 8 at a time.
+        int unrolledBytesCount = rowBytesCount & ~7;
 
-        // Actually comparing and copying the pixels
-        byte sourceByte, targetByte;
         for (int h = 0; h < actualBlockHeight; ++h) {
-            int offset = (((blockSize * blockRow) + h) * stride) +
-                    (blockSize * blockColumn * pixelLength) + channel;
+            int rowStart = (((grid.blockSize * blockRow) + h) * grid.stride) +
+                    (grid.blockSize * blockColumn * grid.pixelLength);
+            int rowEnd = rowStart + rowBytesCount;
+            int offset = rowStart;
+            for (int unrolledEnd = rowStart + unrolledBytesCount;
+                    offset < unrolledEnd; offset += 8) {
+                int diff = (sourcePixels[offset] ^ targetPixels[offset])
+                        | (sourcePixels[offset + 1] ^ targetPixels[offset + 1])
+                        | (sourcePixels[offset + 2] ^ targetPixels[offset + 2])
+                        | (sourcePixels[offset + 3] ^ targetPixels[offset + 3])
+                        | (sourcePixels[offset + 4] ^ targetPixels[offset + 4])
+                        | (sourcePixels[offset + 5] ^ targetPixels[offset + 5])
+                        | (sourcePixels[offset + 6] ^ targetPixels[offset + 6])
+                        | (sourcePixels[offset + 7] ^ targetPixels[offset + 7]);
+                if (diff != 0) {
+                    return false;
+                }
+            }
+            for (; offset < rowEnd; ++offset) {
+                if (sourcePixels[offset] != targetPixels[offset]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares a block of pixels between the source and target images, and
+     * if they differ, copies the target block's channel bytes.
+     * @param grid The images and block layout.
+     * @param actualBlockWidth The width of the image data in the block.
+     * @param actualBlockHeight The height of the image data in the block.
+     * @param blockColumn The column index of the block to compare.
+     * @param blockRow The row index of the block to compare.
+     * @param channel The channel for which we compare the blocks
+     * @param channelBytes The buffer to which the target block's channel
+     *                     bytes are copied.
+     * @param channelBytesOffset The offset in {@code channelBytes} to copy to.
+     * @return Whether the source and target blocks are identical.
+     */
+    @SuppressWarnings("SpellCheckingInspection")
+    private static boolean compareAndCopyBlockChannelData(BlockGrid grid,
+            int actualBlockWidth, int actualBlockHeight,
+            int blockColumn, int blockRow, int channel,
+            byte[] channelBytes, int channelBytesOffset) {
+
+        byte[] sourcePixels = grid.sourcePixels;
+        byte[] targetPixels = grid.targetPixels;
+        int pixelLength = grid.pixelLength;
+        int blockSize = grid.blockSize;
+        int firstOffset = ((blockSize * blockRow) * grid.stride) +
+                (blockSize * blockColumn * pixelLength) + channel;
+
+        // Comparing the pixels, until the first difference.
+        boolean isIdentical = true;
+        for (int h = 0; h < actualBlockHeight && isIdentical; ++h) {
+            int offset = firstOffset + (h * grid.stride);
             for (int w = 0; w < actualBlockWidth; ++w) {
-                sourceByte = sourcePixels[offset];
-                targetByte = targetPixels[offset];
-                if (sourceByte != targetByte) {
+                if (sourcePixels[offset] != targetPixels[offset]) {
                     isIdentical = false;
+                    break;
                 }
+                offset += pixelLength;
+            }
+        }
 
-                channelBytes[channelBytesOffset++] = targetByte;
+        if (isIdentical) {
+            return true;
+        }
+
+        // Copying the pixels
+        for (int h = 0; h < actualBlockHeight; ++h) {
+            int offset = firstOffset + (h * grid.stride);
+            for (int w = 0; w < actualBlockWidth; ++w) {
+                channelBytes[channelBytesOffset++] = targetPixels[offset];
                 offset += pixelLength;
             }
         }
 
-        return new CompareAndCopyBlockChannelDataResult(isIdentical,
-                channelBytes);
+        return false;
+    }
+
+    /**
+     * Compares all the blocks of a single block row for the given channel.
+     * @param grid The images and block layout.
+     * @param blockRow The row index of the blocks to compare.
+     * @param channel The channel for which we compare the blocks.
+     * @param detectIdenticalBlocks Whether to compare the raw pixels of the
+     *                              blocks first, and record the result.
+     * @param buffer The buffer to write the changed blocks to.
+     */
+    private static void compareBlockRow(BlockGrid grid, int blockRow,
+                                        int channel,
+                                        boolean detectIdenticalBlocks,
+                                        BlockRowBuffer buffer) {
+        int actualBlockHeight = grid.getActualBlockHeight(blockRow);
+        int channelBytesOffset = 0;
+        buffer.changedCount = 0;
+
+        for (int blockColumn = 0; blockColumn < grid.blockColumnsCount;
+                ++blockColumn) {
+            int actualBlockWidth = grid.getActualBlockWidth(blockColumn);
+            int blockNumber = (blockRow * grid.blockColumnsCount) + blockColumn;
+
+            // Most blocks are identical between consecutive screenshots, so
+            // we first check the raw pixels, and skip identical blocks for
+            // all the channels.
+            if (detectIdenticalBlocks) {
+                grid.identicalBlocks[blockNumber] = isIdenticalBlock(grid,
+                        actualBlockWidth, actualBlockHeight, blockColumn,
+                        blockRow);
+            }
+
+            if (grid.identicalBlocks[blockNumber]) {
+                continue;
+            }
+
+            boolean isIdentical = compareAndCopyBlockChannelData(grid,
+                    actualBlockWidth, actualBlockHeight, blockColumn,
+                    blockRow, channel, buffer.channelBytes,
+                    channelBytesOffset);
+
+            if (!isIdentical) {
+                buffer.changedColumns[buffer.changedCount++] = blockColumn;
+                channelBytesOffset += actualBlockWidth * actualBlockHeight;
+            }
+        }
     }
 
     /**
@@ -172,6 +367,47 @@ public class ImageDeltaCompressor {
             return targetEncoded;
         }
 
+        byte[] compressed = compressByRawBlocks(target, source, blockSize,
+                targetEncoded.length);
+
+        // If the number of compressed bytes is greater then the number of
+        // bytes for the uncompressed target, we just return the uncompressed
+        // target.
+        if (compressed == null) {
+            return Arrays.copyOf(targetEncoded, targetEncoded.length);
+        }
+
+        return compressed;
+    }
+
+    /**
+     * Compresses a target image based on a difference from a source image,
+     * without requiring the encoded target. The compression stops as soon as
+     * the compressed bytes count exceeds {@code maxBytesCount}, so the caller
+     * only has to encode the target when the compression didn't pay off.
+     *
+     * @param target The image we want to compress. (type is TYPE_4BYTE_ABGR)
+     * @param source The baseline image by which a compression will be
+     *               performed. (type is TYPE_4BYTE_ABGR)
+     * @param blockSize How many pixels per block.
+     * @param maxBytesCount The maximal number of compressed bytes allowed
+     *                      (e.g., the expected size of the encoded target).
+     * @return The compression result, or {@code null} if there's no source
+     * image, the images are in different sizes, or the compressed bytes count
+     * is greater than {@code maxBytesCount}.
+     * @throws java.io.IOException If there was a problem reading/writing
+     * from/to the streams which are created during the process.
+     */
+    public static byte[] compressByRawBlocks(BufferedImage target,
+            BufferedImage source, int blockSize, long maxBytesCount)
+                throws IOException {
+
+        if (source == null
+                || (source.getWidth() != target.getWidth())
+                || (source.getHeight() != target.getHeight())) {
+            return null;
+        }
+
         // IMPORTANT: Notice that the pixel bytes are (A)BGR!
         byte[] targetPixels =
                 ((DataBufferByte) target.getRaster().getDataBuffer()).getData();
@@ -181,14 +417,8 @@ public class ImageDeltaCompressor {
         // The number of bytes comprising a pixel (depends if there's an
         // Alpha channel).
         int pixelLength = (target.getAlphaRaster() != null) ? 4 : 3;
-        Dimension imageSize = new Dimension(target.getWidth(),
-                                            target.getHeight());
-
-        // Calculating how many block columns and rows we've got.
-        int blockColumnsCount = (target.getWidth() / blockSize)
-                + ((target.getWidth() % blockSize) == 0 ? 0 : 1);
-        int blockRowsCount = (target.getHeight() / blockSize)
-                + ((target.getHeight() % blockSize) == 0 ? 0 : 1);
+        BlockGrid grid = new BlockGrid(sourcePixels, targetPixels,
+                target.getWidth(), target.getHeight(), pixelLength, blockSize);
 
         // We'll use a stream for the compression.
         ByteArrayOutputStream resultStream = new ByteArrayOutputStream();
@@ -198,11 +428,10 @@ public class ImageDeltaCompressor {
         DataOutputStream resultDataOutputStream =
                 new DataOutputStream(resultCountingStream);
         // This will be used for doing actual data compression
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
         DeflaterOutputStream compressed =
-                new DeflaterOutputStream(resultCountingStream,
-                        new Deflater(Deflater.BEST_COMPRESSION,true));
-
-        DataOutputStream compressedDos = new DataOutputStream(compressed);
+                new DeflaterOutputStream(resultCountingStream, deflater,
+                        DEFLATE_BUFFER_SIZE);
 
         // Writing the header
         resultStream.write(PREAMBLE, 0, PREAMBLE.length);
@@ -213,53 +442,119 @@ public class ImageDeltaCompressor {
         // Writing the block size (Big endian)
         resultDataOutputStream.writeShort(blockSize);
 
-        CompareAndCopyBlockChannelDataResult compareResult;
-        for (int channel = 0; channel < 3; ++channel) {
-
-            // The image is RGB, so all that's left is to skip the Alpha
-            // channel if there is one.
-            int actualChannelIndex = (pixelLength == 4) ? channel + 1 : channel;
-
-            int blockNumber = 0;
-            for (int blockRow = 0; blockRow < blockRowsCount; ++blockRow) {
-                for (int blockColumn = 0; blockColumn < blockColumnsCount;
-                        ++blockColumn) {
+        // Block rows are compared in batches on the shared pool. We use two
+        // sets of buffers, so the next batch is compared while the current
+        // one is being written to the (single threaded) deflater. Notice that
+        // a batch is submitted only after the previous one completed, so the
+        // first channel's batches (which detect identical blocks) always
+        // finish before the other channels' batches start.
+        ForkJoinPool pool = ImageProcessingPool.getPool();
+        int batchSize = Math.min(grid.blockRowsCount,
+                pool.getParallelism() * BLOCK_ROWS_PER_WORKER);
+        BlockRowBuffer[][] buffers = new BlockRowBuffer[2][batchSize];
+        for (int i = 0; i < batchSize; ++i) {
+            buffers[0][i] = new BlockRowBuffer(grid);
+            buffers[1][i] = new BlockRowBuffer(grid);
+        }
 
-                    compareResult = CompareAndCopyBlockChannelData
-                            (sourcePixels, targetPixels, imageSize,
-                                    pixelLength, blockSize, blockColumn,
-                                    blockRow, actualChannelIndex);
+        // channel byte + block number (Big endian)
+        byte[] blockHeader = new byte[5];
 
-                    if (!compareResult.getIsIdentical()) {
-                        compressed.write(channel);
-                        compressedDos.writeInt(blockNumber); // Big endian
-                        byte[] channelBytes = compareResult.getBuffer();
-                        compressed.write(channelBytes, 0, channelBytes.length);
+        int batchesPerChannel = (grid.blockRowsCount + batchSize - 1)
+                / batchSize;
+        int batchesCount = 3 * batchesPerChannel;
+        ForkJoinTask<Void> pendingBatch =
+                submitBatch(pool, grid, 0, batchesPerChannel, batchSize,
+                        buffers[0]);
+        try {
+            for (int batch = 0; batch < batchesCount; ++batch) {
+                pendingBatch.join();
+                BlockRowBuffer[] currentBuffers = buffers[batch % 2];
+                if (batch + 1 < batchesCount) {
+                    pendingBatch = submitBatch(pool, grid, batch + 1,
+                            batchesPerChannel, batchSize,
+                            buffers[(batch + 1) % 2]);
+                }
 
-                        // If the number of bytes already written is greater
-                        // then the number of bytes for the uncompressed
-                        // target, we just return the uncompressed target.
+                int channel = batch / batchesPerChannel;
+                int firstBlockRow = (batch % batchesPerChannel) * batchSize;
+                int lastBlockRow = Math.min(firstBlockRow + batchSize,
+                        grid.blockRowsCount);
+
+                for (int blockRow = firstBlockRow; blockRow < lastBlockRow;
+                        ++blockRow) {
+                    BlockRowBuffer buffer =
+                            currentBuffers[blockRow - firstBlockRow];
+                    int actualBlockHeight = grid.getActualBlockHeight(blockRow);
+                    int channelBytesOffset = 0;
+
+                    for (int i = 0; i < buffer.changedCount; ++i) {
+                        int blockColumn = buffer.changedColumns[i];
+                        int blockNumber =
+                                (blockRow * grid.blockColumnsCount)
+                                        + blockColumn;
+                        int channelBytesCount =
+                                grid.getActualBlockWidth(blockColumn)
+                                        * actualBlockHeight;
+
+                        blockHeader[0] = (byte) channel;
+                        blockHeader[1] = (byte) (blockNumber >>> 24);
+                        blockHeader[2] = (byte) (blockNumber >>> 16);
+                        blockHeader[3] = (byte) (blockNumber >>> 8);
+                        blockHeader[4] = (byte) blockNumber;
+                        compressed.write(blockHeader, 0, blockHeader.length);
+                        compressed.write(buffer.channelBytes,
+                                channelBytesOffset, channelBytesCount);
+                        channelBytesOffset += channelBytesCount;
+
+                        // No point in going on if we already exceeded the
+                        // allowed number of bytes.
                         if (resultCountingStream.getBytesCount()
-                            > targetEncoded.length) {
-                            compressedDos.close();
-                            return Arrays.copyOf(targetEncoded,
-                                                    targetEncoded.length);
+                                > maxBytesCount) {
+                            pendingBatch.cancel(false);
+                            compressed.close();
+                            return null;
                         }
                     }
-
-                    ++blockNumber;
                 }
             }
+            compressed.close(); // flushing + closing the compression.
+        } finally {
+            deflater.end();
         }
-        compressedDos.close(); // flushing + closing the compression.
 
-        if (resultCountingStream.getBytesCount() > targetEncoded.length) {
-            return targetEncoded;
+        if (resultCountingStream.getBytesCount() > maxBytesCount) {
+            return null;
         }
 
         return resultStream.toByteArray();
     }
 
+    /**
+     * Submits the comparison of a batch of block rows to the pool.
+     * @param pool The pool to run the comparison on.
+     * @param grid The images and block layout.
+     * @param batch The index of the batch, counting across all channels.
+     * @param batchesPerChannel The number of batches for each channel.
+     * @param batchSize The (maximal) number of block rows in a batch.
+     * @param buffers The buffers to write the comparison results to.
+     * @return The submitted task.
+     */
+    private static ForkJoinTask<Void> submitBatch(ForkJoinPool pool,
+            BlockGrid grid, int batch, int batchesPerChannel, int batchSize,
+            BlockRowBuffer[] buffers) {
+        int channel = batch / batchesPerChannel;
+        // The image is RGB, so all that's left is to skip the Alpha
+        // channel if there is one.
+        int actualChannelIndex = (grid.pixelLength == 4) ? channel + 1 : channel;
+        int firstBlockRow = (batch % batchesPerChannel) * batchSize;
+        int lastBlockRow = Math.min(firstBlockRow + batchSize,
+                grid.blockRowsCount);
+
+        return pool.submit(new CompareBlockRowsTask(grid, actualChannelIndex,
+                channel == 0, firstBlockRow, lastBlockRow, buffers, 0));
+    }
+
     /**
      * Compresses a target image based on a difference from a source image.
      * {@code blockSize} defaults to 10.
@@ -276,4 +571,21 @@ public class ImageDeltaCompressor {
             byte[] targetEncoded, BufferedImage source) throws IOException {
         return compressByRawBlocks(target, targetEncoded, source, 10);
     }
+
+    /**
+     * Compresses a target image based on a difference from a source image.
+     * {@code blockSize} defaults to 10.
+     * @param target The image we want to compress.
+     * @param source The baseline image by which a compression will be
+     *               performed.
+     * @param maxBytesCount The maximal number of compressed bytes allowed.
+     * @return The compression result, or {@code null} if the compression
+     * isn't possible or exceeds {@code maxBytesCount}.
+     * @throws java.io.IOException If there was a problem reading/writing
+     * from/to the streams which are created during the process.
+     */
+    public static byte[] compressByRawBlocks(BufferedImage target,
+            BufferedImage source, long maxBytesCount) throws IOException {
+        return compressByRawBlocks(target, source, 10, maxBytesCount);
+    }
 }
@@ -0,0 +1,91 @@
+package com.applitools.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A process wide fork-join pool used for CPU bound image processing (e.g.,
+ * compression). Sharing a single pool makes sure that several {@code Eyes}
+ * instances running in parallel don't each create their own set of threads.
+ */
+public class ImageProcessingPool {
+
+    private static ForkJoinPool pool;
+    private static int parallelism =
+            Runtime.getRuntime().availableProcessors();
+
+    private ImageProcessingPool() {}
+
+    /**
+     * @return The shared pool. Created on first use.
+     */
+    public static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * Schedules a task on the shared pool. When called from one of the pool's
+     * threads (e.g., by a task which is itself processing an image), the
+     * task is forked instead, so the calling thread can run it while joining
+     * rather than blocking until another thread is free.
+     *
+     * @param task The task to schedule.
+     * @param <T>  The task's result type.
+     * @return The scheduled task.
+     */
+    public static <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+        ForkJoinPool pool = getPool();
+        if (ForkJoinTask.getPool() == pool) {
+            return task.fork();
+        }
+        return pool.submit(task);
+    }
+
+    /**
+     * Runs a task on the shared pool and waits for its result. When called
+     * from one of the pool's threads, the task is run by the calling thread
+     * (and its subtasks are forked to the pool).
+     *
+     * @param task The task to run.
+     * @param <T>  The task's result type.
+     * @return The task's result.
+     */
+    public static <T> T invoke(ForkJoinTask<T> task) {
+        ForkJoinPool pool = getPool();
+        if (ForkJoinTask.getPool() == pool) {
+            return task.invoke();
+        }
+        return pool.invoke(task);
+    }
+
+    /**
+     * Sets the number of threads used for image processing. Work which
+     * already uses the current pool is not affected, and the new parallelism
+     * applies to work scheduled from now on.
+     *
+     * @param parallelism The number of worker threads. Must be at least 1.
+     */
+    public static synchronized void setParallelism(int parallelism) {
+        ArgumentGuard.greaterThanZero(parallelism, "parallelism");
+
+        if (ImageProcessingPool.parallelism == parallelism) {
+            return;
+        }
+
+        ImageProcessingPool.parallelism = parallelism;
+        // The current pool isn't shut down, since other threads might still
+        // be submitting to it or waiting on its tasks. Its (daemon) threads
+        // terminate once they are idle.
+        pool = null;
+    }
+
+    /**
+     * @return The number of threads used for image processing.
+     */
+    public static synchronized int getParallelism() {
+        return parallelism;
+    }
+}
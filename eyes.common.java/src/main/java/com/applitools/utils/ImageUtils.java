@@ -12,13 +12,16 @@ import org.imgscalr.Scalr;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBuffer;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBufferByte;
 import java.awt.image.Raster;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
 import java.nio.charset.Charset;
 
 public class ImageUtils {
@@ -28,12 +31,41 @@ public class ImageUtils {
 
     public static BufferedImage normalizeImageType(BufferedImage image) {
         if (image.getType() == REQUIRED_IMAGE_TYPE) {
-            return image;
+            // Image parts which share their parent's buffer are copied, since
+            // their data buffer doesn't start at their top left pixel.
+            if (isPacked(image)) {
+                return image;
+            }
+            return copyImagePart(image, 0, 0, image.getWidth(),
+                    image.getHeight());
         }
 
         return ImageUtils.copyImageWithType(image, REQUIRED_IMAGE_TYPE);
     }
 
+    private static volatile PngEncoder pngEncoder = new PngEncoder();
+
+    private static final ThreadLocal<SoftReference<BicubicScaler>>
+            bicubicScalers = new ThreadLocal<>();
+
+    /**
+     * @return The encoder used for encoding images as PNG.
+     */
+    public static PngEncoder getPngEncoder() {
+        return pngEncoder;
+    }
+
+    /**
+     * Sets the encoder used for encoding images as PNG (e.g., in order to
+     * trade compression ratio for speed).
+     *
+     * @param encoder The encoder to use.
+     */
+    public static void setPngEncoder(PngEncoder encoder) {
+        ArgumentGuard.notNull(encoder, "encoder");
+        pngEncoder = encoder;
+    }
+
     /**
      * Encodes a given image as PNG.
      *
@@ -41,28 +73,7 @@ public class ImageUtils {
      * @return The PNG bytes representation of the image.
      */
     public static byte[] encodeAsPng(BufferedImage image) {
-
-        ArgumentGuard.notNull(image, "image");
-
-        byte[] encodedImage; // PNG representation.
-        ByteArrayOutputStream pngBytesStream = new ByteArrayOutputStream();
-
-        try {
-            // Get the clipped image in PNG encoding.
-            ImageIO.write(image, "png", pngBytesStream);
-            pngBytesStream.flush();
-            encodedImage = pngBytesStream.toByteArray();
-        } catch (IOException e) {
-            throw new EyesException("Failed to encode image", e);
-        } finally {
-            try{
-                pngBytesStream.close();
-            } catch (IOException e) {
-                //noinspection ThrowFromFinallyBlock
-                throw new EyesException("Failed to close png byte stream", e);
-            }
-        }
-        return encodedImage;
+        return pngEncoder.encode(image);
     }
 
     /**
@@ -145,7 +156,9 @@ public class ImageUtils {
     }
 
     /**
-     * Creates a BufferedImage instance from raw image bytes.
+     * Creates a BufferedImage instance from raw image bytes. RGB(A) PNG
+     * images (e.g., browser screenshots) are decoded directly into a
+     * {@link #REQUIRED_IMAGE_TYPE} image.
      *
      * @param imageBytes The raw bytes of the image.
      * @return A BufferedImage instance representing the image.
@@ -154,6 +167,12 @@ public class ImageUtils {
      */
     public static BufferedImage imageFromBytes(byte[] imageBytes) throws
             EyesException {
+        ArgumentGuard.notNull(imageBytes, "imageBytes");
+
+        if (PngDecoder.isSupported(imageBytes)) {
+            return PngDecoder.decode(imageBytes);
+        }
+
         BufferedImage image;
         try {
             ByteArrayInputStream screenshotStream =
@@ -177,17 +196,105 @@ public class ImageUtils {
      */
     public static BufferedImage getImagePart(BufferedImage image,
                                              Region region) {
+        return getImagePart(image, region, false);
+    }
+
+    /**
+     * Get a copy of the part of the image given by region.
+     *
+     * @param image The image from which to get the part.
+     * @param region The region which should be copied from the image.
+     * @param shareBuffer If {@code true}, the returned part is a view which
+     *                    shares the pixels of {@code image} instead of a
+     *                    copy. Only use it when the part is read through its
+     *                    {@link Raster} (e.g., when it is stitched into
+     *                    another image) and {@code image} is not modified in
+     *                    the meantime.
+     * @return The part of the image.
+     */
+    public static BufferedImage getImagePart(BufferedImage image,
+                                             Region region,
+                                             boolean shareBuffer) {
         ArgumentGuard.notNull(image, "image");
+        ArgumentGuard.notNull(region, "region");
+
+        image = normalizeImageType(image);
+
+        if (shareBuffer) {
+            return image.getSubimage(region.getLeft(), region.getTop(),
+                    region.getWidth(), region.getHeight());
+        }
+
+        return copyImagePart(image, region.getLeft(), region.getTop(),
+                region.getWidth(), region.getHeight());
+    }
+
+    /**
+     * @return Whether the image's data buffer holds exactly the image's
+     * pixels, row after row (i.e., the image isn't a view into a larger
+     * image).
+     */
+    private static boolean isPacked(BufferedImage image) {
+        Raster raster = image.getRaster();
+        if (raster.getSampleModelTranslateX() != 0
+                || raster.getSampleModelTranslateY() != 0
+                || raster.getDataBuffer().getOffset() != 0
+                || !(raster.getSampleModel() instanceof ComponentSampleModel)) {
+            return false;
+        }
+
+        ComponentSampleModel sampleModel =
+                (ComponentSampleModel) raster.getSampleModel();
+        return sampleModel.getScanlineStride()
+                == image.getWidth() * sampleModel.getPixelStride();
+    }
+
+    /**
+     * Copies the rows of the given area of an ABGR image into a new image.
+     */
+    private static BufferedImage copyImagePart(BufferedImage image, int left,
+                                               int top, int width,
+                                               int height) {
+        Raster raster = image.getRaster();
+        if (left < 0 || top < 0 || width <= 0 || height <= 0
+                || left + width > raster.getWidth()
+                || top + height > raster.getHeight()) {
+            throw new EyesException(String.format(
+                    "Region (%d, %d) %dx%d is out of the image bounds %dx%d",
+                    left, top, width, height, raster.getWidth(),
+                    raster.getHeight()));
+        }
+
+        ComponentSampleModel sampleModel =
+                (ComponentSampleModel) raster.getSampleModel();
+        int pixelStride = sampleModel.getPixelStride();
+        int scanlineStride = sampleModel.getScanlineStride();
+        byte[] pixels = ((DataBufferByte) raster.getDataBuffer()).getData();
+
+        // In ABGR the alpha band is the first byte of each pixel.
+        int firstPixelOffset = raster.getDataBuffer().getOffset()
+                + sampleModel.getOffset(
+                left - raster.getSampleModelTranslateX(),
+                top - raster.getSampleModelTranslateY(), 3);
+
+        BufferedImage imagePart =
+                new BufferedImage(width, height, REQUIRED_IMAGE_TYPE);
+        byte[] partPixels = ((DataBufferByte) imagePart.getRaster()
+                .getDataBuffer()).getData();
+        int partRowLength = width * pixelStride;
+
+        if (partRowLength == scanlineStride) {
+            // Whole rows, so it's a single contiguous block.
+            System.arraycopy(pixels, firstPixelOffset, partPixels, 0,
+                    partPixels.length);
+        } else {
+            for (int y = 0; y < height; ++y) {
+                System.arraycopy(pixels, firstPixelOffset + y * scanlineStride,
+                        partPixels, y * partRowLength, partRowLength);
+            }
+        }
 
-        // Get the clipped region as a BufferedImage.
-        BufferedImage imagePart = image.getSubimage(
-                region.getLeft(), region.getTop(), region.getWidth(),
-                region.getHeight());
-        // IMPORTANT We copy the image this way because just using getSubImage
-        // created a later problem (maybe an actual Java bug): the pixels
-        // weren't what they were supposed to be.
-        byte[] imagePartBytes = encodeAsPng(imagePart);
-        return imageFromBytes(imagePartBytes);
+        return imagePart;
     }
 
     /**
@@ -330,111 +437,24 @@ public class ImageUtils {
         return normalizeImageType(resizedImage);
     }
 
-    private static int interpolateCubic(int x0, int x1, int x2, int x3, double t) {
-        int a0 = x3 - x2 - x0 + x1;
-        int a1 = x0 - x1 - a0;
-        int a2 = x2 - x0;
-        return (int) Math.max(0, Math.min(255, (a0 * (t * t * t)) + (a1 * (t * t)) + (a2 * t) + (x1)));
-    }
-
     private static BufferedImage scaleImageBicubic(BufferedImage srcImage, int targetWidth, int targetHeight) {
+        return getBicubicScaler().scale(srcImage, targetWidth, targetHeight);
+    }
 
-        normalizeImageType(srcImage);
-
-        DataBuffer bufSrc = srcImage.getRaster().getDataBuffer();
-        DataBuffer bufDst = new DataBufferByte(targetWidth * targetHeight * 4);
-
-        int wSrc = srcImage.getWidth();
-        int hSrc = srcImage.getHeight();
-
-        // when dst smaller than src/2, interpolate first to a multiple between 0.5 and 1.0 src, then sum squares
-        int wM = (int) Math.max(1, Math.floor(wSrc / targetWidth));
-        int wDst2 = targetWidth * wM;
-        int hM = (int) Math.max(1, Math.floor(hSrc / targetHeight));
-        int hDst2 = targetHeight * hM;
-
-        int i, j, k, xPos, yPos, kPos, buf1Pos, buf2Pos;
-        double x, y, t;
-
-        // Pass 1 - interpolate rows
-        // buf1 has width of dst2 and height of src
-        DataBuffer buf1 = new DataBufferByte(wDst2 * hSrc * 4);
-        for (i = 0; i < hSrc; i++) {
-            for (j = 0; j < wDst2; j++) {
-                x = (double) j * (wSrc - 1) / wDst2;
-                xPos = (int) Math.floor(x);
-                t = x - xPos;
-                int srcPos = (i * wSrc + xPos) * 4;
-
-                buf1Pos = (i * wDst2 + j) * 4;
-                for (k = 0; k < 4; k++) {
-                    kPos = srcPos + k;
-                    int x0 = (xPos > 0) ? bufSrc.getElem(kPos - 4) : 2 * bufSrc.getElem(kPos) - bufSrc.getElem(kPos + 4);
-                    int x1 = bufSrc.getElem(kPos);
-                    int x2 = bufSrc.getElem(kPos + 4);
-                    int x3 = (xPos < wSrc - 2) ? bufSrc.getElem(kPos + 8) : 2 * bufSrc.getElem(kPos + 4) - bufSrc.getElem(kPos);
-                    buf1.setElem(buf1Pos + k, interpolateCubic(x0, x1, x2, x3, t));
-                }
-            }
-        }
-
-        // Pass 2 - interpolate columns
-        // buf2 has width and height of dst2
-        DataBuffer buf2 = new DataBufferByte(wDst2 * hDst2 * 4);
-        for (i = 0; i < hDst2; i++) {
-            for (j = 0; j < wDst2; j++) {
-                y = (double) i * (hSrc - 1) / hDst2;
-                yPos = (int) Math.floor(y);
-                t = y - yPos;
-                buf1Pos = (yPos * wDst2 + j) * 4;
-                buf2Pos = (i * wDst2 + j) * 4;
-                for (k = 0; k < 4; k++) {
-                    kPos = buf1Pos + k;
-                    int y0 = (yPos > 0) ? buf1.getElem(kPos - wDst2 * 4) : 2 * buf1.getElem(kPos) - buf1.getElem(kPos + wDst2 * 4);
-                    int y1 = buf1.getElem(kPos);
-                    int y2 = buf1.getElem(kPos + wDst2 * 4);
-                    int y3 = (yPos < hSrc - 2) ? buf1.getElem(kPos + wDst2 * 8) : 2 * buf1.getElem(kPos + wDst2 * 4) - buf1.getElem(kPos);
-                    //noinspection SuspiciousNameCombination
-                    buf2.setElem(buf2Pos + k, interpolateCubic(y0, y1, y2, y3, t));
-                }
-            }
-        }
-
-        // Pass 3 - scale to dst
-        int m = wM * hM;
-        if (m > 1) {
-            for (i = 0; i < targetHeight; i++) {
-                for (j = 0; j < targetWidth; j++) {
-                    int r = 0;
-                    int g = 0;
-                    int b = 0;
-                    int a = 0;
-                    for (y = 0; y < hM; y++) {
-                        yPos = (int) (i * hM + y);
-                        for (x = 0; x < wM; x++) {
-                            xPos = (int) (j * wM + x);
-                            int xyPos = (yPos * wDst2 + xPos) * 4;
-                            r += buf2.getElem(xyPos);
-                            g += buf2.getElem(xyPos + 1);
-                            b += buf2.getElem(xyPos + 2);
-                            a += buf2.getElem(xyPos + 3);
-                        }
-                    }
-
-                    int pos = (i * targetWidth + j) * 4;
-                    bufDst.setElem(pos, Math.round(r / m));
-                    bufDst.setElem(pos + 1, Math.round(g / m));
-                    bufDst.setElem(pos + 2, Math.round(b / m));
-                    bufDst.setElem(pos + 3, Math.round(a / m));
-                }
-            }
-        } else {
-            bufDst = buf2;
+    /**
+     * @return The current thread's scaler. Scalers keep their intermediate
+     * buffers between calls, so these are softly referenced in order to let
+     * them go under memory pressure.
+     */
+    private static BicubicScaler getBicubicScaler() {
+        SoftReference<BicubicScaler> scalerReference = bicubicScalers.get();
+        BicubicScaler scaler =
+                scalerReference != null ? scalerReference.get() : null;
+        if (scaler == null) {
+            scaler = new BicubicScaler();
+            bicubicScalers.set(new SoftReference<>(scaler));
         }
-
-        BufferedImage dstImage = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_4BYTE_ABGR);
-        dstImage.setData(Raster.createRaster(dstImage.getSampleModel(), bufDst, null));
-        return dstImage;
+        return scaler;
     }
 
     private static BufferedImage scaleImageIncrementally(BufferedImage src, int targetWidth, int targetHeight) {
@@ -517,11 +537,34 @@ public class ImageUtils {
      * @param filename The path to save image
      */
     public static void saveImage(BufferedImage image, String filename) {
+        saveImage(image, filename, pngEncoder);
+    }
+
+    /**
+     * Saves an image as a PNG file.
+     *
+     * @param image    The image to save.
+     * @param filename The path of the file to write.
+     * @param encoder  The encoder to use.
+     */
+    public static void saveImage(BufferedImage image, String filename,
+                                 PngEncoder encoder) {
+        ArgumentGuard.notNull(encoder, "encoder");
+        OutputStream output = null;
         try {
-            File file = new File(filename);
-            ImageIO.write(image, "png", file);
+            output = new BufferedOutputStream(new FileOutputStream(filename));
+            encoder.encode(image, output);
         } catch (IOException e) {
             throw new EyesException("Failed to save image", e);
+        } finally {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    //noinspection ThrowFromFinallyBlock
+                    throw new EyesException("Failed to close image file", e);
+                }
+            }
         }
     }
 }
@@ -1,6 +1,7 @@
 package com.applitools.utils;
 
 import java.net.*;
+import java.text.ParseException;
 import java.util.Enumeration;
 
 /**
@@ -73,4 +74,52 @@ public class NetworkUtils {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * @param e The failure of a request (possibly wrapping the actual
+     *          network error).
+     * @return Whether the request failed because a connection to the server
+     * couldn't be established, meaning the request surely wasn't sent.
+     * Failures after the connection was established (e.g., read timeouts)
+     * return {@code false}, since the server might have handled the request.
+     */
+    public static boolean isConnectFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException
+                    || cause instanceof NoRouteToHostException
+                    || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param retryAfter The value of a "Retry-After" header: either a number
+     *                   of seconds or an RFC 1123 date. Can be {@code null}.
+     * @param now        The current time (milliseconds since the epoch).
+     * @return The time to wait before retrying (milliseconds), or -1 if
+     * {@code retryAfter} is missing or invalid.
+     */
+    public static long getRetryAfterDelay(String retryAfter, long now) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return -1;
+        }
+
+        String value = retryAfter.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds >= 0 ? seconds * 1000 : -1;
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, so it should be a date.
+        }
+
+        try {
+            long retryTime =
+                    GeneralUtils.fromRfc1123(value).getTimeInMillis();
+            return Math.max(0, retryTime - now);
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
 }
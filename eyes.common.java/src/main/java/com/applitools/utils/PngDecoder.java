@@ -0,0 +1,249 @@
+package com.applitools.utils;
+
+import com.applitools.eyes.EyesException;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A PNG decoder for 8 bit, non-interlaced RGB and RGBA images (which is what
+ * browsers return as screenshots). The pixels are decoded directly into the
+ * data buffer of a {@link BufferedImage#TYPE_4BYTE_ABGR} image, so no
+ * intermediate image or type conversion is required.
+ *
+ * Other PNG formats are not supported, see {@link #isSupported(byte[])}.
+ */
+public class PngDecoder {
+
+    private static final byte[] SIGNATURE =
+            {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    private static final int IHDR = 0x49484452;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454E44;
+
+    private static final int BIT_DEPTH = 8;
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    // Signature + IHDR chunk length, type and data.
+    private static final int HEADER_LENGTH = SIGNATURE.length + 8 + 13;
+    // Chunk length, type and CRC.
+    private static final int CHUNK_OVERHEAD = 12;
+
+    private PngDecoder() {}
+
+    /**
+     * @param pngBytes The encoded image.
+     * @return Whether the given bytes are a PNG image which can be decoded by
+     * {@link #decode(byte[])}.
+     */
+    public static boolean isSupported(byte[] pngBytes) {
+        ArgumentGuard.notNull(pngBytes, "pngBytes");
+
+        if (pngBytes.length < HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < SIGNATURE.length; ++i) {
+            if (pngBytes[i] != SIGNATURE[i]) {
+                return false;
+            }
+        }
+        if (readInt(pngBytes, 12) != IHDR) {
+            return false;
+        }
+        int bitDepth = pngBytes[24];
+        int colorType = pngBytes[25];
+        int interlaceMethod = pngBytes[28];
+        return bitDepth == BIT_DEPTH
+                && (colorType == COLOR_TYPE_RGB
+                    || colorType == COLOR_TYPE_RGBA)
+                && interlaceMethod == 0;
+    }
+
+    /**
+     * Decodes a PNG image.
+     *
+     * @param pngBytes The encoded image. Must be supported (see
+     *                 {@link #isSupported(byte[])}).
+     * @return A {@link BufferedImage#TYPE_4BYTE_ABGR} image.
+     * @throws EyesException If the image could not be decoded.
+     */
+    public static BufferedImage decode(byte[] pngBytes) throws EyesException {
+        ArgumentGuard.notNull(pngBytes, "pngBytes");
+        if (!isSupported(pngBytes)) {
+            throw new EyesException("Unsupported PNG format!");
+        }
+
+        int width = readInt(pngBytes, 16);
+        int height = readInt(pngBytes, 20);
+        if (width <= 0 || height <= 0) {
+            throw new EyesException(String.format(
+                    "Invalid PNG image size: %dx%d", width, height));
+        }
+        int pixelLength = pngBytes[25] == COLOR_TYPE_RGBA ? 4 : 3;
+
+        BufferedImage image = new BufferedImage(width, height,
+                BufferedImage.TYPE_4BYTE_ABGR);
+        byte[] pixels =
+                ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+        // The filter type byte followed by the filtered row.
+        byte[] filteredRow = new byte[(width * pixelLength) + 1];
+        byte[] currentRow = new byte[width * pixelLength];
+        byte[] previousRow = new byte[width * pixelLength];
+
+        Inflater inflater = new Inflater();
+        try {
+            IdatReader reader = new IdatReader(pngBytes, inflater);
+            for (int row = 0; row < height; ++row) {
+                reader.read(filteredRow);
+                unfilter(filteredRow, currentRow, previousRow, pixelLength);
+                toAbgr(currentRow, pixels, row * width * 4, pixelLength);
+
+                byte[] temp = previousRow;
+                previousRow = currentRow;
+                currentRow = temp;
+            }
+        } catch (DataFormatException e) {
+            throw new EyesException("Failed to decode PNG image!", e);
+        } finally {
+            inflater.end();
+        }
+
+        return image;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24)
+                | ((bytes[offset + 1] & 0xff) << 16)
+                | ((bytes[offset + 2] & 0xff) << 8)
+                | (bytes[offset + 3] & 0xff);
+    }
+
+    /**
+     * Reverses the filter of a single row.
+     *
+     * @param filtered    The filter type byte followed by the filtered row.
+     * @param current     The buffer to write the reconstructed row to.
+     * @param previous    The previous reconstructed row (all zeros for the
+     *                    first row).
+     * @param pixelLength The number of bytes per pixel.
+     */
+    private static void unfilter(byte[] filtered, byte[] current,
+                                 byte[] previous, int pixelLength) {
+        int length = current.length;
+        switch (filtered[0]) {
+            case 0:
+                System.arraycopy(filtered, 1, current, 0, length);
+                break;
+            case 1:
+                for (int i = 0; i < length; ++i) {
+                    int left = i >= pixelLength ? current[i - pixelLength] : 0;
+                    current[i] = (byte) (filtered[i + 1] + left);
+                }
+                break;
+            case 2:
+                for (int i = 0; i < length; ++i) {
+                    current[i] = (byte) (filtered[i + 1] + previous[i]);
+                }
+                break;
+            case 3:
+                for (int i = 0; i < length; ++i) {
+                    int left = i >= pixelLength ?
+                            current[i - pixelLength] & 0xff : 0;
+                    int up = previous[i] & 0xff;
+                    current[i] = (byte) (filtered[i + 1] + ((left + up) >>> 1));
+                }
+                break;
+            case 4:
+                for (int i = 0; i < length; ++i) {
+                    int left = 0;
+                    int upperLeft = 0;
+                    if (i >= pixelLength) {
+                        left = current[i - pixelLength] & 0xff;
+                        upperLeft = previous[i - pixelLength] & 0xff;
+                    }
+                    int up = previous[i] & 0xff;
+                    current[i] = (byte) (filtered[i + 1]
+                            + PngEncoder.paethPredictor(left, up, upperLeft));
+                }
+                break;
+            default:
+                throw new EyesException(
+                        "Invalid PNG filter type: " + filtered[0]);
+        }
+    }
+
+    private static void toAbgr(byte[] row, byte[] abgr, int offset,
+                               int pixelLength) {
+        for (int i = 0, j = offset; i < row.length; i += pixelLength, j += 4) {
+            abgr[j] = pixelLength == 4 ? row[i + 3] : (byte) 0xff; // A
+            abgr[j + 1] = row[i + 2];                              // B
+            abgr[j + 2] = row[i + 1];                              // G
+            abgr[j + 3] = row[i];                                  // R
+        }
+    }
+
+    /**
+     * Inflates the data of the IDAT chunks, which together form a single
+     * zlib stream.
+     */
+    private static class IdatReader {
+        private final byte[] pngBytes;
+        private final Inflater inflater;
+        // The position of the next chunk to read.
+        private int position;
+
+        public IdatReader(byte[] pngBytes, Inflater inflater) {
+            this.pngBytes = pngBytes;
+            this.inflater = inflater;
+            this.position = HEADER_LENGTH + 4; // Skip the IHDR CRC.
+        }
+
+        /**
+         * Fills the given buffer with inflated bytes.
+         */
+        public void read(byte[] buffer) throws DataFormatException {
+            int offset = 0;
+            while (offset < buffer.length) {
+                int inflated = inflater.inflate(buffer, offset,
+                        buffer.length - offset);
+                offset += inflated;
+                if (inflated == 0) {
+                    if (inflater.finished() || inflater.needsDictionary()) {
+                        throw new EyesException("Truncated PNG image data!");
+                    }
+                    if (inflater.needsInput()) {
+                        nextIdat();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Sets the data of the next IDAT chunk as the inflater's input.
+         */
+        private void nextIdat() {
+            while (position + CHUNK_OVERHEAD <= pngBytes.length) {
+                int length = readInt(pngBytes, position);
+                int type = readInt(pngBytes, position + 4);
+                int dataOffset = position + 8;
+                if (length < 0 || dataOffset + length > pngBytes.length) {
+                    break;
+                }
+                position = dataOffset + length + 4;
+                if (type == IDAT) {
+                    inflater.setInput(pngBytes, dataOffset, length);
+                    return;
+                }
+                if (type == IEND) {
+                    break;
+                }
+                // Ancillary chunks are ignored.
+            }
+            throw new EyesException("Truncated PNG image data!");
+        }
+    }
+}
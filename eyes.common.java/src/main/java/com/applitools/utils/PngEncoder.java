@@ -0,0 +1,623 @@
+package com.applitools.utils;
+
+import com.applitools.eyes.EyesException;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A PNG encoder for {@link BufferedImage#TYPE_4BYTE_ABGR} images, which reads
+ * the pixels directly from the image's data buffer.
+ *
+ * The image rows are split into chunks which are filtered and deflated in
+ * parallel on the {@link ImageProcessingPool}. Each chunk is deflated
+ * with the end of the previous chunk as its dictionary, and the compressed
+ * chunks are concatenated into a single zlib stream (the same way pigz does).
+ */
+public class PngEncoder {
+
+    /**
+     * The PNG row filter to apply before deflating.
+     */
+    public enum FilterStrategy {
+        NONE,
+        SUB,
+        UP,
+        AVERAGE,
+        PAETH,
+        /**
+         * Chooses the filter with the minimal sum of absolute differences
+         * for each row.
+         */
+        ADAPTIVE
+    }
+
+    private static final byte[] SIGNATURE =
+            {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+
+    private static final int BYTES_PER_PIXEL = 4; // RGBA
+    private static final int BIT_DEPTH = 8;
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    private static final int FILTER_TYPES_COUNT = 5;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int DEFAULT_CHUNK_SIZE = 256 * 1024; // Raw bytes
+    private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+    private static final int ADLER_BASE = 65521;
+
+    private final int compressionLevel;
+    private final FilterStrategy filterStrategy;
+    private final int chunkSize;
+
+    /**
+     * @param compressionLevel The deflate level (0-9), or
+     *                         {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param filterStrategy   The row filter to use.
+     * @param chunkSize        The (approximate) number of raw bytes in each
+     *                         chunk which is deflated separately. Smaller
+     *                         chunks mean more parallelism but a slightly
+     *                         worse compression.
+     */
+    public PngEncoder(int compressionLevel, FilterStrategy filterStrategy,
+                      int chunkSize) {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION
+                && (compressionLevel < Deflater.NO_COMPRESSION
+                || compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException(
+                    "compressionLevel must be between 0 and 9");
+        }
+        ArgumentGuard.notNull(filterStrategy, "filterStrategy");
+        ArgumentGuard.greaterThanZero(chunkSize, "chunkSize");
+
+        this.compressionLevel = compressionLevel;
+        this.filterStrategy = filterStrategy;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * See {@link #PngEncoder(int, FilterStrategy, int)}.
+     * {@code chunkSize} defaults to 256KB.
+     */
+    public PngEncoder(int compressionLevel, FilterStrategy filterStrategy) {
+        this(compressionLevel, filterStrategy, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates an encoder which uses the default deflate level and adaptive
+     * filtering.
+     */
+    public PngEncoder() {
+        this(Deflater.DEFAULT_COMPRESSION, FilterStrategy.ADAPTIVE);
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public FilterStrategy getFilterStrategy() {
+        return filterStrategy;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Encodes a given image as PNG.
+     *
+     * @param image The image to encode.
+     * @return The PNG bytes representation of the image.
+     */
+    public byte[] encode(BufferedImage image) {
+        ArgumentGuard.notNull(image, "image");
+
+        // The encoded image is usually much smaller than the raw pixels.
+        ByteArrayOutputStream pngBytesStream = new ByteArrayOutputStream(
+                Math.max(1024, image.getWidth() * image.getHeight() / 2));
+        try {
+            encode(image, pngBytesStream);
+        } catch (IOException e) {
+            throw new EyesException("Failed to encode image", e);
+        }
+        return pngBytesStream.toByteArray();
+    }
+
+    /**
+     * Encodes a given image as PNG into a stream.
+     *
+     * @param image  The image to encode.
+     * @param output The stream to write the PNG bytes to. Not closed.
+     * @throws IOException If there was a problem writing to the stream.
+     */
+    public void encode(BufferedImage image, OutputStream output)
+            throws IOException {
+        ArgumentGuard.notNull(image, "image");
+        ArgumentGuard.notNull(output, "output");
+
+        image = ImageUtils.normalizeImageType(image);
+
+        // IMPORTANT: Notice that the pixel bytes are ABGR!
+        byte[] pixels =
+                ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        DataOutputStream dos = new DataOutputStream(output);
+        dos.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerDos = new DataOutputStream(header);
+        headerDos.writeInt(width);
+        headerDos.writeInt(height);
+        headerDos.writeByte(BIT_DEPTH);
+        headerDos.writeByte(COLOR_TYPE_RGBA);
+        headerDos.writeByte(0); // Compression method: deflate.
+        headerDos.writeByte(0); // Filter method: adaptive.
+        headerDos.writeByte(0); // No interlace.
+        headerDos.flush();
+        byte[] headerBytes = header.toByteArray();
+        writeChunk(dos, IHDR, headerBytes, 0, headerBytes.length);
+
+        // Zlib header, deflate with a 32K window.
+        byte[] zlibHeader = {0x78, getZlibLevelFlags()};
+        writeChunk(dos, IDAT, zlibHeader, 0, zlibHeader.length);
+
+        int filteredRowLength = (width * BYTES_PER_PIXEL) + 1;
+        int rowsPerChunk = Math.max(1, chunkSize / filteredRowLength);
+        // The number of rows which are (at least) a full dictionary.
+        int dictionaryRowsCount = (DICTIONARY_SIZE + filteredRowLength - 1)
+                / filteredRowLength;
+
+        // The tails (i.e., the last rows of each chunk but the last) are
+        // scheduled first, since the chunks wait on them.
+        List<ForkJoinTask<byte[]>> tails = new ArrayList<>();
+        for (int firstRow = 0; firstRow + rowsPerChunk < height;
+             firstRow += rowsPerChunk) {
+            int lastRow = firstRow + rowsPerChunk;
+            tails.add(ImageProcessingPool.submit(ForkJoinTask.adapt(
+                    new FilterTailTask(pixels, width, Math.max(firstRow,
+                            lastRow - dictionaryRowsCount), lastRow))));
+        }
+
+        List<ForkJoinTask<DeflatedChunk>> chunks = new ArrayList<>();
+        for (int firstRow = 0, i = 0; firstRow < height;
+             firstRow += rowsPerChunk, ++i) {
+            int lastRow = Math.min(firstRow + rowsPerChunk, height);
+            boolean isLastChunk = lastRow == height;
+            chunks.add(ImageProcessingPool.submit(ForkJoinTask.adapt(
+                    new DeflateChunkTask(pixels, width, firstRow, lastRow,
+                            i > 0 ? tails.get(i - 1) : null,
+                            isLastChunk ? null : tails.get(i),
+                            isLastChunk ? lastRow : Math.max(firstRow,
+                                    lastRow - dictionaryRowsCount)))));
+        }
+
+        // Writing the chunks in order, while combining their checksums.
+        long adler = 1;
+        try {
+            for (int i = 0; i < chunks.size(); ++i) {
+                DeflatedChunk chunk = chunks.get(i).get();
+                adler = combineAdler32(adler, chunk.adler, chunk.rawLength);
+                writeChunk(dos, IDAT, chunk.data, 0, chunk.data.length);
+
+                // The written chunk and the tail before it are no longer
+                // needed, so they can be collected.
+                chunks.set(i, null);
+                if (i > 0) {
+                    tails.set(i - 1, null);
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new EyesException("PNG encoding interrupted!", e);
+        } catch (ExecutionException e) {
+            throw new EyesException("Failed to encode image", e.getCause());
+        } finally {
+            for (ForkJoinTask<DeflatedChunk> chunkFuture : chunks) {
+                if (chunkFuture != null) {
+                    chunkFuture.cancel(false);
+                }
+            }
+            for (ForkJoinTask<byte[]> tailFuture : tails) {
+                if (tailFuture != null) {
+                    tailFuture.cancel(false);
+                }
+            }
+        }
+
+        byte[] adlerBytes = {(byte) (adler >>> 24), (byte) (adler >>> 16),
+                (byte) (adler >>> 8), (byte) adler};
+        writeChunk(dos, IDAT, adlerBytes, 0, adlerBytes.length);
+        writeChunk(dos, IEND, new byte[0], 0, 0);
+        dos.flush();
+    }
+
+    /**
+     * @return The zlib header FLG byte matching the compression level.
+     */
+    private byte getZlibLevelFlags() {
+        if (compressionLevel == Deflater.DEFAULT_COMPRESSION
+                || compressionLevel == 6) {
+            return (byte) 0x9C;
+        }
+        if (compressionLevel < 2) {
+            return 0x01;
+        }
+        if (compressionLevel < 6) {
+            return 0x5E;
+        }
+        return (byte) 0xDA;
+    }
+
+    /**
+     * Writes a PNG chunk (length, type, data and CRC).
+     */
+    private static void writeChunk(DataOutputStream dos, byte[] type,
+                                   byte[] data, int offset, int length)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(data, offset, length);
+
+        dos.writeInt(length);
+        dos.write(type);
+        dos.write(data, offset, length);
+        dos.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Combines the Adler-32 checksums of two consecutive byte sequences
+     * (ported from zlib's adler32_combine).
+     * @param adler1 The checksum of the first sequence.
+     * @param adler2 The checksum of the second sequence.
+     * @param length2 The length of the second sequence.
+     * @return The checksum of the concatenated sequences.
+     */
+    private static long combineAdler32(long adler1, long adler2,
+                                       long length2) {
+        long remainder = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = (remainder * sum1) % ADLER_BASE;
+        sum1 += (adler2 & 0xffff) + ADLER_BASE - 1;
+        sum2 += ((adler1 >> 16) & 0xffff) + ((adler2 >> 16) & 0xffff)
+                + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= ((long) ADLER_BASE << 1)) {
+            sum2 -= ((long) ADLER_BASE << 1);
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    /**
+     * The deflated bytes of a chunk, along with the checksum of its raw
+     * (filtered) bytes.
+     */
+    private static class DeflatedChunk {
+        private final byte[] data;
+        private final long adler;
+        private final long rawLength;
+
+        public DeflatedChunk(byte[] data, long adler, long rawLength) {
+            this.data = data;
+            this.adler = adler;
+            this.rawLength = rawLength;
+        }
+    }
+
+    /**
+     * Filters the last rows of a chunk, which are also the next chunk's
+     * dictionary, so they are only filtered once.
+     */
+    private class FilterTailTask implements Callable<byte[]> {
+        private final byte[] pixels;
+        private final int width;
+        private final int firstRow;
+        private final int lastRow; // Exclusive
+
+        public FilterTailTask(byte[] pixels, int width, int firstRow,
+                              int lastRow) {
+            this.pixels = pixels;
+            this.width = width;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+        }
+
+        @Override
+        public byte[] call() {
+            RowFilter rowFilter = new RowFilter(pixels, width);
+            int filteredRowLength = (width * BYTES_PER_PIXEL) + 1;
+            byte[] tail = new byte[(lastRow - firstRow) * filteredRowLength];
+            for (int row = firstRow; row < lastRow; ++row) {
+                System.arraycopy(rowFilter.filterRow(row), 0, tail,
+                        (row - firstRow) * filteredRowLength,
+                        filteredRowLength);
+            }
+            return tail;
+        }
+    }
+
+    /**
+     * Filters and deflates a range of image rows.
+     */
+    private class DeflateChunkTask implements Callable<DeflatedChunk> {
+        private final byte[] pixels;
+        private final int width;
+        private final int firstRow;
+        private final int lastRow; // Exclusive
+        // The filtered last rows of the previous chunk, or null if this is
+        // the first chunk.
+        private final ForkJoinTask<byte[]> previousTail;
+        // The filtered last rows of this chunk, or null if this is the last
+        // chunk.
+        private final ForkJoinTask<byte[]> tail;
+        private final int tailFirstRow;
+
+        public DeflateChunkTask(byte[] pixels, int width, int firstRow,
+                                int lastRow,
+                                ForkJoinTask<byte[]> previousTail,
+                                ForkJoinTask<byte[]> tail, int tailFirstRow) {
+            this.pixels = pixels;
+            this.width = width;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.previousTail = previousTail;
+            this.tail = tail;
+            this.tailFirstRow = tailFirstRow;
+        }
+
+        @Override
+        public DeflatedChunk call() {
+            Deflater deflater = new Deflater(compressionLevel, true);
+            try {
+                if (previousTail != null) {
+                    deflater.setDictionary(getDictionary(previousTail.join()));
+                }
+
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                byte[] outputBuffer = new byte[OUTPUT_BUFFER_SIZE];
+                Adler32 adler = new Adler32();
+                long rawLength = 0;
+
+                RowFilter rowFilter = new RowFilter(pixels, width);
+                for (int row = firstRow; row < tailFirstRow; ++row) {
+                    byte[] filtered = rowFilter.filterRow(row);
+                    adler.update(filtered);
+                    rawLength += filtered.length;
+                    deflate(deflater, filtered, output, outputBuffer);
+                }
+
+                if (tail == null) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        int count = deflater.deflate(outputBuffer);
+                        output.write(outputBuffer, 0, count);
+                    }
+                } else {
+                    byte[] filtered = tail.join();
+                    adler.update(filtered);
+                    rawLength += filtered.length;
+                    deflate(deflater, filtered, output, outputBuffer);
+
+                    // Sync flush ends the chunk on a byte boundary without
+                    // ending the deflate stream, so the next chunk can be
+                    // appended.
+                    int count;
+                    do {
+                        count = deflater.deflate(outputBuffer, 0,
+                                outputBuffer.length, Deflater.SYNC_FLUSH);
+                        output.write(outputBuffer, 0, count);
+                    } while (count == outputBuffer.length);
+                }
+
+                return new DeflatedChunk(output.toByteArray(),
+                        adler.getValue(), rawLength);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void deflate(Deflater deflater, byte[] input,
+                             ByteArrayOutputStream output,
+                             byte[] outputBuffer) {
+            deflater.setInput(input);
+            while (!deflater.needsInput()) {
+                int count = deflater.deflate(outputBuffer);
+                output.write(outputBuffer, 0, count);
+            }
+        }
+
+        /**
+         * @return The (up to) last 32KB of the previous chunk's filtered
+         * bytes.
+         */
+        private byte[] getDictionary(byte[] previousBytes) {
+            if (previousBytes.length <= DICTIONARY_SIZE) {
+                return previousBytes;
+            }
+            byte[] dictionary = new byte[DICTIONARY_SIZE];
+            System.arraycopy(previousBytes,
+                    previousBytes.length - DICTIONARY_SIZE, dictionary, 0,
+                    DICTIONARY_SIZE);
+            return dictionary;
+        }
+    }
+
+    /**
+     * Filters consecutive image rows, reusing its scratch rows.
+     */
+    private class RowFilter {
+        private final byte[] pixels;
+        private final byte[][] filteredRows;
+        private byte[] previousRow;
+        private byte[] currentRow;
+        // The row which is currently in currentRow, or -1.
+        private int loadedRow = -1;
+
+        public RowFilter(byte[] pixels, int width) {
+            this.pixels = pixels;
+
+            int rowBytesCount = width * BYTES_PER_PIXEL;
+            previousRow = new byte[rowBytesCount];
+            currentRow = new byte[rowBytesCount];
+            filteredRows = new byte[FILTER_TYPES_COUNT][rowBytesCount + 1];
+        }
+
+        /**
+         * Converts the given row (and the one before it) from ABGR to RGBA.
+         * When the rows are filtered in order, the previous row is already
+         * converted, so only the given row is.
+         */
+        private void loadRows(int row) {
+            if (loadedRow >= 0 && row == loadedRow + 1) {
+                byte[] temp = previousRow;
+                previousRow = currentRow;
+                currentRow = temp;
+            } else if (row > 0) {
+                toRgba(row - 1, previousRow);
+            } else {
+                Arrays.fill(previousRow, (byte) 0);
+            }
+            toRgba(row, currentRow);
+            loadedRow = row;
+        }
+
+        private void toRgba(int row, byte[] rgba) {
+            int offset = row * rgba.length;
+            for (int i = 0; i < rgba.length; i += BYTES_PER_PIXEL) {
+                rgba[i] = pixels[offset + i + 3];     // R
+                rgba[i + 1] = pixels[offset + i + 2]; // G
+                rgba[i + 2] = pixels[offset + i + 1]; // B
+                rgba[i + 3] = pixels[offset + i];     // A
+            }
+        }
+
+        /**
+         * Filters a single row.
+         * @param row The row index.
+         * @return A buffer containing the filter type byte followed by the
+         * filtered row. The buffer is reused by subsequent calls.
+         */
+        private byte[] filterRow(int row) {
+            loadRows(row);
+
+            switch (filterStrategy) {
+                case NONE:
+                    return applyFilter(0);
+                case SUB:
+                    return applyFilter(1);
+                case UP:
+                    return applyFilter(2);
+                case AVERAGE:
+                    return applyFilter(3);
+                case PAETH:
+                    return applyFilter(4);
+                default:
+                    byte[] best = null;
+                    long bestSum = Long.MAX_VALUE;
+                    for (int type = 0; type < FILTER_TYPES_COUNT; ++type) {
+                        byte[] filtered = applyFilter(type);
+                        long sum = 0;
+                        for (int i = 1; i < filtered.length; ++i) {
+                            // Treating the bytes as signed, as suggested by
+                            // the PNG specification.
+                            sum += Math.abs(filtered[i]);
+                        }
+                        if (sum < bestSum) {
+                            bestSum = sum;
+                            best = filtered;
+                        }
+                    }
+                    return best;
+            }
+        }
+
+        /**
+         * Applies a filter type to the currently loaded row.
+         */
+        private byte[] applyFilter(int type) {
+            byte[] filtered = filteredRows[type];
+            byte[] current = currentRow;
+            byte[] previous = previousRow;
+            int length = current.length;
+            filtered[0] = (byte) type;
+
+            switch (type) {
+                case 0:
+                    System.arraycopy(current, 0, filtered, 1, length);
+                    break;
+                case 1:
+                    for (int i = 0; i < length; ++i) {
+                        int left = i >= BYTES_PER_PIXEL ?
+                                current[i - BYTES_PER_PIXEL] : 0;
+                        filtered[i + 1] = (byte) (current[i] - left);
+                    }
+                    break;
+                case 2:
+                    for (int i = 0; i < length; ++i) {
+                        filtered[i + 1] = (byte) (current[i] - previous[i]);
+                    }
+                    break;
+                case 3:
+                    for (int i = 0; i < length; ++i) {
+                        int left = i >= BYTES_PER_PIXEL ?
+                                current[i - BYTES_PER_PIXEL] & 0xff : 0;
+                        int up = previous[i] & 0xff;
+                        filtered[i + 1] =
+                                (byte) (current[i] - ((left + up) >>> 1));
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < length; ++i) {
+                        int left = 0;
+                        int upperLeft = 0;
+                        if (i >= BYTES_PER_PIXEL) {
+                            left = current[i - BYTES_PER_PIXEL] & 0xff;
+                            upperLeft = previous[i - BYTES_PER_PIXEL] & 0xff;
+                        }
+                        int up = previous[i] & 0xff;
+                        filtered[i + 1] = (byte) (current[i]
+                                - paethPredictor(left, up, upperLeft));
+                    }
+                    break;
+            }
+            return filtered;
+        }
+    }
+
+    static int paethPredictor(int left, int up, int upperLeft) {
+        int p = left + up - upperLeft;
+        int pLeft = Math.abs(p - left);
+        int pUp = Math.abs(p - up);
+        int pUpperLeft = Math.abs(p - upperLeft);
+        if (pLeft <= pUp && pLeft <= pUpperLeft) {
+            return left;
+        }
+        if (pUp <= pUpperLeft) {
+            return up;
+        }
+        return upperLeft;
+    }
+}
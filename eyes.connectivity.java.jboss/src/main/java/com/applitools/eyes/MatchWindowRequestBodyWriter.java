@@ -0,0 +1,43 @@
+package com.applitools.eyes;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Writes a {@link MatchWindowRequestBody} to the request's stream.
+ *
+ * Notice that RESTEasy's Apache HTTP client engine buffers the entire body
+ * before sending it (which is also how it sets the Content-Length header,
+ * since the Eyes server doesn't handle chunked encoding), so the body is
+ * still copied once.
+ */
+public class MatchWindowRequestBodyWriter
+        implements MessageBodyWriter<MatchWindowRequestBody> {
+
+    public boolean isWriteable(Class<?> type, Type genericType,
+                               Annotation[] annotations,
+                               MediaType mediaType) {
+        return MatchWindowRequestBody.class.isAssignableFrom(type);
+    }
+
+    public long getSize(MatchWindowRequestBody body, Class<?> type,
+                        Type genericType, Annotation[] annotations,
+                        MediaType mediaType) {
+        return body.getContentLength();
+    }
+
+    public void writeTo(MatchWindowRequestBody body, Class<?> type,
+                        Type genericType, Annotation[] annotations,
+                        MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        body.writeTo(entityStream);
+    }
+}
@@ -9,16 +9,15 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
-import javax.xml.bind.DatatypeConverter;
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.Future;
 
 /**
  * Provides an API for communication with the Applitools agent
@@ -28,7 +27,6 @@ public class Jersey1xServerConnector extends RestClient
 
     private static final int TIMEOUT = 1000 * 60 * 5; // 5 Minutes
     private static final String API_PATH = "/api/sessions/running";
-    private static final String DEFAULT_CHARSET_NAME = "UTF-8";
 
     protected String sdkName;
     protected String apiKey;
@@ -87,6 +85,61 @@ public class Jersey1xServerConnector extends RestClient
         return getProxyBase();
     }
 
+    /**
+     * Sets the connection pool to be used by the rest client. Connectors
+     * with equal settings share the same pool of keep-alive connections.
+     * @param connectionPoolSettings The settings of the pool. If
+     * {@code null} then the connector uses connections of its own.
+     */
+    public void setConnectionPool(
+            ConnectionPoolSettings connectionPoolSettings) {
+        setConnectionPoolBase(connectionPoolSettings);
+    }
+
+    /**
+     * @return The settings of the connection pool used by the rest client,
+     * or {@code null} if no shared pool is used.
+     */
+    public ConnectionPoolSettings getConnectionPool() {
+        return getConnectionPoolBase();
+    }
+
+    /**
+     * Sets the compression of request bodies. When set, compressed responses
+     * are accepted as well.
+     * @param requestCompressionSettings The compression settings. If
+     * {@code null} then request bodies aren't compressed.
+     */
+    public void setRequestCompression(
+            RequestCompressionSettings requestCompressionSettings) {
+        setRequestCompressionBase(requestCompressionSettings);
+    }
+
+    /**
+     * @return The compression settings used by the rest client, or
+     * {@code null} if request bodies aren't compressed.
+     */
+    public RequestCompressionSettings getRequestCompression() {
+        return getRequestCompressionBase();
+    }
+
+    /**
+     * Sets the retrying of requests which failed due to transient errors.
+     * @param retrySettings The retry settings. If {@code null} then
+     * requests aren't retried.
+     */
+    public void setRetrySettings(RetrySettings retrySettings) {
+        setRetrySettingsBase(retrySettings);
+    }
+
+    /**
+     * @return The retry settings used by the rest client, or {@code null}
+     * if requests aren't retried.
+     */
+    public RetrySettings getRetrySettings() {
+        return getRetrySettingsBase();
+    }
+
     /**
      * Sets the current server URL used by the rest client.
      * @param serverUrl The URI of the rest server.
@@ -143,11 +196,17 @@ public class Jersey1xServerConnector extends RestClient
                     "sessionStartInfo into Json string!", e);
         }
 
+        // The body is encoded once, and re-sent as is on retries.
+        final JsonRequestBody requestBody =
+                new JsonRequestBody(postData, getRequestCompressionBase());
+
         try {
-            response = endPoint.queryParam("apiKey", apiKey).
-                    accept(MediaType.APPLICATION_JSON).
-                    entity(postData, MediaType.APPLICATION_JSON_TYPE).
-                    post(ClientResponse.class);
+            response = sendWithRetry(new HttpMethodCall() {
+                public ClientResponse call() {
+                    return postJson(endPoint.queryParam("apiKey", apiKey).
+                            accept(MediaType.APPLICATION_JSON), requestBody);
+                }
+            }, "startSession");
         } catch (RuntimeException e) {
             logger.log("startSession(): Server request failed: " + e.getMessage());
             throw e;
@@ -177,16 +236,29 @@ public class Jersey1xServerConnector extends RestClient
      * @throws EyesException For invalid status codes, or if response parsing
      *          failed.
      */
-    public TestResults stopSession(final RunningSession runningSession,
-                                   final boolean isAborted, final boolean save)
+    public TestResults stopSession(RunningSession runningSession,
+                                   boolean isAborted, boolean save)
             throws EyesException {
+        return waitForLongRequest(
+                stopSessionAsync(runningSession, isAborted, save));
+    }
+
+    /**
+     * Same as {@link #stopSession(RunningSession, boolean, boolean)}, except
+     * that the server is polled in the background until the session is
+     * stopped.
+     *
+     * @param runningSession The running session to be stopped.
+     * @return A future for the TestResults of the stopped running session.
+     * Failures are reported by {@link Future#get()}.
+     */
+    public Future<TestResults> stopSessionAsync(
+            final RunningSession runningSession, final boolean isAborted,
+            final boolean save) {
 
         ArgumentGuard.notNull(runningSession, "runningSession");
 
         final String sessionId = runningSession.getId();
-        ClientResponse response;
-        List<Integer> validStatusCodes;
-        TestResults result;
 
         HttpMethodCall delete = new HttpMethodCall() {
             public ClientResponse call() {
@@ -204,19 +276,38 @@ public class Jersey1xServerConnector extends RestClient
                         .header("Eyes-Date", currentTime);
 
                 // Actually perform the method call and return the result
-                return builder.delete(ClientResponse.class);
+                return acceptCompressed(builder).delete(ClientResponse.class);
             }
         };
 
-        response = sendLongRequest(delete, "stopSession");
-
-        // Ok, let's create the running session from the response
-        validStatusCodes = new ArrayList<>();
-        validStatusCodes.add(ClientResponse.Status.OK.getStatusCode());
+        return sendLongRequestAsync(delete, "stopSession",
+                new ResponseParser<TestResults>() {
+                    public TestResults parse(ClientResponse response) {
+                        // Ok, let's create the test results from the
+                        // response
+                        List<Integer> validStatusCodes = new ArrayList<>();
+                        validStatusCodes.add(
+                                ClientResponse.Status.OK.getStatusCode());
+
+                        return parseResponseWithJsonData(response,
+                                validStatusCodes, TestResults.class);
+                    }
+                });
+    }
 
-        result = parseResponseWithJsonData(response, validStatusCodes,
-                TestResults.class);
-        return result;
+    /**
+     * Polls the location of a long request (e.g., stopSession), as given by
+     * the server.
+     *
+     * @param location The (absolute) location to poll.
+     * @return The response.
+     */
+    @Override
+    protected ClientResponse pollLongRequestLocation(URI location) {
+        return acceptCompressed(restClient.resource(location)
+                .queryParam("apiKey", apiKey)
+                .accept(MediaType.APPLICATION_JSON))
+                .get(ClientResponse.class);
     }
 
     /**
@@ -239,64 +330,33 @@ public class Jersey1xServerConnector extends RestClient
         ClientResponse response;
         List<Integer> validStatusCodes;
         MatchResult result;
-        String jsonData;
 
         // since we rather not add an empty "tag" param
-        WebResource runningSessionsEndpoint =
+        final WebResource runningSessionsEndpoint =
                 endPoint.path(runningSession.getId());
 
         // Serializing data into JSON (we'll treat it as binary later).
         // IMPORTANT This serializes everything EXCEPT for the screenshot (which
-        // we'll add later).
-        try {
-            jsonData = jsonMapper.writeValueAsString(matchData);
-        } catch (IOException e) {
-            throw new EyesException("Failed to serialize data for matchWindow!",
-                    e);
-        }
-
-        // Convert the JSON to binary.
-        byte[] jsonBytes;
-        ByteArrayOutputStream jsonToBytesConverter = new ByteArrayOutputStream();
-        try {
-            jsonToBytesConverter.write(
-                    jsonData.getBytes(DEFAULT_CHARSET_NAME));
-            jsonToBytesConverter.flush();
-            jsonBytes = jsonToBytesConverter.toByteArray();
-        } catch (IOException e) {
-            throw new EyesException("Failed create binary data from JSON!", e);
-        }
-
-        // Getting the screenshot's bytes (notice this can be either
-        // compressed/uncompressed form).
-        byte[] screenshot = DatatypeConverter.parseBase64Binary(
-                matchData.getAppOutput().getScreenshot64());
-
-        // Ok, let's create the request data
-        ByteArrayOutputStream requestOutputStream = new ByteArrayOutputStream();
-        DataOutputStream requestDos = new DataOutputStream(requestOutputStream);
-        byte[] requestData;
-        try {
-            requestDos.writeInt(jsonBytes.length);
-            requestDos.flush();
-            requestOutputStream.write(jsonBytes);
-            requestOutputStream.write(screenshot);
-            requestOutputStream.flush();
-
-            // Ok, get the data bytes
-            requestData = requestOutputStream.toByteArray();
-
-            // Release the streams
-            requestDos.close();
-        } catch (IOException e) {
-            throw new EyesException("Failed send check window request!", e);
-        }
+        // is written after the JSON when the request is sent). The body is
+        // prepared once, and re-sent as is on retries.
+        final MatchWindowRequestBody requestBody = new MatchWindowRequestBody(
+                jsonMapper, matchData, getRequestCompressionBase());
 
         // Sending the request
-        response = runningSessionsEndpoint.queryParam("apiKey", apiKey).
-                accept(MediaType.APPLICATION_JSON).
-                entity(requestData, MediaType.APPLICATION_OCTET_STREAM_TYPE).
-                post(ClientResponse.class);
+        response = sendWithRetry(new HttpMethodCall() {
+            public ClientResponse call() {
+                WebResource.Builder builder = acceptCompressed(
+                        runningSessionsEndpoint.queryParam("apiKey", apiKey).
+                                accept(MediaType.APPLICATION_JSON));
+                if (requestBody.getContentEncoding() != null) {
+                    builder.header(HttpHeaders.CONTENT_ENCODING,
+                            requestBody.getContentEncoding());
+                }
+                return builder.entity(requestBody,
+                        MediaType.APPLICATION_OCTET_STREAM_TYPE).
+                        post(ClientResponse.class);
+            }
+        }, "matchWindow");
 
         // Ok, let's create the running session from the response
         validStatusCodes = new ArrayList<>(1);
@@ -1,6 +1,8 @@
 package com.applitools.eyes;
 
 import com.applitools.utils.ArgumentGuard;
+import com.applitools.utils.GzipUtils;
+import com.applitools.utils.NetworkUtils;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.jersey.api.client.Client;
@@ -9,15 +11,73 @@ import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
 
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides common rest client functionality.
  */
 public class RestClient {
 
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int LONG_REQUEST_INITIAL_DELAY = 2000; // ms
+    private static final int LONG_REQUEST_MAX_DELAY = 10000; // ms
+    private static final int LONG_REQUEST_THREADS = 32;
+    private static final int LONG_REQUEST_THREAD_KEEP_ALIVE = 60 * 1000; // ms
+
+    // The jitter of the retries' backoff.
+    private static final Random jitterRandom = new Random();
+
+    // Times the polls of the long requests of all rest clients. The polls
+    // themselves are sent by the longRequestExecutor.
+    private static final ScheduledExecutorService longRequestScheduler =
+            Executors.newSingleThreadScheduledExecutor(
+                    createDaemonThreadFactory("eyes-long-request-timer"));
+
+    // Sends the polls of the long requests of all rest clients. A request
+    // which is slow to respond only holds one of its threads.
+    private static final ThreadPoolExecutor longRequestExecutor =
+            createLongRequestExecutor();
+
+    private static ThreadFactory createDaemonThreadFactory(
+            final String threadName) {
+        return new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private static ThreadPoolExecutor createLongRequestExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                LONG_REQUEST_THREADS, LONG_REQUEST_THREADS,
+                LONG_REQUEST_THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                createDaemonThreadFactory("eyes-long-request"));
+        // The threads exit when there are no long requests.
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * An interface used as base for anonymous classes wrapping Http Method
      * calls.
@@ -26,7 +86,18 @@ public class RestClient {
         ClientResponse call();
     }
 
+    /**
+     * Parses the final response of a long request.
+     * @param <T> The type of the result.
+     */
+    protected interface ResponseParser<T> {
+        T parse(ClientResponse response);
+    }
+
     private ProxySettings proxySettings;
+    private ConnectionPoolSettings connectionPoolSettings;
+    private RequestCompressionSettings requestCompressionSettings;
+    private RetrySettings retrySettings = new RetrySettings();
     private int timeout; // seconds
 
     protected final Logger logger;
@@ -49,6 +120,10 @@ public class RestClient {
         cc.getProperties().put(ClientConfig.PROPERTY_CONNECT_TIMEOUT, timeout);
         cc.getProperties().put(ClientConfig.PROPERTY_READ_TIMEOUT, timeout);
 
+        // Since the writer reports the matchWindow request body size, the
+        // body is streamed with a fixed Content-Length.
+        cc.getSingletons().add(new MatchWindowRequestBodyWriter());
+
         // We ignore the proxy settings
 
         return Client.create(cc);
@@ -71,8 +146,22 @@ public class RestClient {
         this.timeout = timeout;
         this.serverUrl = serverUrl;
 
+        rebuildClient();
+    }
+
+    /**
+     * Replaces the client with one built from the current settings, and
+     * destroys the previous client.
+     */
+    private void rebuildClient() {
+        Client previousRestClient = restClient;
+
         restClient = buildRestClient(timeout, proxySettings);
         endPoint = restClient.resource(serverUrl);
+
+        if (previousRestClient != null) {
+            previousRestClient.destroy();
+        }
     }
 
     /**
@@ -111,6 +200,187 @@ public class RestClient {
         return proxySettings;
     }
 
+    /**
+     * Sets the connection pool to be used by the rest client.
+     * <p>
+     * This client sends requests using {@link java.net.HttpURLConnection},
+     * whose keep-alive connections are already shared by the whole process
+     * (see the JDK's {@code http.keepAlive} and {@code http.maxConnections}
+     * system properties), so the settings are only kept for reference.
+     * @param connectionPoolSettings The settings of the pool, or
+     * {@code null}.
+     */
+    public void setConnectionPoolBase(
+            ConnectionPoolSettings connectionPoolSettings) {
+        this.connectionPoolSettings = connectionPoolSettings;
+    }
+
+    /**
+     *
+     * @return The settings of the connection pool used by the rest client,
+     * or {@code null} if none was set.
+     */
+    public ConnectionPoolSettings getConnectionPoolBase() {
+        return connectionPoolSettings;
+    }
+
+    /**
+     * Sets the compression of request bodies sent by the rest client. When
+     * set, compressed responses are accepted as well.
+     * @param requestCompressionSettings The compression settings. If
+     * {@code null} then request bodies aren't compressed.
+     */
+    public void setRequestCompressionBase(
+            RequestCompressionSettings requestCompressionSettings) {
+        this.requestCompressionSettings = requestCompressionSettings;
+    }
+
+    /**
+     *
+     * @return The compression settings used by the rest client, or
+     * {@code null} if request bodies aren't compressed.
+     */
+    public RequestCompressionSettings getRequestCompressionBase() {
+        return requestCompressionSettings;
+    }
+
+    /**
+     * Sets the retrying of requests which failed due to transient errors.
+     * @param retrySettings The retry settings. If {@code null} then
+     * requests aren't retried.
+     */
+    public void setRetrySettingsBase(RetrySettings retrySettings) {
+        this.retrySettings = retrySettings;
+    }
+
+    /**
+     *
+     * @return The retry settings used by the rest client, or {@code null}
+     * if requests aren't retried.
+     */
+    public RetrySettings getRetrySettingsBase() {
+        return retrySettings;
+    }
+
+    /**
+     * Asks the server to compress the response, if compression is enabled.
+     * @param builder The request to update.
+     * @return {@code builder}.
+     */
+    protected WebResource.Builder acceptCompressed(
+            WebResource.Builder builder) {
+        if (requestCompressionSettings != null) {
+            builder.header(HttpHeaders.ACCEPT_ENCODING,
+                    GzipUtils.ACCEPT_ENCODING);
+        }
+        return builder;
+    }
+
+    /**
+     * Posts a JSON body (see {@link JsonRequestBody}).
+     * @param builder The request to send.
+     * @param body The body of the request.
+     * @return The response.
+     */
+    protected ClientResponse postJson(WebResource.Builder builder,
+                                      JsonRequestBody body) {
+        acceptCompressed(builder);
+        if (body.getContentEncoding() != null) {
+            builder.header(HttpHeaders.CONTENT_ENCODING,
+                    body.getContentEncoding());
+        }
+        return builder.entity(body.getBytes(),
+                MediaType.APPLICATION_JSON_TYPE).post(ClientResponse.class);
+    }
+
+    /**
+     * Sends a request, retrying it on transient failures (see
+     * {@link RetrySettings}). Requests fail fast while the server's
+     * {@link CircuitBreaker} is open.
+     *
+     * @param method The request to send. Called once per attempt, so the
+     *               request's body should be prepared in advance.
+     * @param name The name of the request (for logging).
+     * @return The response of the last attempt.
+     * @throws ServerUnavailableException If the circuit breaker is open.
+     * @throws EyesException If interrupted while waiting to retry.
+     */
+    protected ClientResponse sendWithRetry(HttpMethodCall method, String name)
+            throws EyesException {
+        CircuitBreaker circuitBreaker = CircuitBreaker.forServer(serverUrl);
+        int maxAttempts =
+                retrySettings != null ? retrySettings.getMaxAttempts() : 1;
+
+        for (int attempt = 1; ; ++attempt) {
+            if (!circuitBreaker.allowRequest()) {
+                throw new ServerUnavailableException(String.format(
+                        "%s: Too many recent failures of %s, " +
+                                "request was not sent!", name, serverUrl));
+            }
+
+            ClientResponse response;
+            int statusCode;
+            try {
+                response = method.call();
+                statusCode = response.getStatus();
+                if (!RetrySettings.isRetriableStatus(statusCode)) {
+                    circuitBreaker.recordSuccess();
+                } else if (!RetrySettings.isThrottlingStatus(statusCode)) {
+                    circuitBreaker.recordFailure();
+                }
+            } catch (RuntimeException e) {
+                circuitBreaker.recordFailure();
+                // The server might have handled the request, unless it
+                // couldn't even be sent.
+                if (attempt >= maxAttempts
+                        || !NetworkUtils.isConnectFailure(e)) {
+                    throw e;
+                }
+                logger.log(String.format("%s: Request failed (%s)", name,
+                        e.getMessage()));
+                waitBeforeRetry(name, attempt, -1);
+                continue;
+            } finally {
+                // A probe which was throttled (or failed with an Error)
+                // must still end, or the circuit would never close.
+                circuitBreaker.releaseProbe();
+            }
+
+            if (!RetrySettings.isRetriableStatus(statusCode)) {
+                return response;
+            }
+            if (attempt >= maxAttempts) {
+                // The caller reports the error from the response.
+                return response;
+            }
+            long retryAfter = NetworkUtils.getRetryAfterDelay(
+                    response.getHeaders().getFirst("Retry-After"),
+                    System.currentTimeMillis());
+            response.close();
+            logger.log(String.format("%s: Server responded with %d", name,
+                    statusCode));
+            waitBeforeRetry(name, attempt, retryAfter);
+        }
+    }
+
+    /**
+     * @param retryAfter The delay requested by the server (milliseconds),
+     *                   or -1 if none was requested.
+     */
+    private void waitBeforeRetry(String name, int attempt, long retryAfter)
+            throws EyesException {
+        long delay = retryAfter >= 0
+                ? Math.min(retryAfter, retrySettings.getMaxBackoff())
+                : retrySettings.getBackoff(attempt, jitterRandom);
+        logger.log(String.format("%s: Retrying in %d ms (attempt %d of %d)",
+                name, delay, attempt + 1, retrySettings.getMaxAttempts()));
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            throw new EyesException("Retry interrupted!", e);
+        }
+    }
+
     /**
      * Sets the connect and read timeouts for web requests.
      *
@@ -120,8 +390,7 @@ public class RestClient {
         ArgumentGuard.greaterThanOrEqualToZero(timeout, "timeout");
         this.timeout = timeout;
 
-        restClient = buildRestClient(timeout, proxySettings);
-        endPoint = restClient.resource(serverUrl);
+        rebuildClient();
     }
 
     /**
@@ -153,35 +422,191 @@ public class RestClient {
         return serverUrl;
     }
 
+    /**
+     * Sends a long request, and polls the server until it's done. While the
+     * server is still processing the request it responds with 202, in which
+     * case the request is re-sent (or its "Location" is polled, if given).
+     *
+     * The polls are timed by a scheduler shared by all rest clients, and
+     * sent by a bounded pool of threads, so no thread is blocked between
+     * polls.
+     *
+     * @param method The request to send.
+     * @param name The name of the request (for logging).
+     * @param parser Parses the final response (called by a polling
+     *               thread).
+     * @param <T> The type of the result.
+     * @return A future for the parsed response. Cancelling the future stops
+     * the polling.
+     */
+    protected <T> Future<T> sendLongRequestAsync(HttpMethodCall method,
+                                                 String name,
+                                                 ResponseParser<T> parser) {
+        ArgumentGuard.notNull(method, "method");
+        ArgumentGuard.notNull(parser, "parser");
+
+        LongRequest<T> longRequest = new LongRequest<>(method, name, parser);
+        longRequest.schedulePoll(0);
+        return longRequest;
+    }
+
     protected ClientResponse sendLongRequest(HttpMethodCall method, String name)
             throws EyesException {
+        return waitForLongRequest(sendLongRequestAsync(method, name,
+                new ResponseParser<ClientResponse>() {
+                    public ClientResponse parse(ClientResponse response) {
+                        return response;
+                    }
+                }));
+    }
+
+    /**
+     * Waits for a long request to finish.
+     *
+     * @param longRequest The future of the request.
+     * @param <T> The type of the result.
+     * @return The result of the request.
+     * @throws EyesException If the request failed or was interrupted.
+     */
+    protected <T> T waitForLongRequest(Future<T> longRequest)
+            throws EyesException {
+        try {
+            return longRequest.get();
+        } catch (InterruptedException e) {
+            longRequest.cancel(false);
+            throw new EyesException("Long request interrupted!", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new EyesException("Long request failed!", e.getCause());
+        }
+    }
+
+    /**
+     * Polls the location of a long request, as given by the server.
+     *
+     * @param location The (absolute) location to poll.
+     * @return The response.
+     */
+    protected ClientResponse pollLongRequestLocation(URI location) {
+        return acceptCompressed(restClient.resource(location)
+                .accept(MediaType.APPLICATION_JSON))
+                .get(ClientResponse.class);
+    }
+
+    /**
+     * A long request which is polled until the server is done.
+     */
+    private class LongRequest<T> extends FutureTask<T> {
+        private final HttpMethodCall method;
+        private final String name;
+        private final ResponseParser<T> parser;
+        private final Runnable poll = new Runnable() {
+            public void run() {
+                poll();
+            }
+        };
+        // Run by the scheduler once the delay before the poll elapsed.
+        private final Runnable submitPoll = new Runnable() {
+            public void run() {
+                try {
+                    longRequestExecutor.execute(poll);
+                } catch (RejectedExecutionException e) {
+                    setException(e);
+                }
+            }
+        };
+
+        private int delay = LONG_REQUEST_INITIAL_DELAY;
+        private URI location;
+        private volatile ScheduledFuture<?> nextPoll;
+
+        public LongRequest(HttpMethodCall method, String name,
+                           ResponseParser<T> parser) {
+            // The result is set by polling, never by running the task.
+            super(new Runnable() {
+                public void run() {
+                }
+            }, null);
+            this.method = method;
+            this.name = name;
+            this.parser = parser;
+        }
+
+        public void schedulePoll(long pollDelay) {
+            try {
+                nextPoll = longRequestScheduler.schedule(submitPoll,
+                        pollDelay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                setException(e);
+            }
+        }
+
+        private void poll() {
+            if (isDone()) {
+                return;
+            }
+
+            ClientResponse response;
+            try {
+                response = location == null ? method.call() :
+                        pollLongRequestLocation(location);
+            } catch (Throwable e) {
+                setException(e);
+                return;
+            }
 
-        // Adding the long request headers
-        int maxDelay = 10000;
-        int delay = 2000;  // milliseconds
-        ClientResponse response;
-        while (true) {
-            response = method.call();
             if (response.getStatus() != 202) {
-                return response;
+                if (isCancelled()) {
+                    response.close();
+                    return;
+                }
+                try {
+                    set(parser.parse(response));
+                } catch (Throwable e) {
+                    setException(e);
+                }
+                return;
             }
 
+            String retryAfter = response.getHeaders().getFirst("Retry-After");
+            String newLocation = response.getHeaders().getFirst(
+                    HttpHeaders.LOCATION);
+
             // Since we haven't read the entity, We must release the response
             // or the connection stays open (meaning it'll get stuck after two
             // requests).
             response.close();
 
-            // Waiting a delay
-            logger.verbose(String.format(
-                    "%s: Still running... Retrying in %d ms", name, delay));
-            try {
-                Thread.sleep(delay);
-            } catch (InterruptedException e) {
-                throw new EyesException("Long request interrupted!", e);
+            if (newLocation != null) {
+                location = serverUrl.resolve(newLocation);
+            }
+
+            // The server's hint takes precedence over our own delay.
+            long pollDelay = NetworkUtils.getRetryAfterDelay(retryAfter,
+                    System.currentTimeMillis());
+            if (pollDelay < 0) {
+                pollDelay = delay;
+                // increasing the delay
+                delay = Math.min(LONG_REQUEST_MAX_DELAY,
+                        (int) Math.floor(delay * 1.5));
             }
 
-            // increasing the delay
-            delay = Math.min(maxDelay, (int) Math.floor(delay * 1.5));
+            logger.verbose(String.format(
+                    "%s: Still running... Retrying in %d ms", name,
+                    pollDelay));
+            schedulePoll(pollDelay);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean isCancelled = super.cancel(mayInterruptIfRunning);
+            ScheduledFuture<?> scheduledPoll = nextPoll;
+            if (isCancelled && scheduledPoll != null) {
+                scheduledPoll.cancel(false);
+            }
+            return isCancelled;
         }
     }
 
@@ -239,8 +664,22 @@ public class RestClient {
         int statusCode = response.getStatus();
         String statusPhrase =
                 response.getClientResponseStatus().getReasonPhrase();
-        String data = response.getEntity(String.class);
+        String contentEncoding = response.getHeaders().getFirst(
+                HttpHeaders.CONTENT_ENCODING);
+        byte[] body = response.getEntity(byte[].class);
         response.close();
+        String data;
+        try {
+            // The response might be compressed, since we accept gzip.
+            data = new String(GzipUtils.decompress(
+                    body != null ? body : new byte[0], contentEncoding), UTF8);
+        } catch (IOException e) {
+            throw new EyesException(getReadResponseError(
+                    "Failed to decompress response body",
+                    statusCode,
+                    statusPhrase,
+                    contentEncoding), e);
+        }
         // Validate the status code.
         if (!validHttpStatusCodes.contains(statusCode)) {
             String errorMessage = getReadResponseError(
@@ -0,0 +1,58 @@
+package com.applitools.eyes;
+
+import com.applitools.utils.ArgumentGuard;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An HTTP entity which writes a {@link MatchWindowRequestBody} directly to
+ * the connection's stream. The body's size is known in advance, so it's sent
+ * with a Content-Length header (the Eyes server doesn't handle chunked
+ * encoding).
+ */
+public class MatchWindowRequestEntity extends AbstractHttpEntity {
+
+    private final MatchWindowRequestBody body;
+
+    /**
+     * @param body The body of the request.
+     */
+    public MatchWindowRequestEntity(MatchWindowRequestBody body) {
+        ArgumentGuard.notNull(body, "body");
+        this.body = body;
+        setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        setContentEncoding(body.getContentEncoding());
+    }
+
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    public long getContentLength() {
+        return body.getContentLength();
+    }
+
+    /**
+     * Not used when sending the request. Copies the entire body.
+     */
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream content =
+                new ByteArrayOutputStream((int) body.getContentLength());
+        body.writeTo(content);
+        return new ByteArrayInputStream(content.toByteArray());
+    }
+
+    public void writeTo(OutputStream output) throws IOException {
+        body.writeTo(output);
+    }
+
+    public boolean isStreaming() {
+        return false;
+    }
+}
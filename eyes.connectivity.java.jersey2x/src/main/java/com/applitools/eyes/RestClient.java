@@ -1,26 +1,108 @@
 package com.applitools.eyes;
 
 import com.applitools.utils.ArgumentGuard;
+import com.applitools.utils.GzipUtils;
+import com.applitools.utils.NetworkUtils;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.StatusLine;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
 import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.client.RequestEntityProcessing;
 
 import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Variant;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides common rest client functionality.
  */
 public class RestClient {
 
+    private static final int DEFAULT_HTTP_PROXY_PORT = 80;
+    private static final int DEFAULT_HTTPS_PROXY_PORT = 443;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int LONG_REQUEST_INITIAL_DELAY = 2000; // ms
+    private static final int LONG_REQUEST_MAX_DELAY = 10000; // ms
+    private static final int LONG_REQUEST_THREADS = 32;
+    private static final int LONG_REQUEST_THREAD_KEEP_ALIVE = 60 * 1000; // ms
+
+    // The jitter of the retries' backoff.
+    private static final Random jitterRandom = new Random();
+
+    // Times the polls of the long requests of all rest clients. The polls
+    // themselves are sent by the longRequestExecutor.
+    private static final ScheduledExecutorService longRequestScheduler =
+            Executors.newSingleThreadScheduledExecutor(
+                    createDaemonThreadFactory("eyes-long-request-timer"));
+
+    // Sends the polls of the long requests of all rest clients. A request
+    // which is slow to respond only holds one of its threads.
+    private static final ThreadPoolExecutor longRequestExecutor =
+            createLongRequestExecutor();
+
+    private static ThreadFactory createDaemonThreadFactory(
+            final String threadName) {
+        return new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private static ThreadPoolExecutor createLongRequestExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                LONG_REQUEST_THREADS, LONG_REQUEST_THREADS,
+                LONG_REQUEST_THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                createDaemonThreadFactory("eyes-long-request"));
+        // The threads exit when there are no long requests.
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * An interface used as base for anonymous classes wrapping Http Method
      * calls.
@@ -29,11 +111,70 @@ public class RestClient {
         Response call();
     }
 
+    /**
+     * A single attempt of a request which is sent with retries.
+     * @param <R> The type of the response.
+     */
+    private interface RetriableCall<R> {
+        R call();
+
+        int getStatus(R response);
+
+        String getRetryAfter(R response);
+
+        /**
+         * Releases a response which is not returned to the caller.
+         */
+        void discard(R response);
+    }
+
+    /**
+     * A response of a request sent by the {@link #httpClient}. The
+     * response's body is read entirely, so the connection is already
+     * released.
+     */
+    protected static class HttpClientResponse {
+        private final int statusCode;
+        private final String statusPhrase;
+        private final String contentEncoding;
+        private final String retryAfter;
+        private final byte[] body;
+
+        public HttpClientResponse(int statusCode, String statusPhrase,
+                                  String contentEncoding, String retryAfter,
+                                  byte[] body) {
+            this.statusCode = statusCode;
+            this.statusPhrase = statusPhrase;
+            this.contentEncoding = contentEncoding;
+            this.retryAfter = retryAfter;
+            this.body = body;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+
+    /**
+     * Parses the final response of a long request.
+     * @param <T> The type of the result.
+     */
+    protected interface ResponseParser<T> {
+        T parse(Response response);
+    }
+
     private ProxySettings proxySettings;
+    private ConnectionPoolSettings connectionPoolSettings;
+    private RequestCompressionSettings requestCompressionSettings;
+    private RetrySettings retrySettings = new RetrySettings();
     private int timeout; // seconds
 
     protected final Logger logger;
     protected Client restClient;
+    // Used for requests whose (large) body must be streamed to the server
+    // with a known length. Jersey's Apache connector buffers the entire
+    // body (and copies it again) when chunked encoding is disabled.
+    protected CloseableHttpClient httpClient;
     protected URI serverUrl;
     protected WebTarget endPoint;
 
@@ -44,9 +185,12 @@ public class RestClient {
      *
      * @param timeout Connect/Read timeout in milliseconds. 0 equals infinity.
      * @param proxySettings (optional) Setting for communicating via proxy.
+     * @param connectionPoolSettings (optional) Settings of a shared
+     *                               connection pool to use.
      */
     private static Client buildRestClient(int timeout,
-                                      ProxySettings proxySettings) {
+                                      ProxySettings proxySettings,
+                                      ConnectionPoolSettings connectionPoolSettings) {
         // Creating the client configuration
         ClientConfig cc = new ClientConfig();
         cc.property(ClientProperties.CONNECT_TIMEOUT, timeout);
@@ -73,10 +217,65 @@ public class RestClient {
         // We must use the Apache connector, since Jersey's default connector
         // does not support proxy settings.
         cc.connectorProvider(new ApacheConnectorProvider());
+        if (connectionPoolSettings != null) {
+            cc.property(ApacheClientProperties.CONNECTION_MANAGER,
+                    SharedConnectionPools.get(connectionPoolSettings));
+        }
 
         return ClientBuilder.newBuilder().withConfig(cc).build();
     }
 
+    /**
+     *
+     * @param timeout Connect/Read timeout in milliseconds. 0 equals infinity.
+     * @param proxySettings (optional) Setting for communicating via proxy.
+     * @param connectionPoolSettings (optional) Settings of a shared
+     *                               connection pool to use.
+     */
+    private static CloseableHttpClient buildHttpClient(int timeout,
+            ProxySettings proxySettings,
+            ConnectionPoolSettings connectionPoolSettings) {
+        RequestConfig.Builder requestConfig = RequestConfig.custom()
+                .setConnectTimeout(timeout)
+                .setSocketTimeout(timeout);
+        // Retries are handled by the rest client, and compressed responses
+        // are requested (and decompressed) the same as for the rest client.
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .disableAutomaticRetries()
+                .disableContentCompression();
+
+        if (proxySettings != null) {
+            URI proxyUri = URI.create(proxySettings.getUri());
+            String scheme = proxyUri.getScheme() != null
+                    ? proxyUri.getScheme() : "http";
+            int port = proxyUri.getPort();
+            if (port < 0) {
+                port = scheme.equalsIgnoreCase("https")
+                        ? DEFAULT_HTTPS_PROXY_PORT : DEFAULT_HTTP_PROXY_PORT;
+            }
+            requestConfig.setProxy(
+                    new HttpHost(proxyUri.getHost(), port, scheme));
+
+            if (proxySettings.getUsername() != null) {
+                CredentialsProvider credentialsProvider =
+                        new BasicCredentialsProvider();
+                credentialsProvider.setCredentials(
+                        new AuthScope(proxyUri.getHost(), port),
+                        new UsernamePasswordCredentials(
+                                proxySettings.getUsername(),
+                                proxySettings.getPassword()));
+                builder.setDefaultCredentialsProvider(credentialsProvider);
+            }
+        }
+
+        if (connectionPoolSettings != null) {
+            builder.setConnectionManager(
+                    SharedConnectionPools.get(connectionPoolSettings));
+        }
+
+        return builder.setDefaultRequestConfig(requestConfig.build()).build();
+    }
+
     /***
      * @param logger    Logger instance.
      * @param serverUrl The URI of the rest server.
@@ -93,8 +292,35 @@ public class RestClient {
         this.timeout = timeout;
         this.serverUrl = serverUrl;
 
-        restClient = buildRestClient(timeout, proxySettings);
+        rebuildClients();
+    }
+
+    /**
+     * Replaces the clients with ones built from the current settings, and
+     * closes the previous clients. Their connections are closed as well,
+     * unless they belong to a shared pool.
+     */
+    private void rebuildClients() {
+        Client previousRestClient = restClient;
+        CloseableHttpClient previousHttpClient = httpClient;
+
+        restClient = buildRestClient(timeout, proxySettings,
+                connectionPoolSettings);
+        httpClient = buildHttpClient(timeout, proxySettings,
+                connectionPoolSettings);
         endPoint = restClient.target(serverUrl);
+
+        if (previousRestClient != null) {
+            previousRestClient.close();
+        }
+        if (previousHttpClient != null) {
+            try {
+                previousHttpClient.close();
+            } catch (IOException e) {
+                logger.verbose("Failed to close the previous HTTP client: "
+                        + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -117,8 +343,7 @@ public class RestClient {
     public void setProxyBase(ProxySettings proxySettings) {
         this.proxySettings = proxySettings;
 
-        restClient = buildRestClient(timeout, proxySettings);
-        endPoint = restClient.target(serverUrl);
+        rebuildClients();
     }
 
     /**
@@ -131,6 +356,287 @@ public class RestClient {
         return proxySettings;
     }
 
+    /**
+     * Sets the connection pool to be used by the rest client. Rest clients
+     * with equal settings share the same pool of keep-alive connections.
+     * @param connectionPoolSettings The settings of the pool. If
+     * {@code null} then the rest client uses connections of its own.
+     */
+    public void setConnectionPoolBase(
+            ConnectionPoolSettings connectionPoolSettings) {
+        this.connectionPoolSettings = connectionPoolSettings;
+
+        rebuildClients();
+    }
+
+    /**
+     *
+     * @return The settings of the connection pool used by the rest client,
+     * or {@code null} if no shared pool is used.
+     */
+    public ConnectionPoolSettings getConnectionPoolBase() {
+        return connectionPoolSettings;
+    }
+
+    /**
+     * Sets the compression of request bodies sent by the rest client. When
+     * set, compressed responses are accepted as well.
+     * @param requestCompressionSettings The compression settings. If
+     * {@code null} then request bodies aren't compressed.
+     */
+    public void setRequestCompressionBase(
+            RequestCompressionSettings requestCompressionSettings) {
+        this.requestCompressionSettings = requestCompressionSettings;
+    }
+
+    /**
+     *
+     * @return The compression settings used by the rest client, or
+     * {@code null} if request bodies aren't compressed.
+     */
+    public RequestCompressionSettings getRequestCompressionBase() {
+        return requestCompressionSettings;
+    }
+
+    /**
+     * Sets the retrying of requests which failed due to transient errors.
+     * @param retrySettings The retry settings. If {@code null} then
+     * requests aren't retried.
+     */
+    public void setRetrySettingsBase(RetrySettings retrySettings) {
+        this.retrySettings = retrySettings;
+    }
+
+    /**
+     *
+     * @return The retry settings used by the rest client, or {@code null}
+     * if requests aren't retried.
+     */
+    public RetrySettings getRetrySettingsBase() {
+        return retrySettings;
+    }
+
+    /**
+     * Asks the server to compress the response, if compression is enabled.
+     * @param invocationBuilder The request to update.
+     * @return {@code invocationBuilder}.
+     */
+    protected Invocation.Builder acceptCompressed(
+            Invocation.Builder invocationBuilder) {
+        if (requestCompressionSettings != null) {
+            invocationBuilder.header(HttpHeaders.ACCEPT_ENCODING,
+                    GzipUtils.ACCEPT_ENCODING);
+        }
+        return invocationBuilder;
+    }
+
+    /**
+     * Asks the server to compress the response, if compression is enabled.
+     * @param request The request to update.
+     * @return {@code request}.
+     */
+    protected HttpRequest acceptCompressed(HttpRequest request) {
+        if (requestCompressionSettings != null) {
+            request.setHeader(HttpHeaders.ACCEPT_ENCODING,
+                    GzipUtils.ACCEPT_ENCODING);
+        }
+        return request;
+    }
+
+    /**
+     * Posts a JSON body (see {@link JsonRequestBody}).
+     * @param invocationBuilder The request to send.
+     * @param body The body of the request.
+     * @return The response.
+     */
+    protected Response postJson(Invocation.Builder invocationBuilder,
+                                JsonRequestBody body) {
+        acceptCompressed(invocationBuilder);
+        // The encoding is part of the entity's variant, since the variant
+        // replaces any "Content-Encoding" header set on the request.
+        return invocationBuilder.post(Entity.entity(body.getBytes(),
+                new Variant(MediaType.APPLICATION_JSON_TYPE, (String) null,
+                        body.getContentEncoding())));
+    }
+
+    /**
+     * Sends a request, retrying it on transient failures (see
+     * {@link RetrySettings}). Requests fail fast while the server's
+     * {@link CircuitBreaker} is open.
+     *
+     * @param method The request to send. Called once per attempt, so the
+     *               request's body should be prepared in advance.
+     * @param name The name of the request (for logging).
+     * @return The response of the last attempt.
+     * @throws ServerUnavailableException If the circuit breaker is open.
+     * @throws EyesException If interrupted while waiting to retry.
+     */
+    protected Response sendWithRetry(final HttpMethodCall method, String name)
+            throws EyesException {
+        return sendWithRetry(new RetriableCall<Response>() {
+            public Response call() {
+                return method.call();
+            }
+
+            public int getStatus(Response response) {
+                return response.getStatus();
+            }
+
+            public String getRetryAfter(Response response) {
+                return response.getHeaderString(HttpHeaders.RETRY_AFTER);
+            }
+
+            public void discard(Response response) {
+                response.close();
+            }
+        }, name);
+    }
+
+    /**
+     * Same as {@link #sendWithRetry(HttpMethodCall, String)}, except that the
+     * request is sent by the {@link #httpClient}.
+     *
+     * @param request The request to send. Its entity (if any) must be
+     *                repeatable.
+     * @param name The name of the request (for logging).
+     * @return The response of the last attempt.
+     * @throws ServerUnavailableException If the circuit breaker is open.
+     * @throws EyesException If the request failed, or if interrupted while
+     * waiting to retry.
+     */
+    protected HttpClientResponse sendWithRetry(final HttpUriRequest request,
+                                               String name)
+            throws EyesException {
+        return sendWithRetry(new RetriableCall<HttpClientResponse>() {
+            public HttpClientResponse call() {
+                return execute(request);
+            }
+
+            public int getStatus(HttpClientResponse response) {
+                return response.statusCode;
+            }
+
+            public String getRetryAfter(HttpClientResponse response) {
+                return response.retryAfter;
+            }
+
+            public void discard(HttpClientResponse response) {
+                // The response was already read.
+            }
+        }, name);
+    }
+
+    private <R> R sendWithRetry(RetriableCall<R> method, String name)
+            throws EyesException {
+        CircuitBreaker circuitBreaker = CircuitBreaker.forServer(serverUrl);
+        int maxAttempts =
+                retrySettings != null ? retrySettings.getMaxAttempts() : 1;
+
+        for (int attempt = 1; ; ++attempt) {
+            if (!circuitBreaker.allowRequest()) {
+                throw new ServerUnavailableException(String.format(
+                        "%s: Too many recent failures of %s, " +
+                                "request was not sent!", name, serverUrl));
+            }
+
+            R response;
+            int statusCode;
+            try {
+                response = method.call();
+                statusCode = method.getStatus(response);
+                if (!RetrySettings.isRetriableStatus(statusCode)) {
+                    circuitBreaker.recordSuccess();
+                } else if (!RetrySettings.isThrottlingStatus(statusCode)) {
+                    circuitBreaker.recordFailure();
+                }
+            } catch (RuntimeException e) {
+                circuitBreaker.recordFailure();
+                // The server might have handled the request, unless it
+                // couldn't even be sent.
+                if (attempt >= maxAttempts
+                        || !NetworkUtils.isConnectFailure(e)) {
+                    throw e;
+                }
+                logger.log(String.format("%s: Request failed (%s)", name,
+                        e.getMessage()));
+                waitBeforeRetry(name, attempt, -1);
+                continue;
+            } finally {
+                // A probe which was throttled (or failed with an Error)
+                // must still end, or the circuit would never close.
+                circuitBreaker.releaseProbe();
+            }
+
+            if (!RetrySettings.isRetriableStatus(statusCode)) {
+                return response;
+            }
+            if (attempt >= maxAttempts) {
+                // The caller reports the error from the response.
+                return response;
+            }
+            long retryAfter = NetworkUtils.getRetryAfterDelay(
+                    method.getRetryAfter(response),
+                    System.currentTimeMillis());
+            method.discard(response);
+            logger.log(String.format("%s: Server responded with %d", name,
+                    statusCode));
+            waitBeforeRetry(name, attempt, retryAfter);
+        }
+    }
+
+    /**
+     * Sends a request using the {@link #httpClient}, and reads its response.
+     *
+     * @param request The request to send.
+     * @return The response.
+     * @throws EyesException If the request failed.
+     */
+    private HttpClientResponse execute(HttpUriRequest request)
+            throws EyesException {
+        try {
+            CloseableHttpResponse response = httpClient.execute(request);
+            try {
+                StatusLine statusLine = response.getStatusLine();
+                HttpEntity entity = response.getEntity();
+                return new HttpClientResponse(statusLine.getStatusCode(),
+                        statusLine.getReasonPhrase(),
+                        getHeaderValue(response.getFirstHeader(
+                                HttpHeaders.CONTENT_ENCODING)),
+                        getHeaderValue(response.getFirstHeader(
+                                HttpHeaders.RETRY_AFTER)),
+                        entity != null ? EntityUtils.toByteArray(entity)
+                                : null);
+            } finally {
+                response.close();
+            }
+        } catch (IOException e) {
+            throw new EyesException(String.format("Request to %s failed!",
+                    request.getURI().getPath()), e);
+        }
+    }
+
+    private static String getHeaderValue(Header header) {
+        return header != null ? header.getValue() : null;
+    }
+
+    /**
+     * @param retryAfter The delay requested by the server (milliseconds),
+     *                   or -1 if none was requested.
+     */
+    private void waitBeforeRetry(String name, int attempt, long retryAfter)
+            throws EyesException {
+        long delay = retryAfter >= 0
+                ? Math.min(retryAfter, retrySettings.getMaxBackoff())
+                : retrySettings.getBackoff(attempt, jitterRandom);
+        logger.log(String.format("%s: Retrying in %d ms (attempt %d of %d)",
+                name, delay, attempt + 1, retrySettings.getMaxAttempts()));
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            throw new EyesException("Retry interrupted!", e);
+        }
+    }
+
     /**
      * Sets the connect and read timeouts for web requests.
      *
@@ -140,8 +646,7 @@ public class RestClient {
         ArgumentGuard.greaterThanOrEqualToZero(timeout, "timeout");
         this.timeout = timeout;
 
-        restClient = buildRestClient(timeout, proxySettings);
-        endPoint = restClient.target(serverUrl);
+        rebuildClients();
     }
 
     /**
@@ -173,35 +678,189 @@ public class RestClient {
         return serverUrl;
     }
 
+    /**
+     * Sends a long request, and polls the server until it's done. While the
+     * server is still processing the request it responds with 202, in which
+     * case the request is re-sent (or its "Location" is polled, if given).
+     *
+     * The polls are timed by a scheduler shared by all rest clients, and
+     * sent by a bounded pool of threads, so no thread is blocked between
+     * polls.
+     *
+     * @param method The request to send.
+     * @param name The name of the request (for logging).
+     * @param parser Parses the final response (called by a polling
+     *               thread).
+     * @param <T> The type of the result.
+     * @return A future for the parsed response. Cancelling the future stops
+     * the polling.
+     */
+    protected <T> Future<T> sendLongRequestAsync(HttpMethodCall method,
+                                                 String name,
+                                                 ResponseParser<T> parser) {
+        ArgumentGuard.notNull(method, "method");
+        ArgumentGuard.notNull(parser, "parser");
+
+        LongRequest<T> longRequest = new LongRequest<>(method, name, parser);
+        longRequest.schedulePoll(0);
+        return longRequest;
+    }
+
     protected Response sendLongRequest(HttpMethodCall method, String name)
             throws EyesException {
+        return waitForLongRequest(sendLongRequestAsync(method, name,
+                new ResponseParser<Response>() {
+                    public Response parse(Response response) {
+                        return response;
+                    }
+                }));
+    }
+
+    /**
+     * Waits for a long request to finish.
+     *
+     * @param longRequest The future of the request.
+     * @param <T> The type of the result.
+     * @return The result of the request.
+     * @throws EyesException If the request failed or was interrupted.
+     */
+    protected <T> T waitForLongRequest(Future<T> longRequest)
+            throws EyesException {
+        try {
+            return longRequest.get();
+        } catch (InterruptedException e) {
+            longRequest.cancel(false);
+            throw new EyesException("Long request interrupted!", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new EyesException("Long request failed!", e.getCause());
+        }
+    }
+
+    /**
+     * Polls the location of a long request, as given by the server.
+     *
+     * @param location The (absolute) location to poll.
+     * @return The response.
+     */
+    protected Response pollLongRequestLocation(URI location) {
+        return acceptCompressed(restClient.target(location)
+                .request(MediaType.APPLICATION_JSON)).get();
+    }
+
+    /**
+     * A long request which is polled until the server is done.
+     */
+    private class LongRequest<T> extends FutureTask<T> {
+        private final HttpMethodCall method;
+        private final String name;
+        private final ResponseParser<T> parser;
+        private final Runnable poll = new Runnable() {
+            public void run() {
+                poll();
+            }
+        };
+        // Run by the scheduler once the delay before the poll elapsed.
+        private final Runnable submitPoll = new Runnable() {
+            public void run() {
+                try {
+                    longRequestExecutor.execute(poll);
+                } catch (RejectedExecutionException e) {
+                    setException(e);
+                }
+            }
+        };
+
+        private int delay = LONG_REQUEST_INITIAL_DELAY;
+        private URI location;
+        private volatile ScheduledFuture<?> nextPoll;
+
+        public LongRequest(HttpMethodCall method, String name,
+                           ResponseParser<T> parser) {
+            // The result is set by polling, never by running the task.
+            super(new Runnable() {
+                public void run() {
+                }
+            }, null);
+            this.method = method;
+            this.name = name;
+            this.parser = parser;
+        }
+
+        public void schedulePoll(long pollDelay) {
+            try {
+                nextPoll = longRequestScheduler.schedule(submitPoll,
+                        pollDelay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                setException(e);
+            }
+        }
+
+        private void poll() {
+            if (isDone()) {
+                return;
+            }
+
+            Response response;
+            try {
+                response = location == null ? method.call() :
+                        pollLongRequestLocation(location);
+            } catch (Throwable e) {
+                setException(e);
+                return;
+            }
 
-        // Adding the long request headers
-        int maxDelay = 10000;
-        int delay = 2000;  // milliseconds
-        Response response;
-        while (true) {
-            response = method.call();
             if (response.getStatus() != 202) {
-                return response;
+                if (isCancelled()) {
+                    response.close();
+                    return;
+                }
+                try {
+                    set(parser.parse(response));
+                } catch (Throwable e) {
+                    setException(e);
+                }
+                return;
             }
 
+            String retryAfter = response.getHeaderString(HttpHeaders.RETRY_AFTER);
+            String newLocation = response.getHeaderString(HttpHeaders.LOCATION);
+
             // Since we haven't read the entity, We must release the response
             // or the connection stays open (meaning it'll get stuck after two
             // requests).
             response.close();
 
-            // Waiting a delay
-            logger.verbose(String.format(
-                    "%s: Still running... Retrying in %d ms", name, delay));
-            try {
-                Thread.sleep(delay);
-            } catch (InterruptedException e) {
-                throw new EyesException("Long request interrupted!", e);
+            if (newLocation != null) {
+                location = serverUrl.resolve(newLocation);
+            }
+
+            // The server's hint takes precedence over our own delay.
+            long pollDelay = NetworkUtils.getRetryAfterDelay(retryAfter,
+                    System.currentTimeMillis());
+            if (pollDelay < 0) {
+                pollDelay = delay;
+                // increasing the delay
+                delay = Math.min(LONG_REQUEST_MAX_DELAY,
+                        (int) Math.floor(delay * 1.5));
             }
 
-            // increasing the delay
-            delay = Math.min(maxDelay, (int) Math.floor(delay * 1.5));
+            logger.verbose(String.format(
+                    "%s: Still running... Retrying in %d ms", name,
+                    pollDelay));
+            schedulePoll(pollDelay);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean isCancelled = super.cancel(mayInterruptIfRunning);
+            ScheduledFuture<?> scheduledPoll = nextPoll;
+            if (isCancelled && scheduledPoll != null) {
+                scheduledPoll.cancel(false);
+            }
+            return isCancelled;
         }
     }
 
@@ -254,12 +913,64 @@ public class RestClient {
         ArgumentGuard.notNull(validHttpStatusCodes, "validHttpStatusCodes");
         ArgumentGuard.notNull(resultType, "resultType");
 
-        T resultObject;
         int statusCode = response.getStatus();
         String statusPhrase =
                 response.getStatusInfo().getReasonPhrase();
-        String data = response.readEntity(String.class);
+        String contentEncoding =
+                response.getHeaderString(HttpHeaders.CONTENT_ENCODING);
+        byte[] body = response.readEntity(byte[].class);
         response.close();
+
+        return parseJsonData(statusCode, statusPhrase, contentEncoding, body,
+                validHttpStatusCodes, resultType);
+    }
+
+    /**
+     * Same as
+     * {@link #parseResponseWithJsonData(Response, List, Class)}, for a
+     * response of the {@link #httpClient}.
+     *
+     * @param response The response to parse.
+     * @param validHttpStatusCodes The list of acceptable status codes.
+     * @param resultType The class object of the type of result this response
+     *                   should be parsed to.
+     * @param <T> The return value type.
+     * @return The parse response of the type given in {@code resultType}.
+     * @throws EyesException For invalid status codes or if the response
+     * parsing failed.
+     */
+    protected <T> T parseResponseWithJsonData(HttpClientResponse response,
+        List<Integer> validHttpStatusCodes, Class<T> resultType)
+            throws EyesException {
+        ArgumentGuard.notNull(response, "response");
+        ArgumentGuard.notNull(validHttpStatusCodes, "validHttpStatusCodes");
+        ArgumentGuard.notNull(resultType, "resultType");
+
+        return parseJsonData(response.statusCode, response.statusPhrase,
+                response.contentEncoding, response.body, validHttpStatusCodes,
+                resultType);
+    }
+
+    private <T> T parseJsonData(int statusCode, String statusPhrase,
+                                String contentEncoding, byte[] body,
+                                List<Integer> validHttpStatusCodes,
+                                Class<T> resultType) throws EyesException {
+        T resultObject;
+        if (statusPhrase == null) {
+            statusPhrase = "";
+        }
+        String data;
+        try {
+            // The response might be compressed, since we accept gzip.
+            data = new String(GzipUtils.decompress(
+                    body != null ? body : new byte[0], contentEncoding), UTF8);
+        } catch (IOException e) {
+            throw new EyesException(getReadResponseError(
+                    "Failed to decompress response body",
+                    statusCode,
+                    statusPhrase,
+                    contentEncoding), e);
+        }
         // Validate the status code.
         if (!validHttpStatusCodes.contains(statusCode)) {
             String errorMessage = getReadResponseError(
@@ -0,0 +1,639 @@
+package com.applitools.eyes.mockserver;
+
+import com.applitools.eyes.EyesException;
+import com.applitools.utils.ArgumentGuard;
+import com.applitools.utils.GzipUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An embeddable stand-in for the Eyes server, implementing the running
+ * sessions endpoints used by the server connectors: starting a session,
+ * matching a window (the length prefixed binary body, possibly gzipped) and
+ * stopping a session (202 until the results are ready, then 200).
+ * <p>
+ * Every window matches. Latency and errors can be injected, for
+ * benchmarking the connectors and testing their retry logic without network
+ * access. Built on the JDK's HTTP server, so it has no additional
+ * dependencies.
+ */
+public class MockEyesServer {
+
+    public static final String RUNNING_SESSIONS_PATH = "/api/sessions/running";
+
+    private static final String STATUS_PATH = "/status";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final Map<String, MockSession> sessions =
+            new ConcurrentHashMap<>();
+    private final AtomicInteger nextSessionId = new AtomicInteger();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger injectedErrorCount = new AtomicInteger();
+    private final AtomicInteger failNextRequests = new AtomicInteger();
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private final Random random = new Random();
+    private final int port;
+
+    private volatile int latency;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private volatile int pollsBeforeResults = 1;
+    private volatile int retryAfter = -1;
+    private volatile boolean useStatusLocation;
+    private volatile boolean compressResponses;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param port The port to listen on, or 0 for any free port.
+     */
+    public MockEyesServer(int port) {
+        ArgumentGuard.greaterThanOrEqualToZero(port, "port");
+        this.port = port;
+    }
+
+    /**
+     * Creates a server which listens on any free port.
+     */
+    public MockEyesServer() {
+        this(0);
+    }
+
+    /**
+     * Starts listening (on the loopback interface).
+     *
+     * @throws EyesException If the server couldn't be started.
+     */
+    public synchronized void start() {
+        if (server != null) {
+            throw new EyesException("Server is already running!");
+        }
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(
+                    InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new EyesException("Failed to start the mock server!", e);
+        }
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "eyes-mock-server-" +
+                        threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server.setExecutor(executor);
+        server.createContext(RUNNING_SESSIONS_PATH, new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    handleRequest(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Stops the server, without waiting for requests in progress.
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * @return The URL to use as the server URL of a connector.
+     * @throws EyesException If the server isn't running.
+     */
+    public synchronized URI getServerUrl() {
+        if (server == null) {
+            throw new EyesException("Server is not running!");
+        }
+        InetSocketAddress address = server.getAddress();
+        return URI.create(String.format("http://%s:%d/",
+                address.getHostString(), address.getPort()));
+    }
+
+    /**
+     * @param latency The time (ms) to wait before responding to each
+     *                request.
+     */
+    public void setLatency(int latency) {
+        ArgumentGuard.greaterThanOrEqualToZero(latency, "latency");
+        this.latency = latency;
+    }
+
+    /**
+     * @return The time (ms) to wait before responding to each request.
+     */
+    public int getLatency() {
+        return latency;
+    }
+
+    /**
+     * @param errorRate The probability (0 to 1) that a request fails with
+     *                  the error status.
+     */
+    public void setErrorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException(
+                    "errorRate must be between 0 and 1");
+        }
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * @return The probability (0 to 1) that a request fails with the error
+     * status.
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * @param errorStatus The status of injected errors (e.g., 500, 503).
+     */
+    public void setErrorStatus(int errorStatus) {
+        ArgumentGuard.greaterThanOrEqualToZero(errorStatus, "errorStatus");
+        this.errorStatus = errorStatus;
+    }
+
+    /**
+     * @return The status of injected errors.
+     */
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    /**
+     * Makes the next requests fail with the error status, regardless of the
+     * error rate.
+     *
+     * @param count The number of requests to fail.
+     */
+    public void failNextRequests(int count) {
+        ArgumentGuard.greaterThanOrEqualToZero(count, "count");
+        failNextRequests.set(count);
+    }
+
+    /**
+     * @param pollsBeforeResults The number of times a stop request (or a
+     *                           poll of its status) is answered with 202
+     *                           before the results are returned.
+     */
+    public void setPollsBeforeResults(int pollsBeforeResults) {
+        ArgumentGuard.greaterThanOrEqualToZero(pollsBeforeResults,
+                "pollsBeforeResults");
+        this.pollsBeforeResults = pollsBeforeResults;
+    }
+
+    /**
+     * @return The number of 202 responses before the results of a stop
+     * request are returned.
+     */
+    public int getPollsBeforeResults() {
+        return pollsBeforeResults;
+    }
+
+    /**
+     * @param retryAfter The "Retry-After" (seconds) of 202 and error
+     *                   responses, or a negative value for none.
+     */
+    public void setRetryAfter(int retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return The "Retry-After" (seconds) of 202 and error responses, or a
+     * negative value if none is sent.
+     */
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @param useStatusLocation If {@code true}, 202 responses to stop
+     *                          requests include a "Location" to poll instead
+     *                          of re-sending the request.
+     */
+    public void setUseStatusLocation(boolean useStatusLocation) {
+        this.useStatusLocation = useStatusLocation;
+    }
+
+    /**
+     * @return Whether 202 responses include a "Location" to poll.
+     */
+    public boolean getUseStatusLocation() {
+        return useStatusLocation;
+    }
+
+    /**
+     * @param compressResponses If {@code true}, responses are gzipped when
+     *                          the request accepts it.
+     */
+    public void setCompressResponses(boolean compressResponses) {
+        this.compressResponses = compressResponses;
+    }
+
+    /**
+     * @return Whether responses are gzipped when the request accepts it.
+     */
+    public boolean getCompressResponses() {
+        return compressResponses;
+    }
+
+    /**
+     * @return The sessions started so far, by their IDs.
+     */
+    public Map<String, MockSession> getSessions() {
+        return new HashMap<>(sessions);
+    }
+
+    /**
+     * @param id The session ID.
+     * @return The session, or {@code null} if there is no such session.
+     */
+    public MockSession getSession(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * @return The number of requests received (including failed ones).
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return The number of requests which were failed on purpose.
+     */
+    public int getInjectedErrorCount() {
+        return injectedErrorCount.get();
+    }
+
+    /**
+     * @return The total size of the request bodies received, as sent (i.e.,
+     * compressed, if they were).
+     */
+    public long getReceivedBytes() {
+        return receivedBytes.get();
+    }
+
+    /**
+     * Clears the sessions and the statistics.
+     */
+    public void reset() {
+        sessions.clear();
+        requestCount.set(0);
+        injectedErrorCount.set(0);
+        failNextRequests.set(0);
+        receivedBytes.set(0);
+    }
+
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+
+        // The body is always read, so the sent bytes are counted (and the
+        // connection can be reused) even if the request fails.
+        byte[] body = readToEnd(exchange.getRequestBody());
+        receivedBytes.addAndGet(body.length);
+
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        if (shouldInjectError()) {
+            injectedErrorCount.incrementAndGet();
+            addRetryAfter(exchange);
+            sendError(exchange, errorStatus, "Injected error");
+            return;
+        }
+
+        Map<String, String> query =
+                parseQuery(exchange.getRequestURI().getRawQuery());
+        if (query.get("apiKey") == null) {
+            sendError(exchange, 401, "Missing apiKey");
+            return;
+        }
+
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath()
+                .substring(RUNNING_SESSIONS_PATH.length());
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        try {
+            if (path.isEmpty()) {
+                if (method.equals("POST")) {
+                    startSession(exchange, body);
+                    return;
+                }
+            } else if (path.endsWith(STATUS_PATH)) {
+                MockSession session = getSessionByPath(exchange,
+                        path.substring(0,
+                                path.length() - STATUS_PATH.length()));
+                if (session == null) {
+                    return;
+                }
+                if (method.equals("GET")) {
+                    pollStopSession(exchange, session);
+                    return;
+                }
+            } else {
+                MockSession session = getSessionByPath(exchange, path);
+                if (session == null) {
+                    return;
+                }
+                if (method.equals("POST")) {
+                    matchWindow(exchange, session, body);
+                    return;
+                }
+                if (method.equals("DELETE")) {
+                    stopSession(exchange, session, query);
+                    return;
+                }
+            }
+            sendError(exchange, 405, "Method not allowed: " + method);
+        } catch (IOException | RuntimeException e) {
+            sendError(exchange, 400, "Bad request: " + e.getMessage());
+        }
+    }
+
+    private boolean shouldInjectError() {
+        while (true) {
+            int remaining = failNextRequests.get();
+            if (remaining == 0) {
+                break;
+            }
+            if (failNextRequests.compareAndSet(remaining, remaining - 1)) {
+                return true;
+            }
+        }
+        double rate = errorRate;
+        if (rate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < rate;
+        }
+    }
+
+    private MockSession getSessionByPath(HttpExchange exchange, String path)
+            throws IOException {
+        // Removing the leading "/".
+        MockSession session = sessions.get(path.substring(1));
+        if (session == null) {
+            sendError(exchange, 404, "No such session: " + path);
+        }
+        return session;
+    }
+
+    private void startSession(HttpExchange exchange, byte[] body)
+            throws IOException {
+        JsonNode startInfo = jsonMapper.readTree(decode(exchange, body))
+                .get("startInfo");
+        if (startInfo == null) {
+            throw new IOException("Missing startInfo");
+        }
+
+        String id = String.valueOf(nextSessionId.incrementAndGet());
+        MockSession session = new MockSession(id,
+                startInfo.path("scenarioIdOrName").asText(null),
+                startInfo.path("appIdOrName").asText(null));
+        sessions.put(id, session);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("url", getSessionUrl(exchange, id));
+        sendJson(exchange, 201, result);
+    }
+
+    private void matchWindow(HttpExchange exchange, MockSession session,
+                             byte[] body) throws IOException {
+        if (session.isStopped()) {
+            sendError(exchange, 400, "Session is stopped: " + session.getId());
+            return;
+        }
+
+        byte[] data = decode(exchange, body);
+        if (data.length < 4) {
+            throw new IOException("Missing match data length");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int jsonLength = buffer.getInt();
+        if (jsonLength < 0 || jsonLength > buffer.remaining()) {
+            throw new IOException("Invalid match data length: " +
+                    jsonLength);
+        }
+        JsonNode matchData = jsonMapper.readTree(
+                new String(data, 4, jsonLength, "UTF-8"));
+        int screenshotLength = buffer.remaining() - jsonLength;
+
+        session.addMatch(matchData.path("tag").asText(null),
+                screenshotLength);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("asExpected", true);
+        sendJson(exchange, 200, result);
+    }
+
+    private void stopSession(HttpExchange exchange, MockSession session,
+                             Map<String, String> query) throws IOException {
+        boolean isAborted = Boolean.parseBoolean(query.get("aborted"));
+        boolean isSaved = Boolean.parseBoolean(query.get("updateBaseline"));
+        if (session.stop(isAborted, isSaved, pollsBeforeResults)) {
+            sendTestResults(exchange, session);
+        } else {
+            sendAccepted(exchange, session);
+        }
+    }
+
+    private void pollStopSession(HttpExchange exchange, MockSession session)
+            throws IOException {
+        if (session.poll()) {
+            sendTestResults(exchange, session);
+        } else {
+            sendAccepted(exchange, session);
+        }
+    }
+
+    private void sendAccepted(HttpExchange exchange, MockSession session)
+            throws IOException {
+        if (useStatusLocation) {
+            exchange.getResponseHeaders().set("Location",
+                    RUNNING_SESSIONS_PATH + "/" + session.getId() +
+                            STATUS_PATH);
+        }
+        addRetryAfter(exchange);
+        exchange.sendResponseHeaders(202, -1);
+    }
+
+    private void sendTestResults(HttpExchange exchange, MockSession session)
+            throws IOException {
+        int steps = session.getMatchCount();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("steps", steps);
+        result.put("matches", steps);
+        result.put("mismatches", 0);
+        result.put("missing", 0);
+        result.put("exactMatches", 0);
+        result.put("strictMatches", steps);
+        result.put("contentMatches", 0);
+        result.put("layoutMatches", 0);
+        result.put("noneMatches", 0);
+        result.put("url", getSessionUrl(exchange, session.getId()));
+        result.put("new", false);
+        result.put("status", "Passed");
+        sendJson(exchange, 200, result);
+    }
+
+    private String getSessionUrl(HttpExchange exchange, String id) {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null) {
+            InetSocketAddress address = exchange.getLocalAddress();
+            host = address.getHostString() + ":" + address.getPort();
+        }
+        return "http://" + host + "/app/sessions/" + id;
+    }
+
+    private void addRetryAfter(HttpExchange exchange) {
+        if (retryAfter >= 0) {
+            exchange.getResponseHeaders().set("Retry-After",
+                    String.valueOf(retryAfter));
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message)
+            throws IOException {
+        sendBody(exchange, status, "text/plain",
+                message.getBytes("UTF-8"));
+    }
+
+    private void sendJson(HttpExchange exchange, int status,
+                          Map<String, Object> result) throws IOException {
+        sendBody(exchange, status, "application/json",
+                jsonMapper.writeValueAsBytes(result));
+    }
+
+    private void sendBody(HttpExchange exchange, int status,
+                          String contentType, byte[] body)
+            throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType);
+
+        String acceptEncoding =
+                exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (compressResponses && acceptEncoding != null &&
+                acceptEncoding.contains(GzipUtils.GZIP_ENCODING)) {
+            body = GzipUtils.compress(body);
+            headers.set("Content-Encoding", GzipUtils.GZIP_ENCODING);
+        }
+
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(body);
+        output.close();
+    }
+
+    private static byte[] decode(HttpExchange exchange, byte[] body)
+            throws IOException {
+        return GzipUtils.decompress(body,
+                exchange.getRequestHeaders().getFirst("Content-Encoding"));
+    }
+
+    private static byte[] readToEnd(InputStream input) throws IOException {
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } finally {
+            input.close();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery)
+            throws IOException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String param : rawQuery.split("&")) {
+            int separator = param.indexOf('=');
+            String name = separator == -1 ? param :
+                    param.substring(0, separator);
+            String value = separator == -1 ? "" :
+                    param.substring(separator + 1);
+            query.put(URLDecoder.decode(name, "UTF-8"),
+                    URLDecoder.decode(value, "UTF-8"));
+        }
+        return query;
+    }
+
+    /**
+     * Runs the server standalone, until the process is killed.
+     *
+     * @param args [port [latency [errorRate]]]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        MockEyesServer server = new MockEyesServer(args.length > 0 ?
+                Integer.parseInt(args[0]) : 0);
+        if (args.length > 1) {
+            server.setLatency(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            server.setErrorRate(Double.parseDouble(args[2]));
+        }
+        server.start();
+        System.out.println("Mock Eyes server listening on " +
+                server.getServerUrl());
+
+        // The request threads are daemons, so we keep the process alive.
+        Thread.currentThread().join();
+    }
+}
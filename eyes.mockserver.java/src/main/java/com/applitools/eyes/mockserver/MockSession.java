@@ -0,0 +1,144 @@
+package com.applitools.eyes.mockserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A running session, as recorded by the {@link MockEyesServer}.
+ */
+public class MockSession {
+
+    private final String id;
+    private final String testName;
+    private final String appName;
+    private final List<String> tags =
+            Collections.synchronizedList(new ArrayList<String>());
+
+    private long screenshotBytes;
+    private int pendingPolls;
+    private boolean isStopped;
+    private boolean isAborted;
+    private boolean isSaved;
+
+    MockSession(String id, String testName, String appName) {
+        this.id = id;
+        this.testName = testName;
+        this.appName = appName;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return The test name given when the session was started.
+     */
+    public String getTestName() {
+        return testName;
+    }
+
+    /**
+     * @return The application name given when the session was started.
+     */
+    public String getAppName() {
+        return appName;
+    }
+
+    /**
+     * @return The tags of the matched windows, in the order they were
+     * received.
+     */
+    public List<String> getTags() {
+        synchronized (tags) {
+            return new ArrayList<>(tags);
+        }
+    }
+
+    /**
+     * @return The number of matched windows.
+     */
+    public int getMatchCount() {
+        return tags.size();
+    }
+
+    /**
+     * @return The total size of the screenshots received (bytes).
+     */
+    public synchronized long getScreenshotBytes() {
+        return screenshotBytes;
+    }
+
+    /**
+     * @return Whether the session was stopped (i.e., its results were
+     * returned).
+     */
+    public synchronized boolean isStopped() {
+        return isStopped;
+    }
+
+    /**
+     * @return Whether the session was stopped as aborted.
+     */
+    public synchronized boolean isAborted() {
+        return isAborted;
+    }
+
+    /**
+     * @return Whether the session was stopped with a request to update the
+     * baseline.
+     */
+    public synchronized boolean isSaved() {
+        return isSaved;
+    }
+
+    void addMatch(String tag, int screenshotLength) {
+        synchronized (this) {
+            screenshotBytes += screenshotLength;
+        }
+        tags.add(tag);
+    }
+
+    /**
+     * Called for each stop request (or poll).
+     *
+     * @param pollsBeforeResults The number of polls to answer with 202
+     *                           before the results are ready.
+     * @return Whether the results are ready.
+     */
+    synchronized boolean stop(boolean isAborted, boolean isSaved,
+                              int pollsBeforeResults) {
+        if (!isStopped && pendingPolls == 0) {
+            // A new stop request.
+            this.isAborted = isAborted;
+            this.isSaved = isSaved;
+            pendingPolls = pollsBeforeResults + 1;
+        }
+        if (--pendingPolls > 0) {
+            return false;
+        }
+        pendingPolls = 0;
+        isStopped = true;
+        return true;
+    }
+
+    synchronized boolean poll() {
+        if (isStopped) {
+            return true;
+        }
+        if (pendingPolls == 0) {
+            throw new IllegalStateException("Session is not being stopped!");
+        }
+        if (--pendingPolls > 0) {
+            return false;
+        }
+        isStopped = true;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s/%s): %d matches", id, appName, testName,
+                getMatchCount());
+    }
+}
@@ -0,0 +1,141 @@
+package com.applitools.eyes.mockserver;
+
+import com.applitools.eyes.AppEnvironment;
+import com.applitools.eyes.AppOutput;
+import com.applitools.eyes.BatchInfo;
+import com.applitools.eyes.ImageMatchSettings;
+import com.applitools.eyes.Jersey2xServerConnector;
+import com.applitools.eyes.Logger;
+import com.applitools.eyes.MatchResult;
+import com.applitools.eyes.MatchWindowData;
+import com.applitools.eyes.PropertyData;
+import com.applitools.eyes.RequestCompressionSettings;
+import com.applitools.eyes.RetrySettings;
+import com.applitools.eyes.RunningSession;
+import com.applitools.eyes.SessionStartInfo;
+import com.applitools.eyes.SessionType;
+import com.applitools.eyes.TestResults;
+import com.applitools.eyes.TestResultsStatus;
+import com.applitools.eyes.Trigger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+
+/**
+ * Runs the Jersey 2.x connector against the mock server.
+ */
+@RunWith(JUnit4.class)
+public class TestJersey2xServerConnector {
+
+    private static final int SCREENSHOT_SIZE = 64 * 1024;
+
+    private MockEyesServer server;
+    private Jersey2xServerConnector connector;
+
+    @Before
+    public void setUp() {
+        server = new MockEyesServer();
+        server.start();
+        connector = new Jersey2xServerConnector(new Logger(), "eyes.java",
+                server.getServerUrl());
+        connector.setApiKey("key");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    private RunningSession startSession() {
+        SessionStartInfo startInfo = new SessionStartInfo("eyes.java",
+                SessionType.SEQUENTIAL, "app", null, "test",
+                new BatchInfo("batch"), null, null, new AppEnvironment(),
+                new ImageMatchSettings(), null, null,
+                new ArrayList<PropertyData>());
+        return connector.startSession(startInfo);
+    }
+
+    private void matchWindow(RunningSession runningSession, String tag) {
+        Trigger[] userInputs = new Trigger[0];
+        MatchWindowData data = new MatchWindowData(userInputs,
+                new AppOutput(tag, new byte[SCREENSHOT_SIZE]), tag, false,
+                new MatchWindowData.Options(tag, userInputs, false, false,
+                        false, false, new ImageMatchSettings()));
+        MatchResult result = connector.matchWindow(runningSession, data);
+        Assert.assertTrue(result.getAsExpected());
+    }
+
+    @Test
+    public void testRetryAfter() {
+        // The backoff is far longer than the test takes, so the retries can
+        // only be this quick if the "Retry-After" of the errors is used.
+        connector.setRetrySettings(new RetrySettings(3, 30000, 30000));
+        server.setErrorStatus(503);
+        server.setRetryAfter(0);
+        long start = System.currentTimeMillis();
+
+        server.failNextRequests(2);
+        RunningSession runningSession = startSession();
+        Assert.assertEquals(3, server.getRequestCount());
+
+        server.failNextRequests(2);
+        matchWindow(runningSession, "check");
+        Assert.assertEquals(6, server.getRequestCount());
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 30000);
+        Assert.assertEquals(4, server.getInjectedErrorCount());
+        Assert.assertEquals(1,
+                server.getSession(runningSession.getId()).getMatchCount());
+    }
+
+    @Test
+    public void testStopSessionPollsStatusLocation() {
+        server.setPollsBeforeResults(2);
+        server.setUseStatusLocation(true);
+        server.setRetryAfter(0);
+
+        RunningSession runningSession = startSession();
+        matchWindow(runningSession, "first");
+        matchWindow(runningSession, "second");
+        int requestCount = server.getRequestCount();
+
+        TestResults results =
+                connector.stopSession(runningSession, false, true);
+        Assert.assertEquals(2, results.getSteps());
+        Assert.assertEquals(TestResultsStatus.Passed, results.getStatus());
+        // The stop request, and a poll of the location per pending result.
+        Assert.assertEquals(requestCount + 3, server.getRequestCount());
+
+        MockSession session = server.getSession(runningSession.getId());
+        Assert.assertTrue(session.isStopped());
+        Assert.assertTrue(session.isSaved());
+        Assert.assertFalse(session.isAborted());
+    }
+
+    @Test
+    public void testCompressedBodies() {
+        connector.setRequestCompression(new RequestCompressionSettings(0));
+        server.setCompressResponses(true);
+
+        RunningSession runningSession = startSession();
+        matchWindow(runningSession, "first");
+        matchWindow(runningSession, "second");
+        TestResults results =
+                connector.stopSession(runningSession, false, false);
+        Assert.assertEquals(2, results.getSteps());
+
+        MockSession session = server.getSession(runningSession.getId());
+        Assert.assertEquals(2 * SCREENSHOT_SIZE, session.getScreenshotBytes());
+        // The mock rejects bodies it can't decode, so the gzipped requests
+        // got through intact. Screenshots are stored (not re-compressed) in
+        // the gzip stream.
+        Assert.assertTrue(
+                server.getReceivedBytes() > 2 * SCREENSHOT_SIZE);
+        Assert.assertFalse(session.isSaved());
+    }
+}
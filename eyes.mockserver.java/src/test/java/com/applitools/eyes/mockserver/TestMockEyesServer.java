@@ -0,0 +1,203 @@
+package com.applitools.eyes.mockserver;
+
+import com.applitools.eyes.AppOutput;
+import com.applitools.eyes.ImageMatchSettings;
+import com.applitools.eyes.MatchWindowData;
+import com.applitools.eyes.MatchWindowRequestBody;
+import com.applitools.eyes.RequestCompressionSettings;
+import com.applitools.eyes.Trigger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+@RunWith(JUnit4.class)
+public class TestMockEyesServer {
+
+    private static final String START_INFO =
+            "{\"startInfo\":{\"appIdOrName\":\"app\"," +
+                    "\"scenarioIdOrName\":\"test\"}}";
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private MockEyesServer server;
+
+    @Before
+    public void setUp() {
+        server = new MockEyesServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    private HttpURLConnection open(String method, String path)
+            throws IOException {
+        URL url = server.getServerUrl().resolve(
+                MockEyesServer.RUNNING_SESSIONS_PATH + path +
+                        (path.contains("?") ? "&" : "?") + "apiKey=key")
+                .toURL();
+        HttpURLConnection connection =
+                (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        return connection;
+    }
+
+    private static void send(HttpURLConnection connection, byte[] body)
+            throws IOException {
+        connection.setDoOutput(true);
+        OutputStream output = connection.getOutputStream();
+        output.write(body);
+        output.close();
+    }
+
+    private JsonNode readJson(HttpURLConnection connection)
+            throws IOException {
+        InputStream input = connection.getInputStream();
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                output.write(buffer, 0, count);
+            }
+            return jsonMapper.readTree(output.toByteArray());
+        } finally {
+            input.close();
+        }
+    }
+
+    private String startSession() throws IOException {
+        HttpURLConnection connection = open("POST", "");
+        send(connection, START_INFO.getBytes("UTF-8"));
+        Assert.assertEquals(201, connection.getResponseCode());
+        return readJson(connection).get("id").asText();
+    }
+
+    private int matchWindow(String sessionId, String tag,
+                            RequestCompressionSettings compression)
+            throws IOException {
+        Trigger[] userInputs = new Trigger[0];
+        MatchWindowData data = new MatchWindowData(userInputs,
+                new AppOutput(tag, new byte[2048]), tag, false,
+                new MatchWindowData.Options(tag, userInputs, false, false,
+                        false, false, new ImageMatchSettings()));
+        MatchWindowRequestBody body =
+                new MatchWindowRequestBody(jsonMapper, data, compression);
+
+        HttpURLConnection connection = open("POST", "/" + sessionId);
+        if (body.getContentEncoding() != null) {
+            connection.setRequestProperty("Content-Encoding",
+                    body.getContentEncoding());
+        }
+        connection.setDoOutput(true);
+        OutputStream output = connection.getOutputStream();
+        body.writeTo(output);
+        output.close();
+
+        int status = connection.getResponseCode();
+        if (status == 200) {
+            Assert.assertTrue(readJson(connection).get("asExpected")
+                    .asBoolean());
+        }
+        return status;
+    }
+
+    @Test
+    public void testSessionLifecycle() throws IOException {
+        server.setPollsBeforeResults(2);
+        String sessionId = startSession();
+
+        Assert.assertEquals(200, matchWindow(sessionId, "first", null));
+        Assert.assertEquals(200, matchWindow(sessionId, "second",
+                new RequestCompressionSettings(0)));
+
+        MockSession session = server.getSession(sessionId);
+        Assert.assertEquals("test", session.getTestName());
+        Assert.assertEquals("app", session.getAppName());
+        Assert.assertEquals(2, session.getMatchCount());
+        Assert.assertEquals("second", session.getTags().get(1));
+        Assert.assertEquals(4096, session.getScreenshotBytes());
+
+        String stopPath = "/" + sessionId +
+                "?aborted=false&updateBaseline=true";
+        Assert.assertEquals(202,
+                open("DELETE", stopPath).getResponseCode());
+        Assert.assertEquals(202,
+                open("DELETE", stopPath).getResponseCode());
+        Assert.assertFalse(session.isStopped());
+
+        HttpURLConnection connection = open("DELETE", stopPath);
+        Assert.assertEquals(200, connection.getResponseCode());
+        JsonNode results = readJson(connection);
+        Assert.assertEquals(2, results.get("steps").asInt());
+        Assert.assertEquals("Passed", results.get("status").asText());
+        Assert.assertTrue(session.isStopped());
+        Assert.assertTrue(session.isSaved());
+        Assert.assertFalse(session.isAborted());
+    }
+
+    @Test
+    public void testStopSessionWithStatusLocation() throws IOException {
+        server.setPollsBeforeResults(1);
+        server.setUseStatusLocation(true);
+        server.setRetryAfter(0);
+        String sessionId = startSession();
+
+        HttpURLConnection connection = open("DELETE", "/" + sessionId);
+        Assert.assertEquals(202, connection.getResponseCode());
+        Assert.assertEquals("0", connection.getHeaderField("Retry-After"));
+        String location = connection.getHeaderField("Location");
+        Assert.assertEquals(MockEyesServer.RUNNING_SESSIONS_PATH + "/" +
+                sessionId + "/status", location);
+
+        connection = open("GET", location.substring(
+                MockEyesServer.RUNNING_SESSIONS_PATH.length()));
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertEquals(0, readJson(connection).get("steps").asInt());
+    }
+
+    @Test
+    public void testInjectedErrors() throws IOException {
+        server.setErrorStatus(503);
+        server.failNextRequests(2);
+
+        Assert.assertEquals(503, open("POST", "").getResponseCode());
+        Assert.assertEquals(503, open("POST", "").getResponseCode());
+        String sessionId = startSession();
+        Assert.assertEquals(200, matchWindow(sessionId, "check", null));
+
+        server.setErrorRate(1);
+        Assert.assertEquals(503, matchWindow(sessionId, "check", null));
+        Assert.assertEquals(3, server.getInjectedErrorCount());
+        Assert.assertEquals(1, server.getSession(sessionId).getMatchCount());
+    }
+
+    @Test
+    public void testInvalidRequests() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) server
+                .getServerUrl().resolve(MockEyesServer.RUNNING_SESSIONS_PATH)
+                .toURL().openConnection();
+        // Missing API key.
+        Assert.assertEquals(401, connection.getResponseCode());
+
+        Assert.assertEquals(404, open("DELETE", "/missing").getResponseCode());
+
+        String sessionId = startSession();
+        connection = open("POST", "/" + sessionId);
+        send(connection, new byte[]{0, 0, 1, 0});
+        Assert.assertEquals(400, connection.getResponseCode());
+    }
+}
@@ -0,0 +1,134 @@
+package com.applitools.eyes;
+
+import com.applitools.eyes.exceptions.TestFailedException;
+import com.applitools.utils.ArgumentGuard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Closes many open tests (e.g., at the end of a batch) concurrently,
+ * instead of closing them one after the other.
+ *
+ * Closing a test doesn't throw on failed or new tests. Instead, the
+ * exceptions are collected into a {@link TestResultsSummary}. Disabled
+ * tests are skipped.
+ */
+public class BatchCloser {
+
+    private static final int DEFAULT_PARALLELISM = 10;
+
+    private final int parallelism;
+
+    /**
+     * @param parallelism The maximum number of tests closed concurrently.
+     */
+    public BatchCloser(int parallelism) {
+        ArgumentGuard.greaterThanZero(parallelism, "parallelism");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Closes up to 10 tests concurrently.
+     */
+    public BatchCloser() {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Closes the given tests. Returns once all of them are closed.
+     *
+     * @param eyesInstances The Eyes instances of the tests to close.
+     * @return The results of the tests, in the order of
+     * {@code eyesInstances}.
+     * @throws EyesException If interrupted while waiting for the tests to
+     * close.
+     */
+    public TestResultsSummary closeAll(
+            Collection<? extends EyesBase> eyesInstances) {
+        ArgumentGuard.notNull(eyesInstances, "eyesInstances");
+
+        List<TestResultContainer> results =
+                new ArrayList<>(eyesInstances.size());
+        if (eyesInstances.isEmpty()) {
+            return new TestResultsSummary(results);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(parallelism, eyesInstances.size()),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "eyes-batch-closer");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        try {
+            List<Future<TestResultContainer>> futures =
+                    new ArrayList<>(eyesInstances.size());
+            for (final EyesBase eyes : eyesInstances) {
+                futures.add(executor.submit(
+                        new Callable<TestResultContainer>() {
+                            public TestResultContainer call() {
+                                return close(eyes);
+                            }
+                        }));
+            }
+
+            for (Future<TestResultContainer> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // close() returns the exceptions, except for Errors.
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    results.add(new TestResultContainer(null, null,
+                            e.getCause()));
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new EyesException(
+                    "Interrupted while closing the tests!", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new TestResultsSummary(results);
+    }
+
+    /**
+     * Closes a single test. Exceptions (other than Errors) are returned
+     * rather than thrown.
+     */
+    private static TestResultContainer close(EyesBase eyes) {
+        // The names are reset when the test is closed.
+        String testName = "'" + eyes.getTestName() + "' of '"
+                + eyes.getAppName() + "'";
+        if (eyes.getIsDisabled()) {
+            // Closing a disabled test does nothing, and has no results.
+            return new TestResultContainer(testName, null, null);
+        }
+        try {
+            return new TestResultContainer(testName, eyes.close(true), null);
+        } catch (TestFailedException e) {
+            // Failed, new and tests with diffs.
+            return new TestResultContainer(testName, e.getTestResults(), e);
+        } catch (RuntimeException e) {
+            eyes.abortIfNotClosed();
+            return new TestResultContainer(testName, null, e);
+        }
+    }
+}
@@ -17,7 +17,6 @@ import com.applitools.eyes.triggers.MouseAction;
 import com.applitools.eyes.triggers.MouseTrigger;
 import com.applitools.eyes.triggers.TextTrigger;
 import com.applitools.utils.*;
-import org.apache.commons.codec.binary.Base64;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
@@ -27,6 +26,8 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Applitools Eyes Base for Java API .
@@ -34,6 +35,7 @@ import java.util.Queue;
 public abstract class EyesBase {
 
     private static final int DEFAULT_MATCH_TIMEOUT = 2000; // Milliseconds
+    private static final int DEFAULT_MAX_QUEUED_CHECKS = 3;
     protected static final int USE_DEFAULT_TIMEOUT = -1;
 
     private boolean shouldMatchWindowRunOnceOnTimeout;
@@ -89,6 +91,35 @@ public abstract class EyesBase {
     private boolean isViewportSizeSet;
     protected int stitchingOverlap = 50;
 
+    // The PNG bytes per pixel of the last encoded screenshot. Used as the
+    // size budget for the delta compression, so we only have to encode a
+    // screenshot as PNG when the compression didn't pay off.
+    private double encodedBytesPerPixel;
+    // The number of screenshots which were delta compressed since the
+    // estimate above was last updated.
+    private int checksSinceEncodedBytesPerPixel;
+    // The screenshot content changes during a session, so the estimate is
+    // refreshed by encoding a PNG every this many checks.
+    private static final int ENCODED_BYTES_PER_PIXEL_REFRESH_INTERVAL = 10;
+
+    // Checks which are matched in the background (see setQueuedChecks).
+    private boolean queuedChecks;
+    private int maxQueuedChecks = DEFAULT_MAX_QUEUED_CHECKS;
+    private final List<PendingMatch> pendingMatches = new ArrayList<>();
+
+    /**
+     * A check which was sent to the server in the background.
+     */
+    private static class PendingMatch {
+        private final String tag;
+        private final Future<MatchResult> result;
+
+        public PendingMatch(String tag, Future<MatchResult> result) {
+            this.tag = tag;
+            this.result = result;
+        }
+    }
+
     /**
      * Creates a new {@code EyesBase}instance that interacts with the Eyes
      * Server at the specified url.
@@ -208,6 +239,66 @@ public abstract class EyesBase {
         return serverConnector.getProxy();
     }
 
+    /**
+     * Sets a pool of keep-alive connections to the server, which is shared
+     * by all the Eyes instances (in this process) configured with equal
+     * settings. Useful when running many tests in parallel.
+     * @param connectionPoolSettings The settings of the pool. If
+     *                               {@code null} then no shared pool is used.
+     */
+    public void setConnectionPool(
+            ConnectionPoolSettings connectionPoolSettings) {
+        serverConnector.setConnectionPool(connectionPoolSettings);
+    }
+
+    /**
+     * @return The settings of the shared connection pool used by the server
+     * connector, or {@code null} if no shared pool is used.
+     */
+    public ConnectionPoolSettings getConnectionPool() {
+        return serverConnector.getConnectionPool();
+    }
+
+    /**
+     * Sets the compression of request bodies sent to the Eyes server.
+     * Useful when the connection to the server is slow (e.g., via a proxy).
+     *
+     * @param requestCompressionSettings The compression settings. If
+     *                                   {@code null} then request bodies
+     *                                   aren't compressed.
+     */
+    public void setRequestCompression(
+            RequestCompressionSettings requestCompressionSettings) {
+        serverConnector.setRequestCompression(requestCompressionSettings);
+    }
+
+    /**
+     * @return The compression settings used by the server connector, or
+     * {@code null} if request bodies aren't compressed.
+     */
+    public RequestCompressionSettings getRequestCompression() {
+        return serverConnector.getRequestCompression();
+    }
+
+    /**
+     * Sets the retrying of requests to the Eyes server which failed due to
+     * transient errors (by default, requests are sent up to 3 times).
+     *
+     * @param retrySettings The retry settings. If {@code null} then
+     *                      requests aren't retried.
+     */
+    public void setRetrySettings(RetrySettings retrySettings) {
+        serverConnector.setRetrySettings(retrySettings);
+    }
+
+    /**
+     * @return The retry settings used by the server connector, or
+     * {@code null} if requests aren't retried.
+     */
+    public RetrySettings getRetrySettings() {
+        return serverConnector.getRetrySettings();
+    }
+
     /**
      * @param isDisabled If true, all interactions with this API will be
      *                   silently ignored.
@@ -237,6 +328,13 @@ public abstract class EyesBase {
         return currentAppName != null ? currentAppName : appName;
     }
 
+    /**
+     * @return The name of the current (or last) test.
+     */
+    public String getTestName() {
+        return testName;
+    }
+
     /**
      * Sets the branch in which the baseline for subsequent test runs resides.
      * If the branch does not already exist it will be created under the
@@ -390,6 +488,48 @@ public abstract class EyesBase {
         return failureReports;
     }
 
+    /**
+     * Sets whether checks can be matched in the background. A check is
+     * queued if its result isn't needed right away: failure reports are not
+     * {@link FailureReports#IMMEDIATE} (so mismatches are only reported on
+     * {@link #close()}), and the check is matched in a single attempt (e.g.,
+     * the match timeout is 0). The test continues while the screenshot is
+     * uploaded, and {@link #close()} waits for the queued checks to complete.
+     * The checks of a session are sent in order, and a check blocks while
+     * {@link #getMaxQueuedChecks()} checks are pending.
+     * <p>
+     * The result returned for a queued check is always a match.
+     * @param queuedChecks Whether checks can be queued.
+     */
+    public void setQueuedChecks(boolean queuedChecks) {
+        this.queuedChecks = queuedChecks;
+    }
+
+    /**
+     * @return Whether checks can be matched in the background.
+     */
+    public boolean getQueuedChecks() {
+        return queuedChecks;
+    }
+
+    /**
+     * Sets the maximum number of queued checks (see
+     * {@link #setQueuedChecks(boolean)}) which weren't sent yet. Bounds the
+     * memory held by the pending screenshots.
+     * @param maxQueuedChecks The maximum number of pending checks.
+     */
+    public void setMaxQueuedChecks(int maxQueuedChecks) {
+        ArgumentGuard.greaterThanZero(maxQueuedChecks, "maxQueuedChecks");
+        this.maxQueuedChecks = maxQueuedChecks;
+    }
+
+    /**
+     * @return The maximum number of pending queued checks.
+     */
+    public int getMaxQueuedChecks() {
+        return maxQueuedChecks;
+    }
+
     /**
      * Updates the match settings to be used for the session.
      * @param defaultMatchSettings The match settings to be used for the session.
@@ -650,6 +790,8 @@ public abstract class EyesBase {
             boolean isNewSession = runningSession.getIsNewSession();
             String sessionResultsUrl = runningSession.getUrl();
 
+            completePendingMatches();
+
             logger.verbose("Ending server session...");
             boolean save = (isNewSession && saveNewTests)
                     || (!isNewSession && saveFailedTests);
@@ -793,6 +935,8 @@ public abstract class EyesBase {
                 return;
             }
 
+            cancelPendingMatches();
+
             logger.verbose("Aborting server session...");
             try {
                 // When aborting we do not save the test.
@@ -1061,6 +1205,22 @@ public abstract class EyesBase {
 
         self.ensureRunningSession();
 
+        if (self.shouldQueueMatch(retryTimeout)) {
+            self.logger.verbose("Queueing match window...");
+
+            MatchWindowTask.QueuedMatch queuedMatch = self.matchWindowTask.matchWindowAsync(
+                    self.getUserInputs(), regionProvider.getRegion(), tag, self.shouldMatchWindowRunOnceOnTimeout,
+                    ignoreMismatch, checkSettingsInternal, imageMatchSettings, retryTimeout);
+            self.pendingMatches.add(new PendingMatch(tag, queuedMatch.getResult()));
+
+            // The actual result is only checked on close. The screenshot is
+            // still needed for the triggers of the next check.
+            result = new MatchResult();
+            result.setAsExpected(true);
+            result.setScreenshot(queuedMatch.getScreenshot());
+            return result;
+        }
+
         self.logger.verbose("Calling match window...");
 
         result = self.matchWindowTask.matchWindow(self.getUserInputs(), regionProvider.getRegion(), tag,
@@ -1069,6 +1229,80 @@ public abstract class EyesBase {
         return result;
     }
 
+    /**
+     * @param retryTimeout The retry timeout of the check (negative for the
+     *                     default match timeout).
+     * @return Whether the check can be matched in the background.
+     */
+    private boolean shouldQueueMatch(int retryTimeout) {
+        if (!queuedChecks || getFailureReports() == FailureReports.IMMEDIATE) {
+            return false;
+        }
+
+        // Retrying requires the result of each match attempt.
+        if (retryTimeout < 0) {
+            retryTimeout = getMatchTimeout();
+        }
+        return retryTimeout == 0 || shouldMatchWindowRunOnceOnTimeout;
+    }
+
+    /**
+     * Waits for the queued checks to complete, and reports their mismatches.
+     * @throws EyesException If a queued check failed (in which case the
+     * session is aborted).
+     */
+    private void completePendingMatches() {
+        if (pendingMatches.isEmpty()) {
+            return;
+        }
+
+        logger.verbose(String.format("Waiting for %d queued checks...",
+                pendingMatches.size()));
+        try {
+            for (PendingMatch pendingMatch : pendingMatches) {
+                MatchResult result;
+                try {
+                    result = pendingMatch.result.get();
+                } catch (InterruptedException e) {
+                    throw new EyesException(
+                            "Interrupted while waiting for queued checks!", e);
+                } catch (ExecutionException e) {
+                    throw new EyesException(String.format(
+                            "Queued check '%s' failed!", pendingMatch.tag),
+                            e.getCause());
+                }
+
+                if (!result.getAsExpected()
+                        && !runningSession.getIsNewSession()) {
+                    logger.log(String.format("Mismatch! (%s)",
+                            pendingMatch.tag));
+                }
+            }
+        } catch (EyesException e) {
+            cancelPendingMatches();
+            logger.log("Aborting server session: " + e.getMessage());
+            try {
+                serverConnector.stopSession(runningSession, true, false);
+            } catch (EyesException ex) {
+                logger.log(
+                        "Failed to abort server session: " + ex.getMessage());
+            }
+            throw e;
+        }
+        pendingMatches.clear();
+        logger.verbose("Done!");
+    }
+
+    /**
+     * Cancels the queued checks which weren't sent yet.
+     */
+    private void cancelPendingMatches() {
+        for (PendingMatch pendingMatch : pendingMatches) {
+            pendingMatch.result.cancel(false);
+        }
+        pendingMatches.clear();
+    }
+
     private void validateResult(String tag, MatchResult result) {
         if (result.getAsExpected()) {
             return;
@@ -1337,6 +1571,14 @@ public abstract class EyesBase {
      */
     protected abstract String getTitle();
 
+    /**
+     * @return A resolver for the regions of many region providers at once, or
+     * {@code null} if each provider resolves its own region.
+     */
+    protected BulkRegionResolver getBulkRegionResolver() {
+        return null;
+    }
+
     // FIXME add "GetScreenshotUrl"
     // FIXME add CloseOrAbort ??
 
@@ -1546,7 +1788,7 @@ public abstract class EyesBase {
         }
 
         logger.verbose("Compressing screenshot...");
-        String compressResult = compressScreenshot64(screenshot, lastScreenshot);
+        byte[] compressResult = compressScreenshot(screenshot, lastScreenshot);
         logger.verbose("Done! Getting title...");
         String title = getTitle();
         logger.verbose("Done!");
@@ -1559,28 +1801,59 @@ public abstract class EyesBase {
      * Compresses a given screenshot.
      * @param screenshot     The screenshot to compress.
      * @param lastScreenshot The previous screenshot, or null.
-     * @return A base64 encoded compressed screenshot.
+     * @return The compressed screenshot's bytes.
      */
-    private String compressScreenshot64(EyesScreenshot screenshot,
-                                        EyesScreenshot lastScreenshot) {
+    private byte[] compressScreenshot(EyesScreenshot screenshot,
+                                      EyesScreenshot lastScreenshot) {
 
         ArgumentGuard.notNull(screenshot, "screenshot");
 
         BufferedImage screenshotImage = screenshot.getImage();
-        byte[] uncompressed = ImageUtils.encodeAsPng(screenshotImage);
+        long pixelsCount = (long) screenshotImage.getWidth() *
+                screenshotImage.getHeight();
 
         BufferedImage source = (lastScreenshot != null) ?
                 lastScreenshot.getImage() : null;
 
         // Compressing the screenshot
-        byte[] compressedScreenshot;
+        byte[] compressedScreenshot = null;
         try {
-            compressedScreenshot = ImageDeltaCompressor.compressByRawBlocks(
-                    screenshotImage, uncompressed, source);
+            // If we know (roughly) how large the PNG is going to be, we try
+            // the delta compression first, and only encode the PNG if the
+            // compression exceeds that size.
+            boolean isEstimateValid = encodedBytesPerPixel > 0 &&
+                    checksSinceEncodedBytesPerPixel <
+                            ENCODED_BYTES_PER_PIXEL_REFRESH_INTERVAL;
+            boolean isDeltaAttempted = false;
+            if (source != null && isEstimateValid) {
+                isDeltaAttempted = true;
+                long maxBytesCount = (long) Math.ceil(
+                        encodedBytesPerPixel * pixelsCount);
+                compressedScreenshot = ImageDeltaCompressor.compressByRawBlocks(
+                        screenshotImage, source, maxBytesCount);
+                logger.verbose(compressedScreenshot != null ?
+                        "Delta compression is within the estimated PNG size." :
+                        "Delta compression not used, encoding PNG.");
+            }
+
+            if (compressedScreenshot == null) {
+                byte[] uncompressed = ImageUtils.encodeAsPng(screenshotImage);
+                encodedBytesPerPixel = uncompressed.length / (double) pixelsCount;
+                checksSinceEncodedBytesPerPixel = 0;
+
+                // When we don't have an estimate (or it's refreshed), we
+                // compare the compression against the actual PNG.
+                compressedScreenshot = (source != null && !isDeltaAttempted) ?
+                        ImageDeltaCompressor.compressByRawBlocks(
+                                screenshotImage, uncompressed, source) :
+                        uncompressed;
+            } else {
+                ++checksSinceEncodedBytesPerPixel;
+            }
         } catch (IOException e) {
             throw new EyesException("Failed to compress screenshot!", e);
         }
 
-        return Base64.encodeBase64String(compressedScreenshot);
+        return compressedScreenshot;
     }
 }
@@ -0,0 +1,135 @@
+package com.applitools.eyes;
+
+import com.applitools.utils.ArgumentGuard;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A queue of "matchWindow" requests of a single running session, which are
+ * sent in the background, in order. The number of pending requests is
+ * bounded: adding a request blocks while the queue is full, so capturing
+ * can't outpace the uploads (and hold an unbounded number of screenshots).
+ */
+public class MatchWindowQueue {
+
+    private static final int WORKER_KEEP_ALIVE = 1000; // ms
+
+    private final ServerConnector serverConnector;
+    private final RunningSession runningSession;
+    private final Logger logger;
+    // Permits for the requests which are queued or being sent.
+    private final Semaphore pendingSlots;
+    // A single worker, so the requests are sent in order.
+    private final ThreadPoolExecutor worker;
+
+    /**
+     * @param logger          A logger instance.
+     * @param serverConnector The connector to send the requests with.
+     * @param runningSession  The session to which the requests belong.
+     * @param maxPending      The maximum number of requests which are queued
+     *                        or being sent.
+     */
+    public MatchWindowQueue(Logger logger, ServerConnector serverConnector,
+                            RunningSession runningSession, int maxPending) {
+        ArgumentGuard.notNull(logger, "logger");
+        ArgumentGuard.notNull(serverConnector, "serverConnector");
+        ArgumentGuard.notNull(runningSession, "runningSession");
+        ArgumentGuard.greaterThanZero(maxPending, "maxPending");
+
+        this.logger = logger;
+        this.serverConnector = serverConnector;
+        this.runningSession = runningSession;
+        this.pendingSlots = new Semaphore(maxPending);
+
+        worker = new ThreadPoolExecutor(1, 1, WORKER_KEEP_ALIVE,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "eyes-match-window-queue");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        // The worker thread exits when the queue is idle.
+        worker.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Adds a request to the queue. Blocks while the queue is full.
+     *
+     * @param matchData The data of the request.
+     * @return A future for the results of the window matching. Cancelling
+     * the future removes the request from the queue (if it wasn't sent yet).
+     * @throws EyesException If interrupted while waiting for the queue.
+     */
+    public Future<MatchResult> add(final MatchWindowData matchData) {
+        ArgumentGuard.notNull(matchData, "matchData");
+
+        if (!pendingSlots.tryAcquire()) {
+            logger.verbose("Queue is full, waiting for pending uploads...");
+            try {
+                pendingSlots.acquire();
+            } catch (InterruptedException e) {
+                throw new EyesException(
+                        "Interrupted while waiting for pending uploads!", e);
+            }
+            logger.verbose("Done waiting!");
+        }
+
+        FutureTask<MatchResult> request = new FutureTask<MatchResult>(
+                new Callable<MatchResult>() {
+                    public MatchResult call() {
+                        return serverConnector.matchWindow(runningSession,
+                                matchData);
+                    }
+                }) {
+            @Override
+            protected void done() {
+                // Called once the request completed, failed or was
+                // cancelled.
+                pendingSlots.release();
+            }
+        };
+        worker.execute(request);
+        return request;
+    }
+
+    /**
+     * Adds a request to the queue, and waits for its result. Used for the
+     * matches which can't be queued (e.g., retried ones): the server decodes
+     * each screenshot against the one it received before, so these must be
+     * sent after the queued requests.
+     *
+     * @param matchData The data of the request.
+     * @return The results of the window matching.
+     * @throws EyesException If interrupted while waiting for the result.
+     */
+    public MatchResult addAndWait(MatchWindowData matchData) {
+        Future<MatchResult> result = add(matchData);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            throw new EyesException(
+                    "Interrupted while waiting for match window!", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new EyesException("Match window failed!", cause);
+        }
+    }
+}
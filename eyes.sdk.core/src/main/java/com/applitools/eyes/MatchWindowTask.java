@@ -5,6 +5,7 @@ package com.applitools.eyes;
 
 import com.applitools.eyes.capture.AppOutputProvider;
 import com.applitools.eyes.capture.AppOutputWithScreenshot;
+import com.applitools.eyes.fluent.BulkRegionResolver;
 import com.applitools.eyes.fluent.GetFloatingRegion;
 import com.applitools.eyes.fluent.GetRegion;
 import com.applitools.eyes.fluent.ICheckSettingsInternal;
@@ -14,6 +15,7 @@ import com.applitools.utils.GeneralUtils;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 public class MatchWindowTask {
 
@@ -28,9 +30,38 @@ public class MatchWindowTask {
     private EyesScreenshot lastScreenshot = null;
     private MatchResult matchResult;
     private Region lastScreenshotBounds;
+    private MatchWindowQueue matchWindowQueue;
 
     private EyesBase eyes;
 
+    /**
+     * A match which was added to the session's queue of matches.
+     */
+    public static class QueuedMatch {
+        private final Future<MatchResult> result;
+        private final EyesScreenshot screenshot;
+
+        public QueuedMatch(Future<MatchResult> result,
+                           EyesScreenshot screenshot) {
+            this.result = result;
+            this.screenshot = screenshot;
+        }
+
+        /**
+         * @return A future for the results of the match.
+         */
+        public Future<MatchResult> getResult() {
+            return result;
+        }
+
+        /**
+         * @return The screenshot which was sent for matching.
+         */
+        public EyesScreenshot getScreenshot() {
+            return screenshot;
+        }
+    }
+
     /**
      * @param logger            A logger instance.
      * @param serverConnector   Our gateway to the agent
@@ -57,6 +88,25 @@ public class MatchWindowTask {
         this.appOutputProvider = appOutputProvider;
     }
 
+    /**
+     * Creates the match data for a given application output.
+     */
+    private MatchWindowData prepareMatchData(Trigger[] userInputs,
+                                             AppOutputWithScreenshot appOutput,
+                                             String tag, boolean ignoreMismatch,
+                                             ICheckSettingsInternal checkSettingsInternal,
+                                             ImageMatchSettings imageMatchSettings) {
+
+        collectIgnoreRegions(checkSettingsInternal, imageMatchSettings, eyes, appOutput);
+        collectFloatingRegions(checkSettingsInternal, imageMatchSettings, eyes, appOutput);
+
+        return new MatchWindowData(userInputs, appOutput
+                .getAppOutput(), tag, ignoreMismatch,
+                new MatchWindowData.Options(tag, userInputs, ignoreMismatch,
+                        false, false, false,
+                        imageMatchSettings));
+    }
+
     /**
      * Creates the match data and calls the server connector matchWindow method.
      * @param userInputs         The user inputs related to the current appOutput.
@@ -73,17 +123,15 @@ public class MatchWindowTask {
                                        ICheckSettingsInternal checkSettingsInternal,
                                        ImageMatchSettings imageMatchSettings) {
 
-        collectIgnoreRegions(checkSettingsInternal, imageMatchSettings, eyes, appOutput);
-        collectFloatingRegions(checkSettingsInternal, imageMatchSettings, eyes, appOutput);
-
         // Prepare match data.
-        MatchWindowData data = new MatchWindowData(userInputs, appOutput
-                .getAppOutput(), tag, ignoreMismatch,
-                new MatchWindowData.Options(tag, userInputs, ignoreMismatch,
-                        false, false, false,
-                        imageMatchSettings));
+        MatchWindowData data = prepareMatchData(userInputs, appOutput, tag,
+                ignoreMismatch, checkSettingsInternal, imageMatchSettings);
 
-        // Perform match.
+        // Perform match. Once matches were queued, the match is sent after
+        // them, so the server receives the screenshots in order.
+        if (matchWindowQueue != null) {
+            return matchWindowQueue.addAndWait(data);
+        }
         return serverConnector.matchWindow(runningSession, data);
     }
 
@@ -91,9 +139,19 @@ public class MatchWindowTask {
                                              ImageMatchSettings imageMatchSettings, EyesBase eyes,
                                              AppOutputWithScreenshot appOutput) {
         EyesScreenshot screenshot = appOutput.getScreenshot();
+        GetRegion[] ignoreRegionProviders = checkSettingsInternal.getIgnoreRegions();
+        BulkRegionResolver regionResolver = eyes.getBulkRegionResolver();
+        Region[] resolvedRegions = regionResolver == null ?
+                new Region[ignoreRegionProviders.length] :
+                regionResolver.getRegions(eyes, screenshot, ignoreRegionProviders);
+
         List<Region> ignoreRegions = new ArrayList<>();
-        for (GetRegion ignoreRegionProvider : checkSettingsInternal.getIgnoreRegions()) {
-            ignoreRegions.add(ignoreRegionProvider.getRegion(eyes, screenshot));
+        for (int i = 0; i < ignoreRegionProviders.length; ++i) {
+            Region region = resolvedRegions[i];
+            if (region == null) {
+                region = ignoreRegionProviders[i].getRegion(eyes, screenshot);
+            }
+            ignoreRegions.add(region);
         }
         imageMatchSettings.setIgnoreRegions(ignoreRegions.toArray(new Region[0]));
     }
@@ -102,9 +160,19 @@ public class MatchWindowTask {
                                                ImageMatchSettings imageMatchSettings, EyesBase eyes,
                                                AppOutputWithScreenshot appOutput) {
         EyesScreenshot screenshot = appOutput.getScreenshot();
+        GetFloatingRegion[] floatingRegionProviders = checkSettingsInternal.getFloatingRegions();
+        BulkRegionResolver regionResolver = eyes.getBulkRegionResolver();
+        FloatingMatchSettings[] resolvedRegions = regionResolver == null ?
+                new FloatingMatchSettings[floatingRegionProviders.length] :
+                regionResolver.getFloatingRegions(eyes, screenshot, floatingRegionProviders);
+
         List<FloatingMatchSettings> floatingRegions = new ArrayList<>();
-        for (GetFloatingRegion floatingRegionProvider : checkSettingsInternal.getFloatingRegions()) {
-            floatingRegions.add(floatingRegionProvider.getRegion(eyes, screenshot));
+        for (int i = 0; i < floatingRegionProviders.length; ++i) {
+            FloatingMatchSettings region = resolvedRegions[i];
+            if (region == null) {
+                region = floatingRegionProviders[i].getRegion(eyes, screenshot);
+            }
+            floatingRegions.add(region);
         }
         imageMatchSettings.setFloatingRegions(floatingRegions.toArray(new FloatingMatchSettings[0]));
     }
@@ -151,6 +219,56 @@ public class MatchWindowTask {
         return matchResult;
     }
 
+    /**
+     * Obtains a single application snapshot and adds it to the session's
+     * queue of matches, which are sent in the background. Blocks while the
+     * queue is full. Unlike {@link #matchWindow}, the match isn't retried,
+     * since the result isn't waited for.
+     * @param userInputs             User input preceding this match.
+     * @param region                 Window region to capture.
+     * @param tag                    Optional tag to be associated with the match (can be {@code null}).
+     * @param shouldRunOnceOnTimeout Wait for the retry timeout before taking the snapshot.
+     * @param ignoreMismatch         Whether to instruct the server to ignore the match attempt in case of a mismatch.
+     * @param checkSettingsInternal  The internal settings to use.
+     * @param imageMatchSettings     The settings to use.
+     * @param retryTimeout           The amount of time to wait in milliseconds (if
+     *                               {@code shouldRunOnceOnTimeout} is true) or a
+     *                               negative value to use the default retry timeout.
+     * @return The queued match.
+     */
+    public QueuedMatch matchWindowAsync(Trigger[] userInputs,
+                                                Region region, String tag,
+                                                boolean shouldRunOnceOnTimeout,
+                                                boolean ignoreMismatch,
+                                                ICheckSettingsInternal checkSettingsInternal,
+                                                ImageMatchSettings imageMatchSettings,
+                                                int retryTimeout) {
+
+        if (retryTimeout < 0) {
+            retryTimeout = defaultRetryTimeout;
+        }
+
+        if (shouldRunOnceOnTimeout) {
+            GeneralUtils.sleep(retryTimeout);
+        }
+
+        AppOutputWithScreenshot appOutput = appOutputProvider.getAppOutput(region, lastScreenshot);
+        MatchWindowData data = prepareMatchData(userInputs, appOutput, tag,
+                ignoreMismatch, checkSettingsInternal, imageMatchSettings);
+        if (matchWindowQueue == null) {
+            matchWindowQueue = new MatchWindowQueue(logger, serverConnector,
+                    runningSession, eyes.getMaxQueuedChecks());
+        }
+        Future<MatchResult> result = matchWindowQueue.add(data);
+
+        if (!ignoreMismatch) {
+            updateLastScreenshot(appOutput.getScreenshot());
+            updateBounds(region);
+        }
+
+        return new QueuedMatch(result, appOutput.getScreenshot());
+    }
+
     private EyesScreenshot takeScreenshot(Trigger[] userInputs, Region region, String tag, boolean shouldMatchWindowRunOnceOnTimeout,
                                           boolean ignoreMismatch, ICheckSettingsInternal checkSettingsInternal,
                                           ImageMatchSettings imageMatchSettings, int retryTimeout) {
@@ -0,0 +1,66 @@
+package com.applitools.eyes;
+
+/**
+ * The outcome of closing a single test: its results and/or the exception
+ * which closing the test would have thrown.
+ */
+public class TestResultContainer {
+
+    private final String testName;
+    private final TestResults testResults;
+    private final Throwable exception;
+
+    /**
+     * @param testName    The name of the test (for reporting).
+     * @param testResults The results of the test, or {@code null} if the
+     *                    test could not be closed (or is disabled).
+     * @param exception   The exception thrown while closing the test, or
+     *                    {@code null} if none was thrown.
+     */
+    public TestResultContainer(String testName, TestResults testResults,
+                               Throwable exception) {
+        this.testName = testName;
+        this.testResults = testResults;
+        this.exception = exception;
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    /**
+     * @return The results of the test, or {@code null} if the test could not
+     * be closed (or is disabled).
+     */
+    public TestResults getTestResults() {
+        return testResults;
+    }
+
+    /**
+     * @return The exception thrown while closing the test (e.g., a
+     * {@link com.applitools.eyes.exceptions.DiffsFoundException}), or
+     * {@code null} if none was thrown.
+     */
+    public Throwable getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.valueOf(testName));
+        if (testResults != null) {
+            sb.append(": ").append(testResults.getStatus())
+                    .append(" - ").append(testResults);
+        }
+        if (testResults == null && exception == null) {
+            sb.append(": Disabled");
+        }
+        if (exception != null) {
+            sb.append(testResults != null ? " (" : ": ")
+                    .append(exception.getClass().getSimpleName())
+                    .append(": ").append(exception.getMessage())
+                    .append(testResults != null ? ")" : "");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.applitools.eyes;
+
+import com.applitools.utils.ArgumentGuard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The results of closing a batch of tests. Instead of throwing on the first
+ * failed (or new) test, each test's exception is kept with its results.
+ */
+public class TestResultsSummary implements Iterable<TestResultContainer> {
+
+    private final List<TestResultContainer> results;
+
+    /**
+     * @param results The results of the tests, in the order the tests were
+     *                given.
+     */
+    public TestResultsSummary(List<TestResultContainer> results) {
+        ArgumentGuard.notNull(results, "results");
+        this.results = Collections.unmodifiableList(
+                new ArrayList<>(results));
+    }
+
+    /**
+     * @return The results of all the tests.
+     */
+    public List<TestResultContainer> getAllResults() {
+        return results;
+    }
+
+    public Iterator<TestResultContainer> iterator() {
+        return results.iterator();
+    }
+
+    /**
+     * @return The number of tests which passed.
+     */
+    public int getPassed() {
+        return count(TestResultsStatus.Passed);
+    }
+
+    /**
+     * @return The number of tests which are new or have diffs, waiting to be
+     * resolved.
+     */
+    public int getUnresolved() {
+        return count(TestResultsStatus.Unresolved);
+    }
+
+    /**
+     * @return The number of tests which failed.
+     */
+    public int getFailed() {
+        return count(TestResultsStatus.Failed);
+    }
+
+    /**
+     * @return The number of tests which could not be closed (i.e., have no
+     * results).
+     */
+    public int getErrors() {
+        int errors = 0;
+        for (TestResultContainer result : results) {
+            if (result.getTestResults() == null
+                    && result.getException() != null) {
+                ++errors;
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * @return The number of tests which were disabled, or which ended without
+     * any checks (so their results have no status).
+     */
+    public int getSkipped() {
+        int skipped = 0;
+        for (TestResultContainer result : results) {
+            if (isSkipped(result)) {
+                ++skipped;
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * @return Whether all the tests passed (skipped tests are ignored).
+     */
+    public boolean isPassed() {
+        return getPassed() + getSkipped() == results.size();
+    }
+
+    private static boolean isSkipped(TestResultContainer result) {
+        TestResults testResults = result.getTestResults();
+        if (testResults == null) {
+            return result.getException() == null;
+        }
+        return testResults.getStatus() == null;
+    }
+
+    private int count(TestResultsStatus status) {
+        int count = 0;
+        for (TestResultContainer result : results) {
+            TestResults testResults = result.getTestResults();
+            if (testResults != null && testResults.getStatus() == status) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d tests: %d passed, %d unresolved, " +
+                        "%d failed, %d errors, %d skipped",
+                results.size(), getPassed(), getUnresolved(), getFailed(),
+                getErrors(), getSkipped()));
+        for (TestResultContainer result : results) {
+            sb.append(System.getProperty("line.separator"))
+                    .append("  ").append(result);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package com.applitools.eyes.capture;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Callable;
+
+/**
+ * An image provider which can capture an image without decoding it, so the
+ * (expensive) decoding can be done on another thread.
+ */
+public interface DeferredImageProvider extends ImageProvider {
+
+    /**
+     * Captures the image (e.g., the encoded screenshot bytes). Must be called
+     * on the thread which captures the images.
+     * @return A task which decodes the captured image. Can be called on any
+     * thread.
+     */
+    Callable<BufferedImage> captureImage();
+}
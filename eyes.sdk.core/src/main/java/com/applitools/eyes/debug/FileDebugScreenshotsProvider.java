@@ -1,10 +1,12 @@
 package com.applitools.eyes.debug;
 
 import com.applitools.utils.ImageUtils;
+import com.applitools.utils.PngEncoder;
 
 import java.awt.image.BufferedImage;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.zip.Deflater;
 
 /**
  * A debug screenshot provider for saving screenshots to file.
@@ -13,13 +15,17 @@ public class FileDebugScreenshotsProvider extends DebugScreenshotsProvider {
 
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy_MM_dd_HH_mm_ss_SSS");
 
+    // Debug screenshots are saved on every step, so speed matters more than size.
+    private final PngEncoder pngEncoder = new PngEncoder(Deflater.BEST_SPEED, PngEncoder.FilterStrategy.SUB);
+
     @Override
     public void save(BufferedImage image, String suffix) {
         String filename = getPath() + getPrefix() + getFormattedTimeStamp() + "_" + suffix + ".png";
-        ImageUtils.saveImage(image, filename.replace(" ", "_"));
+        ImageUtils.saveImage(image, filename.replace(" ", "_"), pngEncoder);
     }
 
-    private String getFormattedTimeStamp(){
+    // Synchronized, since parts of a stitched screenshot may be saved from several threads.
+    private synchronized String getFormattedTimeStamp(){
         return dateFormat.format(Calendar.getInstance().getTime());
     }
 }
@@ -9,6 +9,24 @@ public class TimedAppOutput extends AppOutput {
     private final long elapsed;
     private final boolean isPrimary;
 
+    /**
+     * @param title           The title of the window.
+     * @param screenshotBytes The screenshot's bytes (the bytes can be in
+     *                        either compressed or uncompressed form).
+     * @param elapsed         The elapsed time from the first captured window
+     *                        until this window was captured.
+     * @param isPrimary       Whether this window is considered a "primary"
+     *                        (e.g., if the user expected that up to this
+     *                        window there should already have been a match
+     *                        in a timing test).
+     */
+    public TimedAppOutput(String title, byte[] screenshotBytes, long elapsed,
+                          boolean isPrimary) {
+        super(title, screenshotBytes);
+        this.elapsed = elapsed;
+        this.isPrimary = isPrimary;
+    }
+
     /**
      * @param title        The title of the window.
      * @param screenshot64 Base64 encoding of the screenshot's bytes (the
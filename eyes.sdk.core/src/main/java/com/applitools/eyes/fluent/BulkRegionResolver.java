@@ -0,0 +1,37 @@
+package com.applitools.eyes.fluent;
+
+import com.applitools.eyes.EyesBase;
+import com.applitools.eyes.EyesScreenshot;
+import com.applitools.eyes.FloatingMatchSettings;
+import com.applitools.eyes.Region;
+
+/**
+ * Resolves the regions of many region providers at once, e.g., so the bounds
+ * of many elements are read in a single round trip rather than one per
+ * region.
+ */
+public interface BulkRegionResolver {
+
+    /**
+     * @param eyesBase   The Eyes instance which performs the check.
+     * @param screenshot The screenshot the regions are relative to.
+     * @param providers  The ignore region providers.
+     * @return The regions of the providers, in the same order. The region of
+     * a provider which isn't supported is {@code null}, in which case the
+     * provider itself is used.
+     */
+    Region[] getRegions(EyesBase eyesBase, EyesScreenshot screenshot,
+                        GetRegion[] providers);
+
+    /**
+     * @param eyesBase   The Eyes instance which performs the check.
+     * @param screenshot The screenshot the regions are relative to.
+     * @param providers  The floating region providers.
+     * @return The floating regions of the providers, in the same order. The
+     * region of a provider which isn't supported is {@code null}, in which
+     * case the provider itself is used.
+     */
+    FloatingMatchSettings[] getFloatingRegions(EyesBase eyesBase,
+                                               EyesScreenshot screenshot,
+                                               GetFloatingRegion[] providers);
+}
@@ -0,0 +1,16 @@
+package com.applitools.eyes.positioning;
+
+import com.applitools.eyes.Location;
+import com.applitools.utils.GeneralUtils;
+
+/**
+ * A stabilization strategy which always waits the maximal time.
+ */
+public class FixedStabilizationStrategy implements StabilizationStrategy {
+
+    public Location waitForStabilization(PositionProvider positionProvider,
+                                         int maxWait) {
+        GeneralUtils.sleep(maxWait);
+        return positionProvider.getCurrentPosition();
+    }
+}
@@ -0,0 +1,21 @@
+package com.applitools.eyes.positioning;
+
+import com.applitools.eyes.Location;
+
+/**
+ * Encapsulates waiting for the page to settle after its position was set
+ * (e.g., before taking a screenshot when stitching).
+ */
+public interface StabilizationStrategy {
+    /**
+     * Waits for the page to stabilize after a position change.
+     *
+     * @param positionProvider The provider which was used for setting the
+     *                         position.
+     * @param maxWait          The maximal time to wait (milliseconds).
+     * @return The current position, after the page stabilized (or the wait
+     * timed out).
+     */
+    Location waitForStabilization(PositionProvider positionProvider,
+                                  int maxWait);
+}
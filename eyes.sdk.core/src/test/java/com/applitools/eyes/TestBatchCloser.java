@@ -0,0 +1,166 @@
+package com.applitools.eyes;
+
+import com.applitools.eyes.exceptions.TestFailedException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class TestBatchCloser {
+
+    /**
+     * An Eyes instance whose close returns the given results (or throws the
+     * given exception), while tracking how many instances are closed
+     * concurrently.
+     */
+    private static class FakeEyes extends EyesBase {
+        private static final AtomicInteger closing = new AtomicInteger();
+        private static final AtomicInteger maxClosing = new AtomicInteger();
+
+        private final TestResults results;
+        private final RuntimeException exception;
+
+        public FakeEyes(TestResults results, RuntimeException exception) {
+            super(URI.create("http://localhost"));
+            this.results = results;
+            this.exception = exception;
+        }
+
+        @Override
+        public TestResults close(boolean throwEx) {
+            int current = closing.incrementAndGet();
+            int max;
+            while (current > (max = maxClosing.get())
+                    && !maxClosing.compareAndSet(max, current)) {
+                // retry
+            }
+            try {
+                Thread.sleep(50);
+                if (exception != null) {
+                    throw exception;
+                }
+                if (results.getStatus() == TestResultsStatus.Unresolved) {
+                    throw new TestFailedException(results, "Diffs found");
+                }
+                return results;
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                closing.decrementAndGet();
+            }
+        }
+
+        protected String getBaseAgentId() { return "fake"; }
+        protected RectangleSize getViewportSize() { return null; }
+        protected void setViewportSize(RectangleSize size) {}
+        protected String getInferredEnvironment() { return null; }
+        protected EyesScreenshot getScreenshot() { return null; }
+        protected String getTitle() { return null; }
+    }
+
+    private static TestResults createResults(TestResultsStatus status) {
+        TestResults results = new TestResults();
+        results.setStatus(status);
+        return results;
+    }
+
+    @Test
+    public void testSummaryOfClosedTests() {
+        List<FakeEyes> eyesInstances = Arrays.asList(
+                new FakeEyes(createResults(TestResultsStatus.Passed), null),
+                new FakeEyes(createResults(TestResultsStatus.Unresolved), null),
+                new FakeEyes(null, new EyesException("Server error")),
+                new FakeEyes(createResults(TestResultsStatus.Passed), null));
+
+        TestResultsSummary summary = new BatchCloser(2).closeAll(eyesInstances);
+
+        List<TestResultContainer> results = summary.getAllResults();
+        Assert.assertEquals(4, results.size());
+        Assert.assertEquals(2, summary.getPassed());
+        Assert.assertEquals(1, summary.getUnresolved());
+        Assert.assertEquals(0, summary.getFailed());
+        Assert.assertEquals(1, summary.getErrors());
+        Assert.assertFalse(summary.isPassed());
+
+        // Results are kept in the order of the instances.
+        Assert.assertNull(results.get(0).getException());
+        Assert.assertTrue(
+                results.get(1).getException() instanceof TestFailedException);
+        Assert.assertEquals(TestResultsStatus.Unresolved,
+                results.get(1).getTestResults().getStatus());
+        Assert.assertNull(results.get(2).getTestResults());
+        Assert.assertEquals("Server error",
+                results.get(2).getException().getMessage());
+    }
+
+    @Test
+    public void testParallelismIsBounded() {
+        List<FakeEyes> eyesInstances = new ArrayList<>();
+        for (int i = 0; i < 12; ++i) {
+            eyesInstances.add(new FakeEyes(
+                    createResults(TestResultsStatus.Passed), null));
+        }
+        FakeEyes.maxClosing.set(0);
+
+        TestResultsSummary summary = new BatchCloser(3).closeAll(eyesInstances);
+
+        Assert.assertTrue(summary.isPassed());
+        Assert.assertEquals(12, summary.getPassed());
+        Assert.assertTrue(FakeEyes.maxClosing.get() <= 3);
+        Assert.assertTrue(FakeEyes.maxClosing.get() > 1);
+    }
+
+    @Test
+    public void testDisabledTestIsSkipped() {
+        FakeEyes disabled = new FakeEyes(null,
+                new IllegalStateException("Closed a disabled test"));
+        disabled.setIsDisabled(true);
+        List<FakeEyes> eyesInstances = Arrays.asList(disabled,
+                new FakeEyes(createResults(TestResultsStatus.Passed), null));
+
+        TestResultsSummary summary = new BatchCloser().closeAll(eyesInstances);
+
+        Assert.assertEquals(1, summary.getPassed());
+        Assert.assertEquals(1, summary.getSkipped());
+        Assert.assertEquals(0, summary.getErrors());
+        Assert.assertTrue(summary.isPassed());
+        TestResultContainer result = summary.getAllResults().get(0);
+        Assert.assertNull(result.getTestResults());
+        Assert.assertNull(result.getException());
+    }
+
+    @Test
+    public void testEmptyTestIsSkipped() {
+        // A test without checks ends with results which have no status.
+        List<FakeEyes> eyesInstances = Arrays.asList(
+                new FakeEyes(new TestResults(), null),
+                new FakeEyes(createResults(TestResultsStatus.Passed), null));
+
+        TestResultsSummary summary = new BatchCloser().closeAll(eyesInstances);
+
+        Assert.assertEquals(1, summary.getPassed());
+        Assert.assertEquals(1, summary.getSkipped());
+        Assert.assertEquals(0, summary.getErrors());
+        Assert.assertTrue(summary.isPassed());
+
+        eyesInstances = Arrays.asList(
+                new FakeEyes(new TestResults(), null),
+                new FakeEyes(createResults(TestResultsStatus.Failed), null));
+        Assert.assertFalse(new BatchCloser().closeAll(eyesInstances)
+                .isPassed());
+    }
+
+    @Test
+    public void testNoTests() {
+        TestResultsSummary summary =
+                new BatchCloser().closeAll(new ArrayList<EyesBase>());
+        Assert.assertTrue(summary.getAllResults().isEmpty());
+    }
+}
@@ -0,0 +1,132 @@
+package com.applitools.eyes;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.net.URI;
+
+@RunWith(JUnit4.class)
+public class TestCircuitBreaker {
+
+    /**
+     * A circuit breaker whose time is set by the test.
+     */
+    private static class ManualClockCircuitBreaker extends CircuitBreaker {
+        private long currentTime;
+
+        public ManualClockCircuitBreaker(int failureThreshold,
+                                         int openDuration) {
+            super(failureThreshold, openDuration);
+        }
+
+        @Override
+        protected long getCurrentTime() {
+            return currentTime;
+        }
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 1000);
+
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        Assert.assertFalse(breaker.isOpen());
+        Assert.assertTrue(breaker.allowRequest());
+
+        breaker.recordFailure();
+        Assert.assertTrue(breaker.isOpen());
+        Assert.assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void testSingleProbeAfterOpenDuration() {
+        ManualClockCircuitBreaker breaker =
+                new ManualClockCircuitBreaker(1, 1000);
+        breaker.recordFailure();
+
+        breaker.currentTime = 999;
+        Assert.assertFalse(breaker.allowRequest());
+
+        breaker.currentTime = 1000;
+        Assert.assertTrue(breaker.allowRequest());
+        // Only one request probes the server.
+        Assert.assertFalse(breaker.allowRequest());
+
+        breaker.recordSuccess();
+        Assert.assertFalse(breaker.isOpen());
+        Assert.assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void testFailedProbeReopens() {
+        ManualClockCircuitBreaker breaker =
+                new ManualClockCircuitBreaker(2, 1000);
+        breaker.recordFailure();
+        breaker.recordFailure();
+
+        breaker.currentTime = 1500;
+        Assert.assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+
+        Assert.assertTrue(breaker.isOpen());
+        breaker.currentTime = 2000;
+        Assert.assertFalse(breaker.allowRequest());
+        breaker.currentTime = 2500;
+        Assert.assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void testReleasedProbeAllowsAnotherProbe() {
+        ManualClockCircuitBreaker breaker =
+                new ManualClockCircuitBreaker(1, 1000);
+        breaker.recordFailure();
+
+        // The probe is throttled (429), so neither outcome is recorded.
+        breaker.currentTime = 1000;
+        Assert.assertTrue(breaker.allowRequest());
+        breaker.releaseProbe();
+
+        Assert.assertTrue(breaker.isOpen());
+        Assert.assertTrue(breaker.allowRequest());
+        Assert.assertFalse(breaker.allowRequest());
+
+        breaker.recordSuccess();
+        Assert.assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    public void testReleaseProbeOfOtherThreadIsIgnored()
+            throws InterruptedException {
+        final ManualClockCircuitBreaker breaker =
+                new ManualClockCircuitBreaker(1, 1000);
+        breaker.recordFailure();
+        breaker.currentTime = 1000;
+        Assert.assertTrue(breaker.allowRequest());
+
+        Thread other = new Thread(new Runnable() {
+            public void run() {
+                breaker.releaseProbe();
+            }
+        });
+        other.start();
+        other.join();
+
+        Assert.assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void testSharedPerServer() {
+        Assert.assertSame(
+                CircuitBreaker.forServer(URI.create("https://eyes.test/api")),
+                CircuitBreaker.forServer(URI.create("https://eyes.test")));
+        Assert.assertNotSame(
+                CircuitBreaker.forServer(URI.create("https://eyes.test")),
+                CircuitBreaker.forServer(URI.create("https://other.test")));
+    }
+}
@@ -0,0 +1,182 @@
+package com.applitools.eyes;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+@RunWith(JUnit4.class)
+public class TestMatchWindowQueue {
+
+    /**
+     * A connector which records the tags of the matched windows. Each match
+     * blocks until a response is released.
+     */
+    private static class RecordingServerConnector implements ServerConnector {
+        private final List<String> matchedTags =
+                Collections.synchronizedList(new ArrayList<String>());
+        private final Semaphore responses = new Semaphore(0);
+
+        public MatchResult matchWindow(RunningSession runningSession,
+                                       MatchWindowData matchData) {
+            responses.acquireUninterruptibly();
+            matchedTags.add(matchData.getTag());
+            MatchResult result = new MatchResult();
+            result.setAsExpected(true);
+            return result;
+        }
+
+        public void setApiKey(String apiKey) {}
+        public String getApiKey() { return null; }
+        public void setServerUrl(URI serverUrl) {}
+        public URI getServerUrl() { return null; }
+        public void setProxy(ProxySettings proxySettings) {}
+        public ProxySettings getProxy() { return null; }
+        public void setConnectionPool(ConnectionPoolSettings settings) {}
+        public ConnectionPoolSettings getConnectionPool() { return null; }
+        public void setRequestCompression(
+                RequestCompressionSettings settings) {}
+        public RequestCompressionSettings getRequestCompression() {
+            return null;
+        }
+        public void setRetrySettings(RetrySettings retrySettings) {}
+        public RetrySettings getRetrySettings() { return null; }
+        public int getTimeout() { return 0; }
+
+        public RunningSession startSession(SessionStartInfo sessionStartInfo) {
+            throw new UnsupportedOperationException();
+        }
+
+        public TestResults stopSession(RunningSession runningSession,
+                                       boolean isAborted, boolean save) {
+            throw new UnsupportedOperationException();
+        }
+
+        public Future<TestResults> stopSessionAsync(
+                RunningSession runningSession, boolean isAborted,
+                boolean save) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static MatchWindowData createMatchData(String tag) {
+        Trigger[] userInputs = new Trigger[0];
+        return new MatchWindowData(userInputs,
+                new AppOutput(tag, new byte[0]), tag, false,
+                new MatchWindowData.Options(tag, userInputs, false, false,
+                        false, false, new ImageMatchSettings()));
+    }
+
+    @Test
+    public void testMatchesAreSentInOrder() throws Exception {
+        RecordingServerConnector serverConnector =
+                new RecordingServerConnector();
+        MatchWindowQueue queue = new MatchWindowQueue(new Logger(),
+                serverConnector, new RunningSession(), 5);
+
+        List<Future<MatchResult>> results = new ArrayList<>();
+        for (int i = 0; i < 5; ++i) {
+            results.add(queue.add(createMatchData("check " + i)));
+        }
+        serverConnector.responses.release(5);
+
+        for (Future<MatchResult> result : results) {
+            Assert.assertTrue(result.get().getAsExpected());
+        }
+        Assert.assertEquals(5, serverConnector.matchedTags.size());
+        for (int i = 0; i < 5; ++i) {
+            Assert.assertEquals("check " + i,
+                    serverConnector.matchedTags.get(i));
+        }
+    }
+
+    @Test
+    public void testAddBlocksWhileQueueIsFull() throws Exception {
+        RecordingServerConnector serverConnector =
+                new RecordingServerConnector();
+        final MatchWindowQueue queue = new MatchWindowQueue(new Logger(),
+                serverConnector, new RunningSession(), 2);
+
+        queue.add(createMatchData("first"));
+        queue.add(createMatchData("second"));
+
+        Thread producer = new Thread(new Runnable() {
+            public void run() {
+                queue.add(createMatchData("third"));
+            }
+        });
+        producer.start();
+        producer.join(300);
+        Assert.assertTrue("Adding to a full queue should block",
+                producer.isAlive());
+
+        // Completing a match frees a slot in the queue.
+        serverConnector.responses.release();
+        producer.join(5000);
+        Assert.assertFalse(producer.isAlive());
+
+        serverConnector.responses.release(2);
+    }
+
+    @Test
+    public void testCancelledMatchFreesItsSlot() throws Exception {
+        RecordingServerConnector serverConnector =
+                new RecordingServerConnector();
+        MatchWindowQueue queue = new MatchWindowQueue(new Logger(),
+                serverConnector, new RunningSession(), 2);
+
+        Future<MatchResult> first = queue.add(createMatchData("first"));
+        Future<MatchResult> second = queue.add(createMatchData("second"));
+        Assert.assertTrue(second.cancel(false));
+
+        // Doesn't block, since the cancelled match released its slot.
+        Future<MatchResult> third = queue.add(createMatchData("third"));
+        serverConnector.responses.release(2);
+
+        Assert.assertTrue(first.get().getAsExpected());
+        Assert.assertTrue(third.get().getAsExpected());
+        Assert.assertEquals(2, serverConnector.matchedTags.size());
+        Assert.assertEquals("third", serverConnector.matchedTags.get(1));
+    }
+
+    @Test
+    public void testSynchronousMatchIsSentAfterQueuedOnes() throws Exception {
+        RecordingServerConnector serverConnector =
+                new RecordingServerConnector();
+        final MatchWindowQueue queue = new MatchWindowQueue(new Logger(),
+                serverConnector, new RunningSession(), 5);
+
+        Future<MatchResult> first = queue.add(createMatchData("queued 0"));
+        Future<MatchResult> second = queue.add(createMatchData("queued 1"));
+
+        final MatchResult[] syncResult = new MatchResult[1];
+        Thread checker = new Thread(new Runnable() {
+            public void run() {
+                syncResult[0] = queue.addAndWait(createMatchData("sync"));
+            }
+        });
+        checker.start();
+        checker.join(300);
+        Assert.assertTrue("The synchronous match should wait for the " +
+                "queued ones", checker.isAlive());
+
+        serverConnector.responses.release(3);
+        checker.join(5000);
+        Assert.assertFalse(checker.isAlive());
+
+        Assert.assertTrue(first.get().getAsExpected());
+        Assert.assertTrue(second.get().getAsExpected());
+        Assert.assertTrue(syncResult[0].getAsExpected());
+        Assert.assertEquals(3, serverConnector.matchedTags.size());
+        Assert.assertEquals("queued 0", serverConnector.matchedTags.get(0));
+        Assert.assertEquals("queued 1", serverConnector.matchedTags.get(1));
+        Assert.assertEquals("sync", serverConnector.matchedTags.get(2));
+    }
+}
@@ -0,0 +1,85 @@
+package com.applitools.eyes;
+
+import com.applitools.utils.GzipUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class TestMatchWindowRequestBody {
+
+    private static MatchWindowData createMatchData(byte[] screenshot) {
+        Trigger[] userInputs = new Trigger[0];
+        return new MatchWindowData(userInputs,
+                new AppOutput("title", screenshot), "tag", false,
+                new MatchWindowData.Options("tag", userInputs, false, false,
+                        false, false, new ImageMatchSettings()));
+    }
+
+    private static byte[] write(MatchWindowRequestBody body)
+            throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        body.writeTo(output);
+        byte[] bytes = output.toByteArray();
+        Assert.assertEquals(body.getContentLength(), bytes.length);
+        return bytes;
+    }
+
+    private static void assertCompressedBody(byte[] screenshot)
+            throws IOException {
+        ObjectMapper jsonMapper = new ObjectMapper();
+        MatchWindowData matchData = createMatchData(screenshot);
+
+        byte[] expected = write(
+                new MatchWindowRequestBody(jsonMapper, matchData));
+        MatchWindowRequestBody compressedBody = new MatchWindowRequestBody(
+                jsonMapper, matchData, new RequestCompressionSettings(0));
+
+        Assert.assertEquals(GzipUtils.GZIP_ENCODING,
+                compressedBody.getContentEncoding());
+        Assert.assertArrayEquals(expected,
+                GzipUtils.decompress(write(compressedBody), "gzip"));
+    }
+
+    @Test
+    public void testUncompressedBody() throws IOException {
+        MatchWindowRequestBody body = new MatchWindowRequestBody(
+                new ObjectMapper(), createMatchData(new byte[] {1, 2, 3}));
+
+        Assert.assertNull(body.getContentEncoding());
+        byte[] bytes = write(body);
+        int jsonLength = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16)
+                | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+        Assert.assertEquals(4 + jsonLength + 3, bytes.length);
+        Assert.assertEquals(3, bytes[bytes.length - 1]);
+    }
+
+    @Test
+    public void testSmallBodyIsNotCompressed() {
+        MatchWindowRequestBody body = new MatchWindowRequestBody(
+                new ObjectMapper(), createMatchData(new byte[100]),
+                new RequestCompressionSettings(1024 * 1024));
+
+        Assert.assertNull(body.getContentEncoding());
+    }
+
+    @Test
+    public void testCompressedBody() throws IOException {
+        // Spans several stored blocks, the last of which is partial.
+        byte[] screenshot = new byte[3 * 0xFFFF + 1000];
+        new Random(42).nextBytes(screenshot);
+        assertCompressedBody(screenshot);
+    }
+
+    @Test
+    public void testCompressedBodyWithoutScreenshot() throws IOException {
+        assertCompressedBody(new byte[0]);
+        assertCompressedBody(new byte[0xFFFF]);
+    }
+}
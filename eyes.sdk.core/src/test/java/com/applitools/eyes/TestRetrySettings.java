@@ -0,0 +1,49 @@
+package com.applitools.eyes;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class TestRetrySettings {
+
+    @Test
+    public void testBackoffIsExponentialWithJitter() {
+        RetrySettings settings = new RetrySettings(10, 100, 1000);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100; ++i) {
+            long first = settings.getBackoff(1, random);
+            Assert.assertTrue(first >= 50 && first <= 100);
+
+            long third = settings.getBackoff(3, random);
+            Assert.assertTrue(third >= 200 && third <= 400);
+
+            // Capped by the maximal backoff.
+            long tenth = settings.getBackoff(10, random);
+            Assert.assertTrue(tenth >= 500 && tenth <= 1000);
+        }
+    }
+
+    @Test
+    public void testRetriableStatuses() {
+        Assert.assertTrue(RetrySettings.isRetriableStatus(429));
+        Assert.assertTrue(RetrySettings.isRetriableStatus(502));
+        Assert.assertTrue(RetrySettings.isRetriableStatus(503));
+        Assert.assertTrue(RetrySettings.isRetriableStatus(504));
+        Assert.assertFalse(RetrySettings.isRetriableStatus(200));
+        Assert.assertFalse(RetrySettings.isRetriableStatus(400));
+        Assert.assertFalse(RetrySettings.isRetriableStatus(404));
+        // The server might have handled the request.
+        Assert.assertFalse(RetrySettings.isRetriableStatus(500));
+    }
+
+    @Test
+    public void testThrottlingStatus() {
+        Assert.assertTrue(RetrySettings.isThrottlingStatus(429));
+        Assert.assertFalse(RetrySettings.isThrottlingStatus(503));
+    }
+}
@@ -0,0 +1,164 @@
+package com.applitools.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+@RunWith(JUnit4.class)
+public class TestBicubicScaler {
+
+    private static final int CHANNELS = 4;
+    // The scaler uses fixed-point weights, so its values may differ from the
+    // floating point reference by rounding.
+    private static final int TOLERANCE = 2;
+
+    private static byte[] getPixels(BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Creates an image in which blue is a horizontal gradient, green is a
+     * vertical gradient and red is a checkerboard of 3x3 squares.
+     */
+    private static BufferedImage createPatternImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height,
+                ImageUtils.REQUIRED_IMAGE_TYPE);
+        byte[] pixels = getPixels(image);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                int offset = ((y * width) + x) * CHANNELS;
+                pixels[offset] = (byte) 255;
+                pixels[offset + 1] = (byte) (x * 255 / (width - 1));
+                pixels[offset + 2] = (byte) (y * 255 / (height - 1));
+                pixels[offset + 3] = (byte) ((((x / 3) + (y / 3)) % 2) * 255);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Interpolates 4 samples the way the original (floating point)
+     * implementation did.
+     */
+    private static int interpolateCubic(int x0, int x1, int x2, int x3,
+                                        double t) {
+        int a0 = x3 - x2 - x0 + x1;
+        int a1 = x0 - x1 - a0;
+        int a2 = x2 - x0;
+        double value = (a0 * (t * t * t)) + (a1 * (t * t)) + (a2 * t) + x1;
+        return (int) Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    /**
+     * A straightforward floating point implementation of the scaling: rows
+     * first, then columns, then averaging when scaling down by more than a
+     * half. Values beyond the edges are extrapolated linearly.
+     */
+    private static int[] referenceScale(byte[] source, int srcWidth,
+                                        int srcHeight, int targetWidth,
+                                        int targetHeight) {
+        int widthMultiplier = Math.max(1, srcWidth / targetWidth);
+        int heightMultiplier = Math.max(1, srcHeight / targetHeight);
+        int width = targetWidth * widthMultiplier;
+        int height = targetHeight * heightMultiplier;
+
+        int[] rows = new int[width * srcHeight * CHANNELS];
+        for (int y = 0; y < srcHeight; ++y) {
+            for (int x = 0; x < width; ++x) {
+                double position = (double) x * (srcWidth - 1) / width;
+                int floor = (int) Math.floor(position);
+                int srcOffset = ((y * srcWidth) + floor) * CHANNELS;
+                for (int c = 0; c < CHANNELS; ++c) {
+                    int offset = srcOffset + c;
+                    int x1 = source[offset] & 0xff;
+                    int x2 = source[offset + CHANNELS] & 0xff;
+                    int x0 = floor > 0 ? source[offset - CHANNELS] & 0xff
+                            : (2 * x1) - x2;
+                    int x3 = floor < srcWidth - 2
+                            ? source[offset + (2 * CHANNELS)] & 0xff
+                            : (2 * x2) - x1;
+                    rows[((y * width) + x) * CHANNELS + c] =
+                            interpolateCubic(x0, x1, x2, x3, position - floor);
+                }
+            }
+        }
+
+        int rowLength = width * CHANNELS;
+        int[] columns = new int[width * height * CHANNELS];
+        for (int y = 0; y < height; ++y) {
+            double position = (double) y * (srcHeight - 1) / height;
+            int floor = (int) Math.floor(position);
+            for (int i = 0; i < rowLength; ++i) {
+                int offset = (floor * rowLength) + i;
+                int y1 = rows[offset];
+                int y2 = rows[offset + rowLength];
+                int y0 = floor > 0 ? rows[offset - rowLength] : (2 * y1) - y2;
+                int y3 = floor < srcHeight - 2
+                        ? rows[offset + (2 * rowLength)] : (2 * y2) - y1;
+                columns[(y * rowLength) + i] =
+                        interpolateCubic(y0, y1, y2, y3, position - floor);
+            }
+        }
+
+        int blockSize = widthMultiplier * heightMultiplier;
+        int[] target = new int[targetWidth * targetHeight * CHANNELS];
+        for (int y = 0; y < targetHeight; ++y) {
+            for (int x = 0; x < targetWidth; ++x) {
+                for (int c = 0; c < CHANNELS; ++c) {
+                    int sum = 0;
+                    for (int by = 0; by < heightMultiplier; ++by) {
+                        for (int bx = 0; bx < widthMultiplier; ++bx) {
+                            sum += columns[((((y * heightMultiplier) + by)
+                                    * width) + (x * widthMultiplier) + bx)
+                                    * CHANNELS + c];
+                        }
+                    }
+                    target[((y * targetWidth) + x) * CHANNELS + c] =
+                            (int) Math.round((double) sum / blockSize);
+                }
+            }
+        }
+        return target;
+    }
+
+    @Test
+    public void testScaleMatchesReference() {
+        // Big enough for each pass to be split into several bands.
+        BufferedImage image = createPatternImage(400, 300);
+        byte[] source = getPixels(image);
+
+        // The same scaler for all sizes, so its buffers are reused.
+        BicubicScaler scaler = new BicubicScaler();
+        int[][] targetSizes = {{600, 450}, {300, 200}, {120, 90}};
+        for (int[] targetSize : targetSizes) {
+            int targetWidth = targetSize[0];
+            int targetHeight = targetSize[1];
+            BufferedImage scaled =
+                    scaler.scale(image, targetWidth, targetHeight);
+
+            Assert.assertEquals(targetWidth, scaled.getWidth());
+            Assert.assertEquals(targetHeight, scaled.getHeight());
+
+            byte[] actual = getPixels(scaled);
+            int[] expected = referenceScale(source, image.getWidth(),
+                    image.getHeight(), targetWidth, targetHeight);
+            Assert.assertEquals(expected.length, actual.length);
+            for (int i = 0; i < expected.length; ++i) {
+                int difference = Math.abs((actual[i] & 0xff) - expected[i]);
+                if (difference > TOLERANCE) {
+                    int pixel = i / CHANNELS;
+                    Assert.fail(String.format(
+                            "%dx%d: pixel (%d, %d) channel %d is %d, " +
+                                    "expected %d",
+                            targetWidth, targetHeight, pixel % targetWidth,
+                            pixel / targetWidth, i % CHANNELS,
+                            actual[i] & 0xff, expected[i]));
+                }
+            }
+        }
+    }
+}
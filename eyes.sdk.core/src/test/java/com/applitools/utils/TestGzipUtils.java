@@ -0,0 +1,62 @@
+package com.applitools.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+@RunWith(JUnit4.class)
+public class TestGzipUtils {
+
+    private static final byte[] DATA =
+            ("{\"properties\": [{\"name\": \"a\", \"value\": \"b\"}, " +
+                    "{\"name\": \"a\", \"value\": \"b\"}]}").getBytes();
+
+    private static byte[] deflate(byte[] data, boolean nowrap)
+            throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DeflaterOutputStream deflater = new DeflaterOutputStream(output,
+                new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap));
+        deflater.write(data);
+        deflater.close();
+        return output.toByteArray();
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        byte[] compressed = GzipUtils.compress(DATA);
+        Assert.assertArrayEquals(DATA,
+                GzipUtils.decompress(compressed, "gzip"));
+        Assert.assertArrayEquals(DATA,
+                GzipUtils.decompress(compressed, " X-GZIP "));
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        Assert.assertArrayEquals(DATA,
+                GzipUtils.decompress(deflate(DATA, false), "deflate"));
+        Assert.assertArrayEquals(DATA,
+                GzipUtils.decompress(deflate(DATA, true), "deflate"));
+    }
+
+    @Test
+    public void testNoEncoding() throws IOException {
+        Assert.assertSame(DATA, GzipUtils.decompress(DATA, null));
+        Assert.assertSame(DATA, GzipUtils.decompress(DATA, "identity"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedEncoding() throws IOException {
+        GzipUtils.decompress(DATA, "br");
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptData() throws IOException {
+        GzipUtils.decompress(DATA, "gzip");
+    }
+}
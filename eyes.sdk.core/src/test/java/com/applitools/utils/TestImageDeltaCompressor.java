@@ -0,0 +1,55 @@
+package com.applitools.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+@RunWith(JUnit4.class)
+public class TestImageDeltaCompressor {
+
+    private static byte[] readResource(String resource) throws IOException {
+        InputStream is = TestImageDeltaCompressor.class.getClassLoader()
+                .getResourceAsStream(resource);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int length;
+        while ((length = is.read(buffer)) != -1) {
+            baos.write(buffer, 0, length);
+        }
+        is.close();
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testCompressByRawBlocks() throws IOException {
+        BufferedImage source =
+                ImageUtils.imageFromResource("compression-source.png");
+        BufferedImage target =
+                ImageUtils.imageFromResource("compression-target.png");
+        byte[] targetEncoded = readResource("compression-target.png");
+        byte[] expected = readResource("compression-block-size-10-result.bin");
+
+        byte[] compressed = ImageDeltaCompressor.compressByRawBlocks(target,
+                targetEncoded, source, 10);
+
+        Assert.assertArrayEquals("compressed", expected, compressed);
+    }
+
+    @Test
+    public void testCompressByRawBlocksNoSource() throws IOException {
+        BufferedImage target =
+                ImageUtils.imageFromResource("compression-target.png");
+        byte[] targetEncoded = readResource("compression-target.png");
+
+        byte[] compressed = ImageDeltaCompressor.compressByRawBlocks(target,
+                targetEncoded, null);
+
+        Assert.assertSame("compressed", targetEncoded, compressed);
+    }
+}
@@ -0,0 +1,70 @@
+package com.applitools.utils;
+
+import com.applitools.eyes.Region;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Arrays;
+
+@RunWith(JUnit4.class)
+public class TestImageUtils {
+
+    private static byte[] getPixels(BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+
+    @Test
+    public void testGetImagePart() {
+        BufferedImage image =
+                ImageUtils.imageFromResource("compression-target.png");
+        Region region = new Region(13, 250, 400, 300);
+
+        BufferedImage part = ImageUtils.getImagePart(image, region);
+
+        Assert.assertEquals(400, part.getWidth());
+        Assert.assertEquals(300, part.getHeight());
+        Assert.assertEquals(400 * 300 * 4, getPixels(part).length);
+        for (int y = 0; y < region.getHeight(); y += 7) {
+            for (int x = 0; x < region.getWidth(); x += 7) {
+                Assert.assertEquals(image.getRGB(x + 13, y + 250),
+                        part.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testGetImagePartSharedBuffer() {
+        BufferedImage image =
+                ImageUtils.imageFromResource("compression-target.png");
+        Region region = new Region(13, 250, 400, 300);
+
+        BufferedImage view = ImageUtils.getImagePart(image, region, true);
+        BufferedImage copy = ImageUtils.getImagePart(image, region);
+
+        Assert.assertSame(getPixels(image), getPixels(view));
+        // Normalizing a view copies it into a buffer of its own.
+        Assert.assertArrayEquals(getPixels(copy),
+                getPixels(ImageUtils.normalizeImageType(view)));
+    }
+
+    @Test
+    public void testScaleImageKeepsUniformColor() {
+        BufferedImage image = new BufferedImage(50, 30,
+                ImageUtils.REQUIRED_IMAGE_TYPE);
+        Arrays.fill(getPixels(image), (byte) 0x80);
+
+        for (double scaleRatio : new double[]{2, 0.5, 0.2}) {
+            BufferedImage scaled = ImageUtils.scaleImage(image, scaleRatio);
+
+            Assert.assertEquals((int) Math.ceil(50 * scaleRatio),
+                    scaled.getWidth());
+            for (byte value : getPixels(scaled)) {
+                Assert.assertEquals((byte) 0x80, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.applitools.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+@RunWith(JUnit4.class)
+public class TestNetworkUtils {
+
+    @Test
+    public void testRetryAfterSeconds() {
+        Assert.assertEquals(3000, NetworkUtils.getRetryAfterDelay("3", 0));
+        Assert.assertEquals(0, NetworkUtils.getRetryAfterDelay(" 0 ", 0));
+    }
+
+    @Test
+    public void testRetryAfterDate() {
+        Calendar now = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        now.set(Calendar.MILLISECOND, 0);
+        long nowMillis = now.getTimeInMillis();
+
+        Calendar retryTime = (Calendar) now.clone();
+        retryTime.add(Calendar.SECOND, 5);
+        String retryAfter = GeneralUtils.toRfc1123(retryTime);
+
+        Assert.assertEquals(5000,
+                NetworkUtils.getRetryAfterDelay(retryAfter, nowMillis));
+        // A date in the past means retrying immediately.
+        Assert.assertEquals(0, NetworkUtils.getRetryAfterDelay(retryAfter,
+                nowMillis + 60000));
+    }
+
+    @Test
+    public void testMissingOrInvalidRetryAfter() {
+        Assert.assertEquals(-1, NetworkUtils.getRetryAfterDelay(null, 0));
+        Assert.assertEquals(-1, NetworkUtils.getRetryAfterDelay("", 0));
+        Assert.assertEquals(-1, NetworkUtils.getRetryAfterDelay("-1", 0));
+        Assert.assertEquals(-1, NetworkUtils.getRetryAfterDelay("soon", 0));
+    }
+
+    @Test
+    public void testConnectFailure() {
+        Assert.assertTrue(NetworkUtils.isConnectFailure(
+                new ConnectException("Connection refused")));
+        // Connectors wrap the network error.
+        Assert.assertTrue(NetworkUtils.isConnectFailure(new RuntimeException(
+                new IOException(new ConnectException("Connection refused")))));
+        // The server might have received the request.
+        Assert.assertFalse(NetworkUtils.isConnectFailure(new RuntimeException(
+                new SocketTimeoutException("Read timed out"))));
+        Assert.assertFalse(NetworkUtils.isConnectFailure(
+                new RuntimeException("Failed")));
+        Assert.assertFalse(NetworkUtils.isConnectFailure(null));
+    }
+}
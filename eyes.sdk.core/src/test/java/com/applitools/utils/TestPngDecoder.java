@@ -0,0 +1,58 @@
+package com.applitools.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+@RunWith(JUnit4.class)
+public class TestPngDecoder {
+
+    private static byte[] getPixels(BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+
+    private static byte[] writePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream pngBytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", pngBytes);
+        return pngBytes.toByteArray();
+    }
+
+    @Test
+    public void testDecodeRgbImage() throws IOException {
+        BufferedImage image =
+                ImageUtils.imageFromResource("compression-target.png");
+        // Browsers' screenshots are usually RGB (no alpha channel).
+        BufferedImage rgbImage = new BufferedImage(image.getWidth(),
+                image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        rgbImage.getGraphics().drawImage(image, 0, 0, null);
+        byte[] pngBytes = writePng(rgbImage);
+
+        Assert.assertTrue(PngDecoder.isSupported(pngBytes));
+        BufferedImage decoded = PngDecoder.decode(pngBytes);
+
+        Assert.assertEquals(ImageUtils.REQUIRED_IMAGE_TYPE, decoded.getType());
+        Assert.assertArrayEquals(
+                getPixels(ImageUtils.normalizeImageType(rgbImage)),
+                getPixels(decoded));
+    }
+
+    @Test
+    public void testUnsupportedImageFallsBackToImageIO() throws IOException {
+        BufferedImage grayImage =
+                new BufferedImage(30, 20, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] pngBytes = writePng(grayImage);
+
+        Assert.assertFalse(PngDecoder.isSupported(pngBytes));
+        BufferedImage decoded = ImageUtils.imageFromBytes(pngBytes);
+
+        Assert.assertEquals(ImageUtils.REQUIRED_IMAGE_TYPE, decoded.getType());
+        Assert.assertEquals(30, decoded.getWidth());
+    }
+}
@@ -0,0 +1,48 @@
+package com.applitools.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.zip.Deflater;
+
+@RunWith(JUnit4.class)
+public class TestPngEncoder {
+
+    private static byte[] getPixels(BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+
+    @Test
+    public void testEncodeDecodesToSamePixels() {
+        BufferedImage image =
+                ImageUtils.imageFromResource("compression-target.png");
+
+        // Small chunk sizes, so the image is split into many chunks (some
+        // smaller than the deflate dictionary).
+        int[] chunkSizes = {8 * 1024, 64 * 1024};
+        for (int chunkSize : chunkSizes) {
+            for (PngEncoder.FilterStrategy filterStrategy :
+                    PngEncoder.FilterStrategy.values()) {
+                PngEncoder encoder = new PngEncoder(Deflater.BEST_SPEED,
+                        filterStrategy, chunkSize);
+
+                BufferedImage decoded =
+                        ImageUtils.imageFromBytes(encoder.encode(image));
+
+                Assert.assertEquals(image.getWidth(), decoded.getWidth());
+                Assert.assertEquals(image.getHeight(), decoded.getHeight());
+                Assert.assertArrayEquals(filterStrategy + " " + chunkSize,
+                        getPixels(image), getPixels(decoded));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCompressionLevel() {
+        new PngEncoder(10, PngEncoder.FilterStrategy.ADAPTIVE);
+    }
+}
@@ -2,6 +2,7 @@ package com.applitools.eyes.selenium;
 
 import com.applitools.eyes.Location;
 import com.applitools.eyes.Logger;
+import com.applitools.eyes.selenium.wrappers.ElementGeometry;
 import com.applitools.eyes.selenium.wrappers.EyesRemoteWebElement;
 import com.applitools.utils.ArgumentGuard;
 import org.openqa.selenium.WebDriverException;
@@ -32,8 +33,24 @@ public class BordersAwareElementContentLocationProvider {
                 location));
 
         // Frame borders also have effect on the frame's location.
-        int leftBorderWidth = getPropertyValue(logger, element, "border-left-width");
-        int topBorderWidth = getPropertyValue(logger, element, "border-top-width");
+        int leftBorderWidth;
+        int topBorderWidth;
+        ElementGeometry geometry = null;
+        if (element instanceof EyesRemoteWebElement) {
+            try {
+                geometry = ((EyesRemoteWebElement) element).getGeometry();
+            } catch (WebDriverException e) {
+                logger.verbose("Getting the element's geometry failed: " +
+                        e.getMessage());
+            }
+        }
+        if (geometry != null) {
+            leftBorderWidth = geometry.getBorderLeftWidth();
+            topBorderWidth = geometry.getBorderTopWidth();
+        } else {
+            leftBorderWidth = getPropertyValue(logger, element, "border-left-width");
+            topBorderWidth = getPropertyValue(logger, element, "border-top-width");
+        }
 
         Location contentLocation = new Location(location).offset(leftBorderWidth, topBorderWidth);
         logger.verbose("Done!");
@@ -8,6 +8,7 @@ import com.applitools.eyes.capture.EyesScreenshotFactory;
 import com.applitools.eyes.capture.ImageProvider;
 import com.applitools.eyes.diagnostics.TimedAppOutput;
 import com.applitools.eyes.exceptions.TestFailedException;
+import com.applitools.eyes.fluent.BulkRegionResolver;
 import com.applitools.eyes.fluent.ICheckSettings;
 import com.applitools.eyes.fluent.ICheckSettingsInternal;
 import com.applitools.eyes.positioning.NullRegionProvider;
@@ -20,6 +21,7 @@ import com.applitools.eyes.selenium.exceptions.EyesDriverOperationException;
 import com.applitools.eyes.selenium.fluent.FrameLocator;
 import com.applitools.eyes.selenium.fluent.ISeleniumCheckTarget;
 import com.applitools.eyes.selenium.fluent.ISeleniumFrameCheckTarget;
+import com.applitools.eyes.selenium.fluent.SeleniumBulkRegionResolver;
 import com.applitools.eyes.selenium.fluent.Target;
 import com.applitools.eyes.selenium.frames.Frame;
 import com.applitools.eyes.selenium.frames.FrameChain;
@@ -27,9 +29,11 @@ import com.applitools.eyes.selenium.positioning.*;
 import com.applitools.eyes.selenium.regionVisibility.MoveToRegionVisibilityStrategy;
 import com.applitools.eyes.selenium.regionVisibility.NopRegionVisibilityStrategy;
 import com.applitools.eyes.selenium.regionVisibility.RegionVisibilityStrategy;
+import com.applitools.eyes.selenium.wrappers.ElementGeometry;
 import com.applitools.eyes.selenium.wrappers.EyesRemoteWebElement;
 import com.applitools.eyes.selenium.wrappers.EyesTargetLocator;
 import com.applitools.eyes.selenium.wrappers.EyesWebDriver;
+import com.applitools.eyes.selenium.wrappers.ScriptResultCache;
 import com.applitools.eyes.triggers.MouseAction;
 import com.applitools.utils.*;
 import org.openqa.selenium.*;
@@ -86,6 +90,8 @@ public class Eyes extends EyesBase {
     private double devicePixelRatio;
     private StitchMode stitchMode;
     private int waitBeforeScreenshots;
+    private boolean pipelinedStitching;
+    private boolean adaptiveStabilization;
     private RegionVisibilityStrategy regionVisibilityStrategy;
     private ElementPositionProvider elementPositionProvider;
     private SeleniumJavaScriptExecutor jsExecutor;
@@ -174,6 +180,43 @@ public class Eyes extends EyesBase {
         return waitBeforeScreenshots;
     }
 
+    /**
+     * Sets whether to wait only until the page is stable (the scroll
+     * position stopped changing, and the page and its images are loaded)
+     * before taking each screenshot, instead of always waiting the entire
+     * {@link #getWaitBeforeScreenshots()}. Default is {@code false}.
+     * @param adaptiveStabilization Whether to use adaptive stabilization.
+     */
+    public void setAdaptiveStabilization(boolean adaptiveStabilization) {
+        this.adaptiveStabilization = adaptiveStabilization;
+    }
+
+    /**
+     * @return Whether adaptive stabilization is used before screenshots.
+     */
+    public boolean getAdaptiveStabilization() {
+        return adaptiveStabilization;
+    }
+
+    /**
+     * Sets whether the parts of a full page screenshot should be processed
+     * (cut, cropped and scaled) in the background, while the next parts are
+     * being captured. Default is {@code false}.
+     * @param pipelinedStitching Whether to process the stitched parts in the
+     *                           background.
+     */
+    public void setPipelinedStitching(boolean pipelinedStitching) {
+        this.pipelinedStitching = pipelinedStitching;
+    }
+
+    /**
+     * @return Whether the parts of a full page screenshot are processed in
+     * the background.
+     */
+    public boolean getPipelinedStitching() {
+        return pipelinedStitching;
+    }
+
     /**
      * Turns on/off the automatic scrolling to a region being checked by
      * {@code checkRegion}.
@@ -623,6 +666,22 @@ public class Eyes extends EyesBase {
     public void check(String name, ICheckSettings checkSettings) {
         ArgumentGuard.notNull(checkSettings, "checkSettings");
 
+        if (driver == null) {
+            checkImpl(name, checkSettings);
+            return;
+        }
+
+        // Values read from the browser are reused for the rest of the check.
+        ScriptResultCache scriptCache = driver.getScriptCache();
+        scriptCache.beginScope();
+        try {
+            checkImpl(name, checkSettings);
+        } finally {
+            scriptCache.endScope();
+        }
+    }
+
+    private void checkImpl(String name, ICheckSettings checkSettings) {
         logger.verbose(String.format("check(\"%s\", checkSettings) - begin", name));
 
         ICheckSettingsInternal checkSettingsInternal = (ICheckSettingsInternal) checkSettings;
@@ -771,7 +830,9 @@ public class Eyes extends EyesBase {
         FrameChain originalFC = new FrameChain(logger, driver.getFrameChain());
         FrameChain fc = new FrameChain(logger, driver.getFrameChain());
         while (fc.size() > 0) {
-            driver.getRemoteWebDriver().switchTo().parentFrame();
+            // Switching through the driver, so its frame chain is kept in
+            // sync with the actual frame.
+            driver.switchTo().parentFrame();
             Frame frame = fc.pop();
             this.positionProvider.setPosition(frame.getLocation());
         }
@@ -1344,10 +1405,10 @@ public class Eyes extends EyesBase {
 
             checkFrameOrElement = true;
 
-            logger.verbose("Getting screenshot as base64..");
-            String screenshot64 = driver.getScreenshotAs(OutputType.BASE64);
+            logger.verbose("Getting screenshot as bytes..");
+            byte[] screenshotBytes = driver.getScreenshotAs(OutputType.BYTES);
             logger.verbose("Done! Creating image object...");
-            BufferedImage screenshotImage = ImageUtils.imageFromBase64(screenshot64);
+            BufferedImage screenshotImage = ImageUtils.imageFromBytes(screenshotBytes);
 
             // FIXME - Scaling should be handled in a single place instead
             ScaleProvider scaleProvider = updateScalingParams().getScaleProvider(screenshotImage.getWidth());
@@ -1646,29 +1707,28 @@ public class Eyes extends EyesBase {
 
         String originalOverflow = null;
 
-        Point pl = eyesElement.getLocation();
+        ElementGeometry geometry = eyesElement.getGeometry();
 
         try {
             checkFrameOrElement = true;
 
-            String displayStyle = eyesElement.getComputedStyle("display");
-            if (!displayStyle.equals("inline")) {
+            if (!"inline".equals(geometry.getDisplay())) {
                 elementPositionProvider = new ElementPositionProvider(logger, driver, eyesElement);
             }
 
             // Set overflow to "hidden".
-            originalOverflow = eyesElement.getOverflow();
+            originalOverflow = geometry.getOverflow();
             eyesElement.setOverflow("hidden");
 
-            int elementWidth = eyesElement.getClientWidth();
-            int elementHeight = eyesElement.getClientHeight();
+            // Hiding the scrollbars might have changed the client size.
+            RectangleSize clientSize = eyesElement.getGeometry().getClientSize();
 
-            int borderLeftWidth = eyesElement.getComputedStyleInteger("border-left-width");
-            int borderTopWidth = eyesElement.getComputedStyleInteger("border-top-width");
+            Location contentLocation = geometry.getContentLocation();
 
             final Region elementRegion = new Region(
-                    pl.getX() + borderLeftWidth, pl.getY() + borderTopWidth,
-                    elementWidth, elementHeight, CoordinatesType.CONTEXT_RELATIVE);
+                    contentLocation.getX(), contentLocation.getY(),
+                    clientSize.getWidth(), clientSize.getHeight(),
+                    CoordinatesType.CONTEXT_RELATIVE);
 
             logger.verbose("Element region: " + elementRegion);
 
@@ -1951,10 +2011,30 @@ public class Eyes extends EyesBase {
     }
     */
 
+    @Override
+    protected MatchResult checkWindowBase(RegionProvider regionProvider, String tag,
+                                          boolean ignoreMismatch, ICheckSettings checkSettings) {
+        if (driver == null) {
+            return super.checkWindowBase(regionProvider, tag, ignoreMismatch, checkSettings);
+        }
+
+        ScriptResultCache scriptCache = driver.getScriptCache();
+        scriptCache.beginScope();
+        try {
+            return super.checkWindowBase(regionProvider, tag, ignoreMismatch, checkSettings);
+        } finally {
+            scriptCache.endScope();
+        }
+    }
+
     @Override
     protected EyesScreenshot getScreenshot() {
 
         logger.verbose("getScreenshot()");
+
+        // The page might have changed since the last screenshot (e.g., when
+        // retrying a match).
+        driver.getScriptCache().invalidate();
         EyesWebDriverScreenshot result;
 
         ScaleProviderFactory scaleProviderFactory = updateScalingParams();
@@ -1963,6 +2043,11 @@ public class Eyes extends EyesBase {
 
         FrameChain originalFrameChain = new FrameChain(logger, driver.getFrameChain());
         FullPageCaptureAlgorithm algo = new FullPageCaptureAlgorithm(logger, userAgent, jsExecutor);
+        algo.setPipelined(pipelinedStitching);
+        if (adaptiveStabilization) {
+            algo.setStabilizationStrategy(new AdaptiveStabilizationStrategy(logger, jsExecutor,
+                    driver.getScriptCache()));
+        }
         EyesTargetLocator switchTo = (EyesTargetLocator) driver.switchTo();
 
         if (checkFrameOrElement) {
@@ -2041,6 +2126,12 @@ public class Eyes extends EyesBase {
         return "";
     }
 
+    @Override
+    protected BulkRegionResolver getBulkRegionResolver() {
+        // Element based regions are read in a single round trip.
+        return new SeleniumBulkRegionResolver(logger);
+    }
+
     @Override
     protected String getInferredEnvironment() {
         String userAgent = driver.getUserAgent();
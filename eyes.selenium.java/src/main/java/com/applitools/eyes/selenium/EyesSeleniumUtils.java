@@ -11,9 +11,14 @@ import com.applitools.utils.GeneralUtils;
 import org.openqa.selenium.*;
 import org.openqa.selenium.interactions.internal.Coordinates;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * We named this class EyesSeleniumUtils because there's a SeleniumUtils
@@ -80,6 +85,48 @@ public class EyesSeleniumUtils {
             "-webkit-transform"
     };
 
+    private static final String JS_GET_DEVICE_PIXEL_RATIO =
+            "return window.devicePixelRatio";
+
+    private static final String JS_GET_USER_AGENT = "return navigator.userAgent";
+
+    // Returns the bounds of every element passed as an argument, relative to
+    // the document which contains it (like WebElement's location).
+    private static final String JS_GET_ELEMENTS_BOUNDS =
+            "var result = []; " +
+            "for (var i = 0; i < arguments.length; ++i) { " +
+                "var elem = arguments[i]; " +
+                "var doc = elem.ownerDocument; " +
+                "var win = doc.defaultView || doc.parentWindow; " +
+                "var docElem = doc.documentElement; " +
+                "var scrollX = win.scrollX || ((win.pageXOffset || " +
+                    "docElem.scrollLeft) - (docElem.clientLeft || 0)); " +
+                "var scrollY = win.scrollY || ((win.pageYOffset || " +
+                    "docElem.scrollTop) - (docElem.clientTop || 0)); " +
+                "var rect = elem.getBoundingClientRect(); " +
+                "result.push([rect.left + scrollX, rect.top + scrollY, " +
+                    "rect.width, rect.height]); " +
+            "} " +
+            "return result;";
+
+    // Scripts which only read from the page, so their results can be cached
+    // as long as the page isn't changed.
+    private static final Set<String> READ_ONLY_SCRIPTS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    JS_GET_VIEWPORT_SIZE, JS_GET_CURRENT_SCROLL_POSITION,
+                    JS_RETURN_CONTENT_ENTIRE_SIZE, JS_GET_DEVICE_PIXEL_RATIO,
+                    JS_GET_USER_AGENT, JS_GET_ELEMENTS_BOUNDS)));
+
+    /**
+     * @param script The script to check.
+     * @return Whether the script is one of the scripts used by the SDK to
+     * read (and not change) the page, such as the viewport size or the scroll
+     * position.
+     */
+    public static boolean isReadOnlyScript(String script) {
+        return READ_ONLY_SCRIPTS.contains(script);
+    }
+
     /**
      * Extracts the location relative to the entire page from the coordinates
      * (e.g. as opposed to viewport)
@@ -125,7 +172,7 @@ public class EyesSeleniumUtils {
         return driver;
     }
 
-    private static ImageOrientationHandler imageOrientationHandlerHandler = new ImageOrientationHandler() {
+    private static final ImageOrientationHandler DEFAULT_IMAGE_ORIENTATION_HANDLER = new ImageOrientationHandler() {
         @Override
         public boolean isLandscapeOrientation(WebDriver driver) {
             if (driver instanceof Rotatable) {
@@ -146,6 +193,8 @@ public class EyesSeleniumUtils {
         }
     };
 
+    private static ImageOrientationHandler imageOrientationHandlerHandler = DEFAULT_IMAGE_ORIENTATION_HANDLER;
+
     public static void setImageOrientationHandlerHandler(ImageOrientationHandler imageOrientationHandler) {
         imageOrientationHandlerHandler = imageOrientationHandler;
     }
@@ -158,6 +207,14 @@ public class EyesSeleniumUtils {
         return imageOrientationHandlerHandler.tryAutomaticRotation(logger, driver, image);
     }
 
+    /**
+     * @return Whether automatic rotation is done by the default handler,
+     * which doesn't use the driver (so it can be done on any thread).
+     */
+    public static boolean isDefaultImageOrientationHandler() {
+        return imageOrientationHandlerHandler == DEFAULT_IMAGE_ORIENTATION_HANDLER;
+    }
+
     private static JavascriptHandler javascriptHandler = new JavascriptHandler() {
         @Override
         public void handle(String script, Object[] args) {
@@ -481,10 +538,56 @@ public class EyesSeleniumUtils {
      */
     public static float getDevicePixelRatio(IEyesJsExecutor executor) {
         return Float.parseFloat(
-                executor.executeScript("return window.devicePixelRatio")
+                executor.executeScript(JS_GET_DEVICE_PIXEL_RATIO)
                         .toString());
     }
 
+    /**
+     * @param executor The executor to use.
+     * @return The user agent string of the browser.
+     */
+    public static String getUserAgent(JavascriptExecutor executor) {
+        return (String) executor.executeScript(JS_GET_USER_AGENT);
+    }
+
+    /**
+     * Reads the bounds of many elements in a single script execution, rather
+     * than querying each element's location and size.
+     * @param executor The executor to use.
+     * @param elements The elements, which must be in the current frame.
+     * @return The bounds of the elements (in the same order), relative to the
+     * current frame.
+     */
+    public static List<Region> getElementsBounds(JavascriptExecutor executor,
+                                                 List<WebElement> elements) {
+        ArgumentGuard.notNull(elements, "elements");
+        List<Region> result = new ArrayList<>(elements.size());
+        if (elements.isEmpty()) {
+            return result;
+        }
+
+        Object boundsList = executor.executeScript(JS_GET_ELEMENTS_BOUNDS,
+                elements.toArray());
+        if (!(boundsList instanceof List) ||
+                ((List<?>) boundsList).size() != elements.size()) {
+            throw new EyesDriverOperationException(
+                    "Failed to read elements bounds!");
+        }
+
+        //noinspection unchecked
+        for (List<Number> bounds : (List<List<Number>>) boundsList) {
+            // Like the location and size workarounds, fractions are rounded
+            // up.
+            result.add(new Region(
+                    (int) Math.ceil(bounds.get(0).doubleValue()),
+                    (int) Math.ceil(bounds.get(1).doubleValue()),
+                    (int) Math.ceil(bounds.get(2).doubleValue()),
+                    (int) Math.ceil(bounds.get(3).doubleValue()),
+                    CoordinatesType.CONTEXT_RELATIVE));
+        }
+        return result;
+    }
+
     /**
      *
      * @param executor The executor to use.
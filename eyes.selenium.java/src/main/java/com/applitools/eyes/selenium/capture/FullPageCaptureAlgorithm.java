@@ -1,23 +1,31 @@
 package com.applitools.eyes.selenium.capture;
 
 import com.applitools.eyes.*;
+import com.applitools.eyes.capture.DeferredImageProvider;
 import com.applitools.eyes.capture.EyesScreenshotFactory;
 import com.applitools.eyes.capture.ImageProvider;
 import com.applitools.eyes.debug.DebugScreenshotsProvider;
 import com.applitools.eyes.CutProvider;
+import com.applitools.eyes.positioning.FixedStabilizationStrategy;
 import com.applitools.eyes.positioning.PositionMemento;
 import com.applitools.eyes.positioning.PositionProvider;
+import com.applitools.eyes.positioning.StabilizationStrategy;
 import com.applitools.eyes.selenium.EyesSeleniumUtils;
 import com.applitools.eyes.selenium.exceptions.EyesDriverOperationException;
 import com.applitools.eyes.selenium.positioning.NullRegionPositionCompensation;
 import com.applitools.eyes.selenium.positioning.RegionPositionCompensation;
 import com.applitools.eyes.selenium.positioning.ScrollPositionProvider;
 import com.applitools.utils.ArgumentGuard;
-import com.applitools.utils.GeneralUtils;
+import com.applitools.utils.ImageProcessingPool;
 import com.applitools.utils.ImageUtils;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 
 public class FullPageCaptureAlgorithm {
     private static final int MIN_SCREENSHOT_PART_HEIGHT = 10;
@@ -25,6 +33,8 @@ public class FullPageCaptureAlgorithm {
     private final Logger logger;
     private final UserAgent userAgent;
     private final IEyesJsExecutor jsExecutor;
+    private boolean isPipelined;
+    private StabilizationStrategy stabilizationStrategy;
 
     public FullPageCaptureAlgorithm(Logger logger, UserAgent userAgent, IEyesJsExecutor jsExecutor) {
         ArgumentGuard.notNull(logger, "logger");
@@ -33,6 +43,34 @@ public class FullPageCaptureAlgorithm {
         this.logger = logger;
         this.userAgent = userAgent;
         this.jsExecutor = jsExecutor;
+        this.stabilizationStrategy = new FixedStabilizationStrategy();
+    }
+
+    /**
+     * @param isPipelined Whether the scrolled parts should be cut, cropped
+     *                    and scaled in the background, while the next parts
+     *                    are being captured.
+     */
+    public void setPipelined(boolean isPipelined) {
+        this.isPipelined = isPipelined;
+    }
+
+    /**
+     * @return Whether the scrolled parts are processed in the background.
+     */
+    public boolean isPipelined() {
+        return isPipelined;
+    }
+
+    /**
+     * @param stabilizationStrategy The strategy for waiting for the page to
+     *                              stabilize after each scroll. Default is
+     *                              waiting the entire
+     *                              {@code waitBeforeScreenshots}.
+     */
+    public void setStabilizationStrategy(StabilizationStrategy stabilizationStrategy) {
+        ArgumentGuard.notNull(stabilizationStrategy, "stabilizationStrategy");
+        this.stabilizationStrategy = stabilizationStrategy;
     }
 
     private static void saveDebugScreenshotPart(DebugScreenshotsProvider debugScreenshotsProvider, BufferedImage image,
@@ -49,7 +87,7 @@ public class FullPageCaptureAlgorithm {
      * @param originProvider        A provider for scrolling to initial position before starting the actual stitching.
      * @param positionProvider      A provider of the scrolling implementation.
      * @param scaleProviderFactory  A factory for getting the scale provider.
-     * @param waitBeforeScreenshots Time to wait before each screenshot (milliseconds).
+     * @param waitBeforeScreenshots Maximal time to wait before each screenshot (milliseconds).
      * @param screenshotFactory     The factory to use for creating screenshots from the images.
      * @param stitchingOverlap      The width of the overlapping parts when stitching an image.
      * @param regionPositionCompensation A strategy for compensating region positions for some browsers.
@@ -79,8 +117,7 @@ public class FullPageCaptureAlgorithm {
         do {
             originProvider.setPosition(new Location(0, 0));
             // Give the scroll time to stabilize
-            GeneralUtils.sleep(waitBeforeScreenshots);
-            currentPosition = originProvider.getCurrentPosition();
+            currentPosition = stabilizationStrategy.waitForStabilization(originProvider, waitBeforeScreenshots);
         } while (currentPosition.getX() != 0
                 && currentPosition.getY() != 0
                 && (--setPositionRetries > 0));
@@ -181,7 +218,7 @@ public class FullPageCaptureAlgorithm {
 
         logger.verbose("Done! Adding initial screenshot..");
         // Starting with the screenshot we already captured at (0,0).
-        Raster initialPart = image.getData();
+        Raster initialPart = image.getRaster();
         logger.verbose(String.format("Initial part:(0,0)[%d x %d]",
                 initialPart.getWidth(), initialPart.getHeight()));
         stitchedImage.getRaster().setRect(0, 0, initialPart);
@@ -195,55 +232,70 @@ public class FullPageCaptureAlgorithm {
         // Take screenshot and stitch for each screenshot part.
         logger.verbose("Getting the rest of the image parts...");
         BufferedImage partImage = null;
-        for (Region partRegion : imageParts) {
-            // Skipping screenshot for 0,0 (already taken)
-            if (partRegion.getLeft() == 0 && partRegion.getTop() == 0) {
-                continue;
-            }
-            logger.verbose(String.format("Taking screenshot for %s", partRegion));
-            // Set the position to the part's top/left.
-            positionProvider.setPosition(partRegion.getLocation());
-            // Giving it time to stabilize.
-            GeneralUtils.sleep(waitBeforeScreenshots);
-            // Screen size may cause the scroll to only reach part of the way.
-            currentPosition = positionProvider.getCurrentPosition();
-            logger.verbose(String.format("Set position to %s", currentPosition));
-
-            // Actually taking the screenshot.
-            logger.verbose("Getting image...");
-            partImage = imageProvider.getImage();
-            debugScreenshotsProvider.save(partImage,
-                    "original-scrolled-" + positionProvider.getCurrentPosition().toStringForFilename());
-
-            // FIXME - cropping should be overlaid (see previous comment re cropping)
-            if (!(cutProvider instanceof NullCutProvider)) {
-                logger.verbose("cutting...");
-                partImage = cutProvider.cut(partImage);
-                debugScreenshotsProvider.save(partImage,
-                        "original-scrolled-cut-" + positionProvider.getCurrentPosition().toStringForFilename());
+        // Parts which are still being processed (pipelined mode), in the
+        // order they were captured.
+        LinkedList<PendingPart> pendingParts = new LinkedList<>();
+        int maxPendingParts = ImageProcessingPool.getParallelism() + 1;
+        try {
+            for (Region partRegion : imageParts) {
+                // Skipping screenshot for 0,0 (already taken)
+                if (partRegion.getLeft() == 0 && partRegion.getTop() == 0) {
+                    continue;
+                }
+                logger.verbose(String.format("Taking screenshot for %s", partRegion));
+                // Set the position to the part's top/left.
+                positionProvider.setPosition(partRegion.getLocation());
+                // Giving it time to stabilize. Screen size may cause the
+                // scroll to only reach part of the way.
+                currentPosition = stabilizationStrategy.waitForStabilization(positionProvider,
+                        waitBeforeScreenshots);
+                logger.verbose(String.format("Set position to %s", currentPosition));
+
+                if (isPipelined) {
+                    // Actually taking the screenshot. When possible, it is
+                    // also decoded in the background.
+                    logger.verbose("Getting image...");
+                    Callable<BufferedImage> rawPartImage;
+                    if (imageProvider instanceof DeferredImageProvider) {
+                        rawPartImage = ((DeferredImageProvider) imageProvider).captureImage();
+                    } else {
+                        rawPartImage = new DecodedImage(imageProvider.getImage());
+                    }
+
+                    Callable<BufferedImage> processPart = new PartProcessor(rawPartImage, partRegion,
+                            currentPosition, cutProvider, regionInScreenshot, pixelRatio, scaleProvider,
+                            debugScreenshotsProvider);
+                    pendingParts.add(new PendingPart(
+                            ImageProcessingPool.submit(ForkJoinTask.adapt(processPart)), currentPosition));
+
+                    // Stitching whatever is ready, and making sure we don't
+                    // capture too far ahead of the processing.
+                    while (!pendingParts.isEmpty()
+                            && (pendingParts.size() > maxPendingParts || pendingParts.getFirst().image.isDone())) {
+                        partImage = stitchPendingPart(stitchedImage, pendingParts.removeFirst());
+                    }
+                } else {
+                    // Actually taking the screenshot.
+                    logger.verbose("Getting image...");
+                    BufferedImage rawPartImage = imageProvider.getImage();
+                    debugScreenshotsProvider.save(rawPartImage,
+                            "original-scrolled-" + currentPosition.toStringForFilename());
+
+                    partImage = processPart(rawPartImage, partRegion, currentPosition, cutProvider,
+                            regionInScreenshot, pixelRatio, scaleProvider, debugScreenshotsProvider);
+                    stitchPart(stitchedImage, partImage, currentPosition);
+                }
+
+                lastSuccessfulLocation = currentPosition;
             }
 
-            if (!regionInScreenshot.isEmpty()) {
-                logger.verbose("cropping...");
-                partImage = ImageUtils.getImagePart(partImage, regionInScreenshot);
-                saveDebugScreenshotPart(debugScreenshotsProvider, partImage, partRegion, "original-scrolled-"
-                        + positionProvider.getCurrentPosition().toStringForFilename());
+            while (!pendingParts.isEmpty()) {
+                partImage = stitchPendingPart(stitchedImage, pendingParts.removeFirst());
             }
-
-            if (pixelRatio != 1.0) {
-                logger.verbose("scaling...");
-                // FIXME - scaling should be refactored
-                partImage = ImageUtils.scaleImage(partImage, scaleProvider);
-                saveDebugScreenshotPart(debugScreenshotsProvider, partImage, partRegion,
-                        "original-scrolled-" + positionProvider.getCurrentPosition().toStringForFilename() + "-scaled-");
+        } finally {
+            for (PendingPart pendingPart : pendingParts) {
+                pendingPart.image.cancel(false);
             }
-
-            // Stitching the current part.
-            logger.verbose("Stitching part into the image container...");
-            stitchedImage.getRaster().setRect(currentPosition.getX(), currentPosition.getY(), partImage.getData());
-            logger.verbose("Done!");
-
-            lastSuccessfulLocation = currentPosition;
         }
 
         if (partImage != null) {
@@ -273,6 +325,131 @@ public class FullPageCaptureAlgorithm {
         return stitchedImage;
     }
 
+    /**
+     * Cuts, crops and scales a single part before it is stitched.
+     */
+    private BufferedImage processPart(BufferedImage partImage, Region partRegion, Location position,
+                                      CutProvider cutProvider, Region regionInScreenshot, double pixelRatio,
+                                      ScaleProvider scaleProvider, DebugScreenshotsProvider debugScreenshotsProvider) {
+        // FIXME - cropping should be overlaid (see previous comment re cropping)
+        if (!(cutProvider instanceof NullCutProvider)) {
+            logger.verbose("cutting...");
+            partImage = cutProvider.cut(partImage);
+            debugScreenshotsProvider.save(partImage,
+                    "original-scrolled-cut-" + position.toStringForFilename());
+        }
+
+        if (!regionInScreenshot.isEmpty()) {
+            logger.verbose("cropping...");
+            // The part is only read when it's stitched (or scaled), so
+            // there's no need to copy its pixels.
+            partImage = ImageUtils.getImagePart(partImage, regionInScreenshot, true);
+            saveDebugScreenshotPart(debugScreenshotsProvider, partImage, partRegion, "original-scrolled-"
+                    + position.toStringForFilename());
+        }
+
+        if (pixelRatio != 1.0) {
+            logger.verbose("scaling...");
+            // FIXME - scaling should be refactored
+            partImage = ImageUtils.scaleImage(partImage, scaleProvider);
+            saveDebugScreenshotPart(debugScreenshotsProvider, partImage, partRegion,
+                    "original-scrolled-" + position.toStringForFilename() + "-scaled-");
+        }
+
+        return partImage;
+    }
+
+    private void stitchPart(BufferedImage stitchedImage, BufferedImage partImage, Location position) {
+        logger.verbose("Stitching part into the image container...");
+        stitchedImage.getRaster().setRect(position.getX(), position.getY(), partImage.getRaster());
+        logger.verbose("Done!");
+    }
+
+    /**
+     * Waits for a part to be processed, and stitches it.
+     * @return The processed part.
+     */
+    private BufferedImage stitchPendingPart(BufferedImage stitchedImage, PendingPart pendingPart) {
+        BufferedImage partImage;
+        try {
+            partImage = pendingPart.image.get();
+        } catch (InterruptedException e) {
+            throw new EyesException("Interrupted while processing screenshot parts!", e);
+        } catch (ExecutionException e) {
+            throw new EyesException("Failed to process screenshot part!", e.getCause());
+        }
+
+        stitchPart(stitchedImage, partImage, pendingPart.position);
+        return partImage;
+    }
+
+    /**
+     * A captured part which is being processed in the background.
+     */
+    private static class PendingPart {
+        private final Future<BufferedImage> image;
+        private final Location position;
+
+        public PendingPart(Future<BufferedImage> image, Location position) {
+            this.image = image;
+            this.position = position;
+        }
+    }
+
+    /**
+     * An image which was already decoded by the image provider.
+     */
+    private static class DecodedImage implements Callable<BufferedImage> {
+        private final BufferedImage image;
+
+        public DecodedImage(BufferedImage image) {
+            this.image = image;
+        }
+
+        @Override
+        public BufferedImage call() {
+            return image;
+        }
+    }
+
+    /**
+     * Decodes and processes a captured part in the background (pipelined
+     * mode).
+     */
+    private class PartProcessor implements Callable<BufferedImage> {
+        private final Callable<BufferedImage> partImage;
+        private final Region partRegion;
+        private final Location position;
+        private final CutProvider cutProvider;
+        private final Region regionInScreenshot;
+        private final double pixelRatio;
+        private final ScaleProvider scaleProvider;
+        private final DebugScreenshotsProvider debugScreenshotsProvider;
+
+        public PartProcessor(Callable<BufferedImage> partImage, Region partRegion, Location position,
+                             CutProvider cutProvider, Region regionInScreenshot, double pixelRatio,
+                             ScaleProvider scaleProvider, DebugScreenshotsProvider debugScreenshotsProvider) {
+            this.partImage = partImage;
+            this.partRegion = partRegion;
+            this.position = position;
+            this.cutProvider = cutProvider;
+            this.regionInScreenshot = regionInScreenshot;
+            this.pixelRatio = pixelRatio;
+            this.scaleProvider = scaleProvider;
+            this.debugScreenshotsProvider = debugScreenshotsProvider;
+        }
+
+        @Override
+        public BufferedImage call() throws Exception {
+            BufferedImage rawPartImage = partImage.call();
+            debugScreenshotsProvider.save(rawPartImage,
+                    "original-scrolled-" + position.toStringForFilename());
+
+            return processPart(rawPartImage, partRegion, position, cutProvider, regionInScreenshot, pixelRatio,
+                    scaleProvider, debugScreenshotsProvider);
+        }
+    }
+
     private Region getRegionInScreenshot(Region region, BufferedImage image, double pixelRatio,
                                          EyesScreenshot screenshot, RegionPositionCompensation regionPositionCompensation) {
         // Region regionInScreenshot = screenshot.convertRegionLocation(regionProvider.getRegion(), regionProvider.getCoordinatesType(), CoordinatesType.SCREENSHOT_AS_IS);
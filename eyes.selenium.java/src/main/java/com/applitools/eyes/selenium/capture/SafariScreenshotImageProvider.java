@@ -32,10 +32,10 @@ public class SafariScreenshotImageProvider implements ImageProvider {
 
     @Override
     public BufferedImage getImage() {
-        logger.verbose("Getting screenshot as base64...");
-        String screenshot64 = tsInstance.getScreenshotAs(OutputType.BASE64);
-        logger.verbose("Done getting base64! Creating BufferedImage...");
-        BufferedImage image = ImageUtils.imageFromBase64(screenshot64);
+        logger.verbose("Getting screenshot as bytes...");
+        byte[] screenshotBytes = tsInstance.getScreenshotAs(OutputType.BYTES);
+        logger.verbose("Done getting bytes! Creating BufferedImage...");
+        BufferedImage image = ImageUtils.imageFromBytes(screenshotBytes);
 
         eyes.getDebugScreenshotsProvider().save(image, "SAFARI");
 
@@ -1,17 +1,19 @@
 package com.applitools.eyes.selenium.capture;
 
-import com.applitools.eyes.capture.ImageProvider;
+import com.applitools.eyes.capture.DeferredImageProvider;
 import com.applitools.eyes.Logger;
+import com.applitools.eyes.selenium.wrappers.EyesWebDriver;
 import com.applitools.utils.ImageUtils;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 
 import java.awt.image.BufferedImage;
+import java.util.concurrent.Callable;
 
 /**
  * An image provider based on WebDriver's {@link TakesScreenshot} interface.
  */
-public class TakesScreenshotImageProvider implements ImageProvider {
+public class TakesScreenshotImageProvider implements DeferredImageProvider {
 
     private final Logger logger;
     private final TakesScreenshot tsInstance;
@@ -23,9 +25,27 @@ public class TakesScreenshotImageProvider implements ImageProvider {
 
     @Override
     public BufferedImage getImage() {
-        logger.verbose("Getting screenshot as base64...");
-        String screenshot64 = tsInstance.getScreenshotAs(OutputType.BASE64);
-        logger.verbose("Done getting base64! Creating BufferedImage...");
-        return ImageUtils.imageFromBase64(screenshot64);
+        logger.verbose("Getting screenshot as bytes...");
+        byte[] screenshotBytes = tsInstance.getScreenshotAs(OutputType.BYTES);
+        logger.verbose("Done getting bytes! Creating BufferedImage...");
+        return ImageUtils.imageFromBytes(screenshotBytes);
+    }
+
+    @Override
+    public Callable<BufferedImage> captureImage() {
+        logger.verbose("Getting screenshot as bytes...");
+        if (tsInstance instanceof EyesWebDriver) {
+            // Decodes the screenshot only once, rather than once for
+            // normalizing its rotation and once more for the image.
+            return ((EyesWebDriver) tsInstance).captureScreenshot();
+        }
+
+        final byte[] screenshotBytes = tsInstance.getScreenshotAs(OutputType.BYTES);
+        return new Callable<BufferedImage>() {
+            @Override
+            public BufferedImage call() {
+                return ImageUtils.imageFromBytes(screenshotBytes);
+            }
+        };
     }
 }
@@ -0,0 +1,16 @@
+package com.applitools.eyes.selenium.fluent;
+
+import com.applitools.eyes.FloatingMatchSettings;
+import com.applitools.eyes.Region;
+
+/**
+ * A floating region provider whose region is the bounds of an element.
+ */
+interface ElementFloatingRegionProvider extends ElementRegionProvider {
+
+    /**
+     * @param region The region of the element, relative to the screenshot.
+     * @return The floating region.
+     */
+    FloatingMatchSettings toFloatingRegion(Region region);
+}
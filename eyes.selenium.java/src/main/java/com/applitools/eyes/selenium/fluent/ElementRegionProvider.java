@@ -0,0 +1,18 @@
+package com.applitools.eyes.selenium.fluent;
+
+import com.applitools.eyes.selenium.Eyes;
+import org.openqa.selenium.WebElement;
+
+/**
+ * A region provider whose region is the bounds of an element, which lets
+ * {@link SeleniumBulkRegionResolver} read the bounds of many such regions at
+ * once.
+ */
+interface ElementRegionProvider {
+
+    /**
+     * @param eyes The Eyes instance which performs the check.
+     * @return The element whose bounds are the region.
+     */
+    WebElement getElement(Eyes eyes);
+}
@@ -2,10 +2,11 @@ package com.applitools.eyes.selenium.fluent;
 
 import com.applitools.eyes.*;
 import com.applitools.eyes.fluent.GetFloatingRegion;
+import com.applitools.eyes.selenium.Eyes;
 import org.openqa.selenium.Point;
 import org.openqa.selenium.WebElement;
 
-public class FloatingRegionByElement implements GetFloatingRegion {
+public class FloatingRegionByElement implements GetFloatingRegion, ElementFloatingRegionProvider {
 
     private WebElement element;
     private int maxUpOffset;
@@ -21,17 +22,31 @@ public class FloatingRegionByElement implements GetFloatingRegion {
         this.maxRightOffset = maxRightOffset;
     }
 
+    @Override
+    public WebElement getElement(Eyes eyes) {
+        return element;
+    }
+
+    @Override
+    public FloatingMatchSettings toFloatingRegion(Region region) {
+        return new FloatingMatchSettings(
+                region.getLeft(),
+                region.getTop(),
+                region.getWidth(),
+                region.getHeight(),
+                maxUpOffset, maxDownOffset, maxLeftOffset, maxRightOffset);
+    }
+
     @Override
     public FloatingMatchSettings getRegion(EyesBase eyesBase, EyesScreenshot screenshot) {
         Point p = element.getLocation();
         Location l = new Location(p.getX(), p.getY());
         Location lTag = screenshot.convertLocation(l, CoordinatesType.CONTEXT_RELATIVE, CoordinatesType.SCREENSHOT_AS_IS);
 
-        return new FloatingMatchSettings(
+        return toFloatingRegion(new Region(
                 lTag.getX(),
                 lTag.getY(),
                 element.getSize().getWidth(),
-                element.getSize().getHeight(),
-                maxUpOffset, maxDownOffset, maxLeftOffset, maxRightOffset);
+                element.getSize().getHeight()));
     }
 }
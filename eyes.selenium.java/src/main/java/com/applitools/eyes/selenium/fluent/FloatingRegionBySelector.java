@@ -7,7 +7,7 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.Point;
 import org.openqa.selenium.WebElement;
 
-public class FloatingRegionBySelector implements GetFloatingRegion{
+public class FloatingRegionBySelector implements GetFloatingRegion, ElementFloatingRegionProvider {
 
     private By selector;
     private int maxUpOffset;
@@ -24,17 +24,31 @@ public class FloatingRegionBySelector implements GetFloatingRegion{
         this.maxRightOffset = maxRightOffset;
     }
 
+    @Override
+    public WebElement getElement(Eyes eyes) {
+        return eyes.getDriver().findElement(this.selector);
+    }
+
+    @Override
+    public FloatingMatchSettings toFloatingRegion(Region region) {
+        return new FloatingMatchSettings(
+                region.getLeft(),
+                region.getTop(),
+                region.getWidth(),
+                region.getHeight(),
+                maxUpOffset, maxDownOffset, maxLeftOffset, maxRightOffset);
+    }
+
     @Override
     public FloatingMatchSettings getRegion(EyesBase eyesBase, EyesScreenshot screenshot) {
-        WebElement element = ((Eyes)eyesBase).getDriver().findElement(this.selector);
+        WebElement element = getElement((Eyes)eyesBase);
         Point p = element.getLocation();
         Location l = new Location(p.getX(), p.getY());
         Location lTag = screenshot.convertLocation(l, CoordinatesType.CONTEXT_RELATIVE, CoordinatesType.SCREENSHOT_AS_IS);
-        return new FloatingMatchSettings(
+        return toFloatingRegion(new Region(
                 lTag.getX(),
                 lTag.getY(),
                 element.getSize().getWidth(),
-                element.getSize().getHeight(),
-                maxUpOffset, maxDownOffset, maxLeftOffset, maxRightOffset);
+                element.getSize().getHeight()));
     }
 }
@@ -2,16 +2,22 @@ package com.applitools.eyes.selenium.fluent;
 
 import com.applitools.eyes.*;
 import com.applitools.eyes.fluent.GetRegion;
+import com.applitools.eyes.selenium.Eyes;
 import org.openqa.selenium.Point;
 import org.openqa.selenium.WebElement;
 
-public class IgnoreRegionByElement implements GetRegion {
+public class IgnoreRegionByElement implements GetRegion, ElementRegionProvider {
     WebElement element;
 
     public IgnoreRegionByElement(WebElement element){
         this.element = element;
     }
 
+    @Override
+    public WebElement getElement(Eyes eyes) {
+        return element;
+    }
+
     @Override
     public Region getRegion(EyesBase eyesBase, EyesScreenshot screenshot) {
         Point p = element.getLocation();
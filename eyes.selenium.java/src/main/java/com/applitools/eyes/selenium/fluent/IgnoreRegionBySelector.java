@@ -7,16 +7,21 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.Point;
 import org.openqa.selenium.WebElement;
 
-public class IgnoreRegionBySelector implements GetRegion {
+public class IgnoreRegionBySelector implements GetRegion, ElementRegionProvider {
     private By selector;
 
     public IgnoreRegionBySelector(By selector) {
         this.selector = selector;
     }
 
+    @Override
+    public WebElement getElement(Eyes eyes) {
+        return eyes.getDriver().findElement(this.selector);
+    }
+
     @Override
     public Region getRegion(EyesBase eyesBase, EyesScreenshot screenshot) {
-        WebElement element = ((Eyes)eyesBase).getDriver().findElement(this.selector);
+        WebElement element = getElement((Eyes)eyesBase);
         Point p = element.getLocation();
         Location l = new Location(p.getX(), p.getY());
         Location lTag = screenshot.convertLocation(l, CoordinatesType.CONTEXT_RELATIVE, CoordinatesType.SCREENSHOT_AS_IS);
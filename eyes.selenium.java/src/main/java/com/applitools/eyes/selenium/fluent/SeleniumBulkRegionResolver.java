@@ -0,0 +1,93 @@
+package com.applitools.eyes.selenium.fluent;
+
+import com.applitools.eyes.*;
+import com.applitools.eyes.fluent.BulkRegionResolver;
+import com.applitools.eyes.fluent.GetFloatingRegion;
+import com.applitools.eyes.fluent.GetRegion;
+import com.applitools.eyes.selenium.Eyes;
+import com.applitools.eyes.selenium.EyesSeleniumUtils;
+import com.applitools.utils.ArgumentGuard;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves the regions of element and selector based region providers by
+ * reading the bounds of all their elements in a single script execution,
+ * rather than querying the location and size of each element.
+ */
+public class SeleniumBulkRegionResolver implements BulkRegionResolver {
+
+    private final Logger logger;
+
+    public SeleniumBulkRegionResolver(Logger logger) {
+        ArgumentGuard.notNull(logger, "logger");
+        this.logger = logger;
+    }
+
+    @Override
+    public Region[] getRegions(EyesBase eyesBase, EyesScreenshot screenshot,
+                               GetRegion[] providers) {
+        return getBounds(eyesBase, screenshot, providers);
+    }
+
+    @Override
+    public FloatingMatchSettings[] getFloatingRegions(
+            EyesBase eyesBase, EyesScreenshot screenshot,
+            GetFloatingRegion[] providers) {
+        FloatingMatchSettings[] regions =
+                new FloatingMatchSettings[providers.length];
+        Region[] bounds = getBounds(eyesBase, screenshot, providers);
+        for (int i = 0; i < providers.length; ++i) {
+            if (bounds[i] != null &&
+                    providers[i] instanceof ElementFloatingRegionProvider) {
+                regions[i] = ((ElementFloatingRegionProvider) providers[i])
+                        .toFloatingRegion(bounds[i]);
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * @return The bounds of the providers' elements, relative to the
+     * screenshot, or {@code null} for providers which aren't element based.
+     */
+    private Region[] getBounds(EyesBase eyesBase, EyesScreenshot screenshot,
+                               Object[] providers) {
+        Region[] result = new Region[providers.length];
+        if (!(eyesBase instanceof Eyes)) {
+            return result;
+        }
+        Eyes eyes = (Eyes) eyesBase;
+
+        List<Integer> indices = new ArrayList<>();
+        List<WebElement> elements = new ArrayList<>();
+        for (int i = 0; i < providers.length; ++i) {
+            Object provider = providers[i];
+            if (provider instanceof ElementRegionProvider) {
+                indices.add(i);
+                elements.add(((ElementRegionProvider) provider)
+                        .getElement(eyes));
+            }
+        }
+        if (elements.isEmpty()) {
+            return result;
+        }
+
+        logger.verbose(String.format("Reading the bounds of %d elements...",
+                elements.size()));
+        List<Region> boundsList = EyesSeleniumUtils.getElementsBounds(
+                (JavascriptExecutor) eyes.getDriver(), elements);
+        for (int i = 0; i < indices.size(); ++i) {
+            Region bounds = boundsList.get(i);
+            Location location = screenshot.convertLocation(
+                    bounds.getLocation(), CoordinatesType.CONTEXT_RELATIVE,
+                    CoordinatesType.SCREENSHOT_AS_IS);
+            result[indices.get(i)] = new Region(location, bounds.getSize());
+        }
+        logger.verbose("Done!");
+        return result;
+    }
+}
@@ -8,11 +8,14 @@ import com.applitools.eyes.Location;
 import com.applitools.eyes.Logger;
 import com.applitools.eyes.RectangleSize;
 import com.applitools.eyes.selenium.exceptions.NoFramesException;
+import com.applitools.eyes.selenium.wrappers.ElementGeometry;
 import com.applitools.utils.ArgumentGuard;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a path to a frame, including their location and scroll.
@@ -20,6 +23,38 @@ import java.util.List;
 public class FrameChain implements Iterable<Frame>{
     private final Logger logger;
     private List<Frame> frames;
+    // The geometry of frames which were switched into, keyed by the id of
+    // the frame element. Unlike the frames, it is kept when switching to the
+    // default content.
+    private final Map<String, CachedGeometry> frameGeometries;
+
+    /**
+     * The geometry of a frame element, as measured when it was last switched
+     * into.
+     */
+    public static class CachedGeometry {
+        private final ElementGeometry geometry;
+        private final int generation;
+
+        /**
+         * @param geometry   The geometry of the frame element.
+         * @param generation The generation of the script results cache when
+         *                   the geometry was measured.
+         */
+        public CachedGeometry(ElementGeometry geometry, int generation) {
+            ArgumentGuard.notNull(geometry, "geometry");
+            this.geometry = geometry;
+            this.generation = generation;
+        }
+
+        public ElementGeometry getGeometry() {
+            return geometry;
+        }
+
+        public int getGeneration() {
+            return generation;
+        }
+    }
 
     /**
      * Compares two frame chains.
@@ -57,10 +92,12 @@ public class FrameChain implements Iterable<Frame>{
         ArgumentGuard.notNull(logger, "logger");
         this.logger = logger;
         frames = new LinkedList<>();
+        frameGeometries = new HashMap<>();
     }
 
     /**
-     * Creates a frame chain which is a copy of the current frame.
+     * Creates a frame chain which is a copy of the current frame. The cached
+     * frame geometries are not copied.
      * @param logger A Logger instance.
      * @param other A frame chain from which the current frame chain will be created.
      */
@@ -70,6 +107,7 @@ public class FrameChain implements Iterable<Frame>{
         this.logger = logger;
         logger.verbose(String.format("Frame chain copy constructor (size %d)", other.size()));
         frames = new LinkedList<>();
+        frameGeometries = new HashMap<>();
         for (Frame otherFrame: other.frames) {
             frames.add(new Frame(logger, otherFrame.getReference(),
                     otherFrame.getLocation(),
@@ -94,6 +132,33 @@ public class FrameChain implements Iterable<Frame>{
         frames.clear();
     }
 
+    /**
+     * @param elementId The id of the frame element.
+     * @return The geometry of the frame element, as measured when it was
+     * last switched into, or {@code null} if it wasn't.
+     */
+    public CachedGeometry getFrameGeometry(String elementId) {
+        return frameGeometries.get(elementId);
+    }
+
+    /**
+     * Caches the geometry of a frame element which is switched into.
+     * @param elementId The id of the frame element.
+     * @param geometry  The geometry of the frame element.
+     */
+    public void putFrameGeometry(String elementId, CachedGeometry geometry) {
+        ArgumentGuard.notNull(elementId, "elementId");
+        ArgumentGuard.notNull(geometry, "geometry");
+        frameGeometries.put(elementId, geometry);
+    }
+
+    /**
+     * Removes the cached frame geometries (e.g., when the page is replaced).
+     */
+    public void clearFrameGeometries() {
+        frameGeometries.clear();
+    }
+
     /**
      * Removes the last inserted frame element. Practically means we switched
      * back to the parent of the current frame
@@ -0,0 +1,116 @@
+package com.applitools.eyes.selenium.positioning;
+
+import com.applitools.eyes.IEyesJsExecutor;
+import com.applitools.eyes.Location;
+import com.applitools.eyes.Logger;
+import com.applitools.eyes.positioning.PositionProvider;
+import com.applitools.eyes.positioning.StabilizationStrategy;
+import com.applitools.eyes.selenium.wrappers.ScriptResultCache;
+import com.applitools.utils.ArgumentGuard;
+import com.applitools.utils.GeneralUtils;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * A stabilization strategy which polls the position and the page's readiness,
+ * and returns as soon as the page is stable. The maximal wait is only used
+ * as an upper bound.
+ */
+public class AdaptiveStabilizationStrategy implements StabilizationStrategy {
+
+    // Milliseconds. A bit longer than a single frame (at 60 FPS), so a
+    // scroll animation in progress will show as a position change.
+    private static final int POLL_INTERVAL = 20;
+
+    private static final String JS_IS_PAGE_READY =
+            "if (document.readyState !== 'complete') { return false; } " +
+            "var images = document.images; " +
+            "for (var i = 0; i < images.length; ++i) { " +
+            "  if (!images[i].complete) { return false; } " +
+            "} " +
+            "return true;";
+
+    private final Logger logger;
+    private final IEyesJsExecutor executor;
+    private final ScriptResultCache scriptCache;
+
+    public AdaptiveStabilizationStrategy(Logger logger,
+                                         IEyesJsExecutor executor) {
+        this(logger, executor, null);
+    }
+
+    /**
+     * @param logger      A logger instance.
+     * @param executor    The executor of the page readiness script.
+     * @param scriptCache (optional) The cache of the driver's read only
+     *                    script results. It's invalidated before each poll,
+     *                    otherwise the position would be read from the
+     *                    cache and never seem to change.
+     */
+    public AdaptiveStabilizationStrategy(Logger logger,
+                                         IEyesJsExecutor executor,
+                                         ScriptResultCache scriptCache) {
+        ArgumentGuard.notNull(logger, "logger");
+        ArgumentGuard.notNull(executor, "executor");
+
+        this.logger = logger;
+        this.executor = executor;
+        this.scriptCache = scriptCache;
+    }
+
+    /**
+     * Waits until the position is the same in two consecutive polls and the
+     * page is ready (loaded, with all images complete).
+     *
+     * @param positionProvider The provider which was used for setting the
+     *                         position.
+     * @param maxWait          The maximal time to wait (milliseconds).
+     * @return The current position.
+     */
+    public Location waitForStabilization(PositionProvider positionProvider,
+                                         int maxWait) {
+        long start = System.currentTimeMillis();
+        long deadline = start + maxWait;
+
+        Location previousPosition = null;
+        Location currentPosition = readPosition(positionProvider);
+        while (true) {
+            if (currentPosition.equals(previousPosition) && isPageReady()) {
+                logger.verbose(String.format(
+                        "Page stabilized after %d ms.",
+                        System.currentTimeMillis() - start));
+                return currentPosition;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                logger.verbose("Page didn't stabilize, stopped waiting after "
+                        + maxWait + " ms.");
+                return currentPosition;
+            }
+
+            GeneralUtils.sleep(Math.min(POLL_INTERVAL, remaining));
+            previousPosition = currentPosition;
+            currentPosition = readPosition(positionProvider);
+        }
+    }
+
+    /**
+     * @return The current position, as read from the browser.
+     */
+    private Location readPosition(PositionProvider positionProvider) {
+        if (scriptCache != null) {
+            scriptCache.invalidate();
+        }
+        return positionProvider.getCurrentPosition();
+    }
+
+    private boolean isPageReady() {
+        try {
+            return Boolean.TRUE.equals(executor.executeScript(JS_IS_PAGE_READY));
+        } catch (WebDriverException e) {
+            // Only relying on the position then.
+            logger.verbose("Failed to check page readiness: " + e.getMessage());
+            return true;
+        }
+    }
+}
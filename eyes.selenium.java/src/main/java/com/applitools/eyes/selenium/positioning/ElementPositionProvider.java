@@ -30,7 +30,7 @@ public class ElementPositionProvider implements PositionProvider {
     public Location getCurrentPosition() {
         logger.verbose("getCurrentScrollPosition()");
 
-        Location result = new Location(element.getScrollLeft(), element.getScrollTop());
+        Location result = element.getGeometry().getScrollPosition();
 
         logger.verbose(String.format("Current position: %s", result));
 
@@ -57,7 +57,7 @@ public class ElementPositionProvider implements PositionProvider {
     public RectangleSize getEntireSize() {
         logger.verbose("ElementPositionProvider - getEntireSize()");
 
-        RectangleSize result = new RectangleSize(element.getScrollWidth(), element.getScrollHeight());
+        RectangleSize result = element.getGeometry().getScrollSize();
 
         logger.verbose("ElementPositionProvider - Entire size: " + result);
         return result;
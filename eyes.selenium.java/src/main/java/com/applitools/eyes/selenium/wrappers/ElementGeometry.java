@@ -0,0 +1,275 @@
+package com.applitools.eyes.selenium.wrappers;
+
+import com.applitools.eyes.EyesException;
+import com.applitools.eyes.Location;
+import com.applitools.eyes.RectangleSize;
+
+import java.util.List;
+
+/**
+ * A snapshot of an element's geometry (and the scroll position of the
+ * document containing it), as read from the browser in a single script
+ * execution.
+ * <p>
+ * The snapshot is not updated when the element or the document change (e.g.,
+ * scrolled), so it should be read right after it was taken.
+ */
+public class ElementGeometry {
+
+    private static final String JS_GET_BOUNDING_RECT_PREFIX =
+            "var elem = arguments[0]; " +
+            "var doc = elem.ownerDocument; " +
+            "var win = doc.defaultView || doc.parentWindow; " +
+            "var docElem = doc.documentElement; " +
+            "var scrollX = win.scrollX || ((win.pageXOffset || " +
+                "docElem.scrollLeft) - (docElem.clientLeft || 0)); " +
+            "var scrollY = win.scrollY || ((win.pageYOffset || " +
+                "docElem.scrollTop) - (docElem.clientTop || 0)); " +
+            "var rect = elem.getBoundingClientRect(); ";
+
+    /**
+     * Returns the values read by {@link #fromScriptResult(Object)}. Borders
+     * are parsed in the browser, so unsupported values (e.g., "medium" in
+     * old IE) are read as 0.
+     */
+    static final String JS_GET_GEOMETRY = JS_GET_BOUNDING_RECT_PREFIX +
+            "var style = win.getComputedStyle ? " +
+                "win.getComputedStyle(elem, null) : elem.currentStyle; " +
+            "return [rect.left + scrollX, rect.top + scrollY, " +
+                "rect.width, rect.height, " +
+                "elem.clientWidth, elem.clientHeight, " +
+                "elem.scrollLeft, elem.scrollTop, " +
+                "elem.scrollWidth, elem.scrollHeight, " +
+                "parseFloat(style.borderLeftWidth) || 0, " +
+                "parseFloat(style.borderTopWidth) || 0, " +
+                "parseFloat(style.borderRightWidth) || 0, " +
+                "parseFloat(style.borderBottomWidth) || 0, " +
+                "scrollX, scrollY, " +
+                "elem.style.overflow, style.display];";
+
+    /**
+     * Scrolls the document which contains the element and then returns the
+     * same values as {@link #JS_GET_GEOMETRY}.
+     */
+    static final String JS_SCROLL_DOCUMENT_AND_GET_GEOMETRY_FORMATTED_STR =
+            "var win = arguments[0].ownerDocument.defaultView || " +
+                "arguments[0].ownerDocument.parentWindow; " +
+            "win.scrollTo(%d, %d); " + JS_GET_GEOMETRY;
+
+    /**
+     * Returns the values read by {@link #revalidate(Object)}. Unlike
+     * {@link #JS_GET_GEOMETRY}, the computed style isn't read.
+     */
+    static final String JS_GET_BOUNDING_RECT = JS_GET_BOUNDING_RECT_PREFIX +
+            "return [rect.left + scrollX, rect.top + scrollY, " +
+                "rect.width, rect.height, scrollX, scrollY];";
+
+    private static final int VALUES_COUNT = 18;
+    private static final int BOUNDING_RECT_VALUES_COUNT = 6;
+
+    private final Location location;
+    private final RectangleSize size;
+    private final RectangleSize clientSize;
+    private final Location scrollPosition;
+    private final RectangleSize scrollSize;
+    private final int borderLeftWidth;
+    private final int borderTopWidth;
+    private final int borderRightWidth;
+    private final int borderBottomWidth;
+    private final Location documentScrollPosition;
+    private final String overflow;
+    private final String display;
+
+    ElementGeometry(Location location, RectangleSize size,
+                    RectangleSize clientSize, Location scrollPosition,
+                    RectangleSize scrollSize, int borderLeftWidth,
+                    int borderTopWidth, int borderRightWidth,
+                    int borderBottomWidth, Location documentScrollPosition,
+                    String overflow, String display) {
+        this.location = location;
+        this.size = size;
+        this.clientSize = clientSize;
+        this.scrollPosition = scrollPosition;
+        this.scrollSize = scrollSize;
+        this.borderLeftWidth = borderLeftWidth;
+        this.borderTopWidth = borderTopWidth;
+        this.borderRightWidth = borderRightWidth;
+        this.borderBottomWidth = borderBottomWidth;
+        this.documentScrollPosition = documentScrollPosition;
+        this.overflow = overflow;
+        this.display = display;
+    }
+
+    /**
+     * @param result The result of executing {@link #JS_GET_GEOMETRY}.
+     * @return The geometry.
+     * @throws EyesException If the result is malformed.
+     */
+    static ElementGeometry fromScriptResult(Object result) {
+        List<?> values = toValues(result, VALUES_COUNT);
+
+        // Like the WebDriver location and size workarounds, fractions are
+        // rounded up.
+        return new ElementGeometry(
+                new Location(ceil(values, 0), ceil(values, 1)),
+                new RectangleSize(ceil(values, 2), ceil(values, 3)),
+                new RectangleSize(ceil(values, 4), ceil(values, 5)),
+                new Location(ceil(values, 6), ceil(values, 7)),
+                new RectangleSize(ceil(values, 8), ceil(values, 9)),
+                round(values, 10), round(values, 11),
+                round(values, 12), round(values, 13),
+                new Location(ceil(values, 14), ceil(values, 15)),
+                values.get(16) == null ? "" : values.get(16).toString(),
+                values.get(17) == null ? null : values.get(17).toString());
+    }
+
+    /**
+     * Checks whether the element's bounds are the same as in this snapshot,
+     * in which case the rest of the snapshot (e.g., the borders and the
+     * client size) is assumed to be valid as well.
+     * @param boundingRectResult The result of executing
+     *                           {@link #JS_GET_BOUNDING_RECT}.
+     * @return A snapshot with the current document scroll position, or
+     * {@code null} if the element's bounds changed.
+     * @throws EyesException If the result is malformed.
+     */
+    ElementGeometry revalidate(Object boundingRectResult) {
+        List<?> values = toValues(boundingRectResult,
+                BOUNDING_RECT_VALUES_COUNT);
+
+        Location currentLocation = new Location(ceil(values, 0),
+                ceil(values, 1));
+        RectangleSize currentSize = new RectangleSize(ceil(values, 2),
+                ceil(values, 3));
+        if (!location.equals(currentLocation) || !size.equals(currentSize)) {
+            return null;
+        }
+
+        return new ElementGeometry(location, size, clientSize,
+                scrollPosition, scrollSize, borderLeftWidth, borderTopWidth,
+                borderRightWidth, borderBottomWidth,
+                new Location(ceil(values, 4), ceil(values, 5)),
+                overflow, display);
+    }
+
+    private static List<?> toValues(Object result, int count) {
+        if (!(result instanceof List) || ((List<?>) result).size() != count) {
+            throw new EyesException(
+                    "Failed to read element geometry: " + result);
+        }
+        return (List<?>) result;
+    }
+
+    private static double getNumber(List<?> values, int index) {
+        Object value = values.get(index);
+        if (!(value instanceof Number)) {
+            throw new EyesException(String.format(
+                    "Failed to read element geometry: value %d is %s",
+                    index, value));
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    private static int ceil(List<?> values, int index) {
+        return (int) Math.ceil(getNumber(values, index));
+    }
+
+    private static int round(List<?> values, int index) {
+        return (int) Math.round(getNumber(values, index));
+    }
+
+    /**
+     * @return The location of the element, relative to the document which
+     * contains it.
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    /**
+     * @return The size of the element, including its borders.
+     */
+    public RectangleSize getSize() {
+        return size;
+    }
+
+    /**
+     * @return The size of the element's content area (i.e., without borders
+     * and scrollbars).
+     */
+    public RectangleSize getClientSize() {
+        return clientSize;
+    }
+
+    /**
+     * @return The location of the element's content area (i.e., its location
+     * offset by its left and top borders).
+     */
+    public Location getContentLocation() {
+        return new Location(location).offset(borderLeftWidth, borderTopWidth);
+    }
+
+    /**
+     * @return The scroll position inside the element.
+     */
+    public Location getScrollPosition() {
+        return scrollPosition;
+    }
+
+    /**
+     * @return The scrollable size of the element's content.
+     */
+    public RectangleSize getScrollSize() {
+        return scrollSize;
+    }
+
+    public int getBorderLeftWidth() {
+        return borderLeftWidth;
+    }
+
+    public int getBorderTopWidth() {
+        return borderTopWidth;
+    }
+
+    public int getBorderRightWidth() {
+        return borderRightWidth;
+    }
+
+    public int getBorderBottomWidth() {
+        return borderBottomWidth;
+    }
+
+    /**
+     * @return The scroll position of the document which contains the
+     * element.
+     */
+    public Location getDocumentScrollPosition() {
+        return documentScrollPosition;
+    }
+
+    /**
+     * @return The overflow set on the element's style (not the computed
+     * one).
+     */
+    public String getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * @return The computed display style of the element.
+     */
+    public String getDisplay() {
+        return display;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ElementGeometry(location: %s, size: %s, " +
+                        "client size: %s, scroll position: %s, " +
+                        "scroll size: %s, borders: [%d, %d, %d, %d], " +
+                        "document scroll position: %s)",
+                location, size, clientSize, scrollPosition, scrollSize,
+                borderLeftWidth, borderTopWidth, borderRightWidth,
+                borderBottomWidth, documentScrollPosition);
+    }
+}
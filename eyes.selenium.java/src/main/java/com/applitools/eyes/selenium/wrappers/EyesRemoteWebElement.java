@@ -110,6 +110,52 @@ public class EyesRemoteWebElement extends RemoteWebElement {
         return new Region(left, top, width, height, CoordinatesType.CONTEXT_RELATIVE);
     }
 
+    /**
+     * Reads the element's location, size, client size, scroll position and
+     * size, borders and overflow (and the scroll position of its document)
+     * in a single script execution, instead of a round trip per value.
+     * @return A snapshot of the element's geometry.
+     */
+    public ElementGeometry getGeometry() {
+        ElementGeometry geometry = ElementGeometry.fromScriptResult(
+                eyesDriver.executeScript(ElementGeometry.JS_GET_GEOMETRY,
+                        this));
+        logger.verbose(geometry.toString());
+        return geometry;
+    }
+
+    /**
+     * Scrolls the document which contains the element (e.g., so a frame is
+     * visible) and reads the element's geometry, in a single script
+     * execution.
+     * @param location The position to scroll the document to.
+     * @return A snapshot of the element's geometry, after scrolling.
+     */
+    public ElementGeometry scrollDocumentAndGetGeometry(Location location) {
+        ArgumentGuard.notNull(location, "location");
+        String script = String.format(
+                ElementGeometry.JS_SCROLL_DOCUMENT_AND_GET_GEOMETRY_FORMATTED_STR,
+                location.getX(), location.getY());
+        ElementGeometry geometry = ElementGeometry.fromScriptResult(
+                eyesDriver.executeScript(script, this));
+        logger.verbose(geometry.toString());
+        return geometry;
+    }
+
+    /**
+     * Checks whether a snapshot of the element's geometry is still valid, by
+     * reading only the element's bounds (and the scroll position of its
+     * document).
+     * @param geometry A snapshot of the element's geometry.
+     * @return An up to date snapshot, or {@code null} if the element's
+     * bounds changed (in which case {@link #getGeometry()} should be used).
+     */
+    public ElementGeometry revalidateGeometry(ElementGeometry geometry) {
+        ArgumentGuard.notNull(geometry, "geometry");
+        return geometry.revalidate(eyesDriver.executeScript(
+                ElementGeometry.JS_GET_BOUNDING_RECT, this));
+    }
+
     /**
      * Returns the computed value of the style property for the current
      * element.
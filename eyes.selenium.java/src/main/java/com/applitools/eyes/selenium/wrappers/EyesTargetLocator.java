@@ -6,15 +6,13 @@ package com.applitools.eyes.selenium.wrappers;
 import com.applitools.eyes.EyesException;
 import com.applitools.eyes.Location;
 import com.applitools.eyes.Logger;
-import com.applitools.eyes.RectangleSize;
-import com.applitools.eyes.selenium.SeleniumJavaScriptExecutor;
 import com.applitools.eyes.selenium.frames.Frame;
 import com.applitools.eyes.selenium.frames.FrameChain;
-import com.applitools.eyes.selenium.positioning.ScrollPositionProvider;
 import com.applitools.utils.ArgumentGuard;
 import org.openqa.selenium.*;
 import org.openqa.selenium.remote.RemoteWebElement;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -25,8 +23,6 @@ public class EyesTargetLocator implements WebDriver.TargetLocator {
 
     private final Logger logger;
     private final EyesWebDriver driver;
-    private final SeleniumJavaScriptExecutor jsExecutor;
-    private final ScrollPositionProvider scrollPosition;
     private final WebDriver.TargetLocator targetLocator;
 
     /**
@@ -37,29 +33,59 @@ public class EyesTargetLocator implements WebDriver.TargetLocator {
 
         ArgumentGuard.notNull(targetFrame, "targetFrame");
 
-        EyesRemoteWebElement eyesFrame = (targetFrame instanceof EyesRemoteWebElement) ?
-                (EyesRemoteWebElement) targetFrame : new EyesRemoteWebElement(logger, driver, targetFrame);
-
-        Point pl = targetFrame.getLocation();
-        Dimension ds = targetFrame.getSize();
+        EyesRemoteWebElement frameElement = toEyesElement(targetFrame);
+        pushFrame(targetFrame, frameElement, getFrameGeometry(frameElement));
+    }
 
-        int clientWidth = eyesFrame.getClientWidth();
-        int clientHeight = eyesFrame.getClientHeight();
+    /**
+     * Reuses the geometry measured when the frame was last switched into, if
+     * the frame didn't move since.
+     */
+    private ElementGeometry getFrameGeometry(EyesRemoteWebElement frameElement) {
+        FrameChain.CachedGeometry cached =
+                driver.getFrameChain().getFrameGeometry(frameElement.getId());
+        if (cached != null) {
+            ScriptResultCache scriptCache = driver.getScriptCache();
+            if (scriptCache.isActive() &&
+                    cached.getGeneration() == scriptCache.getGeneration()) {
+                // Nothing changed the page since the frame was measured.
+                logger.verbose("Reusing frame geometry.");
+                return cached.getGeometry();
+            }
 
-        int borderLeftWidth = eyesFrame.getComputedStyleInteger("border-left-width");
-        int borderTopWidth = eyesFrame.getComputedStyleInteger("border-top-width");
+            logger.verbose("Revalidating frame geometry...");
+            ElementGeometry geometry =
+                    frameElement.revalidateGeometry(cached.getGeometry());
+            if (geometry != null) {
+                logger.verbose("Done! Frame didn't move.");
+                return geometry;
+            }
+            logger.verbose("Frame moved.");
+        }
 
-        Location contentLocation = new Location(pl.getX() + borderLeftWidth, pl.getY() + borderTopWidth);
+        // A single round trip, rather than one for each value.
+        return frameElement.getGeometry();
+    }
 
-        Location originalLocation = scrollPosition.getCurrentPosition();
+    private EyesRemoteWebElement toEyesElement(WebElement element) {
+        return (element instanceof EyesRemoteWebElement) ?
+                (EyesRemoteWebElement) element : new EyesRemoteWebElement(logger, driver, element);
+    }
 
+    private void pushFrame(WebElement targetFrame,
+                           EyesRemoteWebElement frameElement,
+                           ElementGeometry geometry) {
         Frame frame = new Frame(logger, targetFrame,
-                contentLocation,
-                new RectangleSize(ds.getWidth(), ds.getHeight()),
-                new RectangleSize(clientWidth, clientHeight),
-                originalLocation);
+                geometry.getContentLocation(),
+                geometry.getSize(),
+                geometry.getClientSize(),
+                geometry.getDocumentScrollPosition());
 
-        driver.getFrameChain().push(frame);
+        FrameChain frameChain = driver.getFrameChain();
+        frameChain.putFrameGeometry(frameElement.getId(),
+                new FrameChain.CachedGeometry(geometry,
+                        driver.getScriptCache().getGeneration()));
+        frameChain.push(frame);
     }
 
     /**
@@ -75,8 +101,6 @@ public class EyesTargetLocator implements WebDriver.TargetLocator {
         this.logger = logger;
         this.driver = driver;
         this.targetLocator = targetLocator;
-        this.jsExecutor = new SeleniumJavaScriptExecutor(driver);
-        this.scrollPosition = new ScrollPositionProvider(logger, jsExecutor);
     }
 
     public WebDriver frame(int index) {
@@ -153,13 +177,20 @@ public class EyesTargetLocator implements WebDriver.TargetLocator {
      */
     public WebDriver framesDoScroll(FrameChain frameChain) {
         logger.verbose("EyesTargetLocator.framesDoScroll(frameChain)");
+        List<Frame> frames = toList(frameChain);
+        // Each parent must be scrolled, so we always start from the top.
         driver.switchTo().defaultContent();
-        for (Frame frame : frameChain) {
+        for (Frame frame : frames) {
             logger.verbose("Scrolling by parent scroll position...");
-            Location frameLocation = frame.getLocation();
-            scrollPosition.setPosition(frameLocation);
+            // Scrolling the parent and reading the frame's geometry is a
+            // single round trip.
+            WebElement reference = frame.getReference();
+            EyesRemoteWebElement frameElement = toEyesElement(reference);
+            ElementGeometry geometry = frameElement
+                    .scrollDocumentAndGetGeometry(frame.getLocation());
             logger.verbose("Done! Switching to frame...");
-            driver.switchTo().frame(frame.getReference());
+            pushFrame(reference, frameElement, geometry);
+            targetLocator.frame(reference);
             logger.verbose("Done!");
         }
 
@@ -170,19 +201,65 @@ public class EyesTargetLocator implements WebDriver.TargetLocator {
     /**
      * Switches into every frame in the frame chain. This is used as way to
      * switch into nested frames (while considering scroll) in a single call.
+     * <p>
+     * Only the frames which aren't shared with the current frame chain are
+     * switched into.
      * @param frameChain The path to the frame to switch to.
      * @return The WebDriver with the switched context.
      */
     public WebDriver frames(FrameChain frameChain) {
         logger.verbose("EyesTargetLocator.frames(frameChain)");
-        driver.switchTo().defaultContent();
-        for (Frame frame : frameChain) {
+        List<Frame> frames = toList(frameChain);
+        FrameChain currentFrames = driver.getFrameChain();
+
+        int commonCount = getCommonPrefixLength(toList(currentFrames), frames);
+        int parentCount = currentFrames.size() - commonCount;
+
+        // Going up to the common frame costs a command per frame, while
+        // starting from the top costs one, plus two (measuring and
+        // switching) per common frame.
+        if (commonCount > 0 && parentCount <= 2 * commonCount + 1) {
+            logger.verbose(String.format(
+                    "Sharing %d frames, switching to parent %d times...",
+                    commonCount, parentCount));
+            for (int i = 0; i < parentCount; ++i) {
+                parentFrame();
+            }
+        } else {
+            driver.switchTo().defaultContent();
+            commonCount = 0;
+        }
+
+        for (Frame frame : frames.subList(commonCount, frames.size())) {
+            // The frame is measured again, since its parent's scroll
+            // position might have changed.
             driver.switchTo().frame(frame.getReference());
         }
         logger.verbose("Done switching into nested frames!");
         return driver;
     }
 
+    private static List<Frame> toList(FrameChain frameChain) {
+        // A copy, since the chain might be the driver's own frame chain.
+        List<Frame> frames = new ArrayList<>(frameChain.size());
+        for (Frame frame : frameChain) {
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    private static int getCommonPrefixLength(List<Frame> frames1,
+                                             List<Frame> frames2) {
+        int length = Math.min(frames1.size(), frames2.size());
+        for (int i = 0; i < length; ++i) {
+            if (!frames1.get(i).getReference().equals(
+                    frames2.get(i).getReference())) {
+                return i;
+            }
+        }
+        return length;
+    }
+
     /**
      * Switches into every frame in the list. This is used as way to
      * switch into nested frames in a single call.
@@ -205,6 +282,8 @@ public class EyesTargetLocator implements WebDriver.TargetLocator {
     public WebDriver window(String nameOrHandle) {
         logger.verbose("EyesTargetLocator.window()");
         driver.getFrameChain().clear();
+        driver.getFrameChain().clearFrameGeometries();
+        driver.getScriptCache().invalidate();
         logger.verbose("Done! Switching to window...");
         targetLocator.window(nameOrHandle);
         logger.verbose("Done!");
@@ -5,6 +5,7 @@ import com.applitools.eyes.Logger;
 import com.applitools.eyes.RectangleSize;
 import com.applitools.eyes.selenium.Eyes;
 import com.applitools.eyes.selenium.EyesSeleniumUtils;
+import com.applitools.eyes.selenium.frames.Frame;
 import com.applitools.eyes.selenium.frames.FrameChain;
 import com.applitools.eyes.selenium.positioning.ImageRotation;
 import com.applitools.eyes.selenium.triggers.EyesKeyboard;
@@ -18,6 +19,7 @@ import org.openqa.selenium.remote.*;
 
 import java.awt.image.BufferedImage;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * An Eyes implementation of the interfaces implemented by
@@ -30,12 +32,15 @@ public class EyesWebDriver implements HasCapabilities, HasInputDevices,
         FindsByName, FindsByTagName, FindsByXPath, JavascriptExecutor,
         SearchContext, TakesScreenshot, WebDriver, HasTouchScreen {
 
+    private static final String VIEWPORT_SIZE_VALUE = "defaultContentViewportSize";
+
     private final Logger logger;
     private final Eyes eyes;
     private final RemoteWebDriver driver;
     private final TouchScreen touch;
     private final Map<String, WebElement> elementsIds;
     private final FrameChain frameChain;
+    private final ScriptResultCache scriptCache;
 
     private ImageRotation rotation;
     private RectangleSize defaultContentViewportSize;
@@ -80,6 +85,7 @@ public class EyesWebDriver implements HasCapabilities, HasInputDevices,
 
         this.elementsIds = new HashMap<>();
         this.frameChain = new FrameChain(logger);
+        this.scriptCache = new ScriptResultCache(logger);
         this.defaultContentViewportSize = null;
 
         // initializing "touch" if possible
@@ -129,6 +135,8 @@ public class EyesWebDriver implements HasCapabilities, HasInputDevices,
 
     public void get(String s) {
         frameChain.clear();
+        frameChain.clearFrameGeometries();
+        scriptCache.invalidate();
         driver.get(s);
     }
 
@@ -303,16 +311,61 @@ public class EyesWebDriver implements HasCapabilities, HasInputDevices,
 
     public Object executeScript(String script, Object... args) {
         EyesSeleniumUtils.handleSpecialCommands(script, args);
+
+        if (!isReadOnlyScript(script)) {
+            // The script might have changed the page (e.g., scrolled).
+            scriptCache.invalidate();
+        } else if ((args == null || args.length == 0) &&
+                scriptCache.isActive()) {
+            String context = getFrameContext();
+            if (scriptCache.containsResult(context, script)) {
+                return scriptCache.getResult(context, script);
+            }
+            Object result = driver.executeScript(script, args);
+            scriptCache.putResult(context, script, result);
+            return result;
+        }
+
         Object result = driver.executeScript(script, args);
         return result;
     }
 
     public Object executeAsyncScript(String script, Object... args) {
         EyesSeleniumUtils.handleSpecialCommands(script, args);
+        scriptCache.invalidate();
         Object result = driver.executeAsyncScript(script, args);
         return result;
     }
 
+    /**
+     * @return The cache of read only script results, which is used while
+     * a check is performed.
+     */
+    public ScriptResultCache getScriptCache() {
+        return scriptCache;
+    }
+
+    private static boolean isReadOnlyScript(String script) {
+        return EyesSeleniumUtils.isReadOnlyScript(script) ||
+                ElementGeometry.JS_GET_GEOMETRY.equals(script) ||
+                ElementGeometry.JS_GET_BOUNDING_RECT.equals(script);
+    }
+
+    /**
+     * @return A key which identifies the current frame, since results of the
+     * same script differ between frames.
+     */
+    private String getFrameContext() {
+        StringBuilder context = new StringBuilder();
+        for (Frame frame : frameChain) {
+            WebElement reference = frame.getReference();
+            context.append('/').append(reference instanceof RemoteWebElement ?
+                    ((RemoteWebElement) reference).getId() :
+                    String.valueOf(System.identityHashCode(reference)));
+        }
+        return context.toString();
+    }
+
     /**
      * @param forceQuery If true, we will perform the query even if we have a cached viewport size.
      * @return The viewport size of the default content (outer most frame).
@@ -325,6 +378,14 @@ public class EyesWebDriver implements HasCapabilities, HasInputDevices,
             return defaultContentViewportSize;
         }
 
+        // The viewport size can't change during a check.
+        RectangleSize checkViewportSize = (RectangleSize)
+                scriptCache.getScopedValue(VIEWPORT_SIZE_VALUE);
+        if (checkViewportSize != null) {
+            logger.verbose("Using viewport size cached for the check: " + checkViewportSize);
+            return checkViewportSize;
+        }
+
         EyesTargetLocator switchTo = (EyesTargetLocator)switchTo();
         FrameChain currentFrames = new FrameChain(logger, getFrameChain());
 
@@ -336,6 +397,7 @@ public class EyesWebDriver implements HasCapabilities, HasInputDevices,
         logger.verbose("Extracting viewport size...");
         defaultContentViewportSize = EyesSeleniumUtils.getViewportSizeOrDisplaySize(logger, this);
         logger.verbose("Done! Viewport size: " + defaultContentViewportSize);
+        scriptCache.putScopedValue(VIEWPORT_SIZE_VALUE, defaultContentViewportSize);
 
         if (currentFrames.size() > 0) {
             switchTo.frames(currentFrames);
@@ -360,20 +422,59 @@ public class EyesWebDriver implements HasCapabilities, HasInputDevices,
 
     public <X> X getScreenshotAs(OutputType<X> xOutputType)
             throws WebDriverException {
-        // Get the image as base64.
-        String screenshot64 = driver.getScreenshotAs(OutputType.BASE64);
-        BufferedImage screenshot = ImageUtils.imageFromBase64(screenshot64);
-        screenshot = normalizeRotation(logger, driver, screenshot, rotation);
+        // Get the image as PNG bytes.
+        byte[] screenshotBytes = driver.getScreenshotAs(OutputType.BYTES);
+        BufferedImage screenshot = ImageUtils.imageFromBytes(screenshotBytes);
+        BufferedImage normalizedScreenshot =
+                normalizeRotation(logger, driver, screenshot, rotation);
+
+        // No need to re-encode the image if it wasn't rotated.
+        if (normalizedScreenshot != screenshot) {
+            screenshotBytes = ImageUtils.encodeAsPng(normalizedScreenshot);
+        }
 
         // Return the image in the requested format.
-        screenshot64 = ImageUtils.base64FromImage(screenshot);
-        return xOutputType.convertFromBase64Png(screenshot64);
+        return xOutputType.convertFromPngBytes(screenshotBytes);
+    }
+
+    /**
+     * Takes a screenshot, without decoding it. This is the same as
+     * {@link #getScreenshotAs(OutputType)}, except that the screenshot is
+     * only decoded once, by the returned task.
+     * <p>
+     * When the rotation is detected automatically by a custom handler (which
+     * might use the driver), the screenshot is decoded right away.
+     * @return A task which decodes the screenshot and normalizes its
+     * rotation. Can be called on any thread.
+     */
+    public Callable<BufferedImage> captureScreenshot() {
+        final byte[] screenshotBytes = driver.getScreenshotAs(OutputType.BYTES);
+        final ImageRotation rotation = this.rotation;
+        if (rotation == null &&
+                !EyesSeleniumUtils.isDefaultImageOrientationHandler()) {
+            final BufferedImage screenshot = normalizeRotation(logger, driver,
+                    ImageUtils.imageFromBytes(screenshotBytes), null);
+            return new Callable<BufferedImage>() {
+                @Override
+                public BufferedImage call() {
+                    return screenshot;
+                }
+            };
+        }
+
+        return new Callable<BufferedImage>() {
+            @Override
+            public BufferedImage call() {
+                return normalizeRotation(logger, driver,
+                        ImageUtils.imageFromBytes(screenshotBytes), rotation);
+            }
+        };
     }
 
     public String getUserAgent() {
         String userAgent;
         try {
-            userAgent = (String) this.driver.executeScript("return navigator.userAgent");
+            userAgent = EyesSeleniumUtils.getUserAgent(this);
             logger.verbose("user agent: " + userAgent);
         } catch (Exception e) {
             logger.verbose("Failed to obtain user-agent string");
@@ -0,0 +1,178 @@
+package com.applitools.eyes.selenium.wrappers;
+
+import com.applitools.eyes.Logger;
+import com.applitools.utils.ArgumentGuard;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memoizes the results of read only scripts (e.g., the viewport size or the
+ * scroll position) during a check, so the browser isn't queried again for
+ * values which didn't change.
+ * <p>
+ * Results are only kept while a scope is open (see {@link #beginScope()}).
+ * They are keyed by the frame context they were read in, and dropped
+ * whenever a script which might change the page (e.g., scroll or translate)
+ * is executed.
+ */
+public class ScriptResultCache {
+
+    private final Logger logger;
+    private final Map<String, Object> results;
+    private final Map<String, Object> scopedValues;
+
+    private int depth;
+    private int generation;
+    private int hits;
+    private int misses;
+
+    public ScriptResultCache(Logger logger) {
+        ArgumentGuard.notNull(logger, "logger");
+        this.logger = logger;
+        this.results = new HashMap<>();
+        this.scopedValues = new HashMap<>();
+    }
+
+    /**
+     * Starts caching results. Scopes can be nested, in which case results
+     * are kept until the outermost scope ends.
+     */
+    public void beginScope() {
+        if (depth++ == 0) {
+            // The page might have changed since the previous scope.
+            ++generation;
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    /**
+     * Ends the current scope. When the outermost scope ends, all the cached
+     * results are dropped.
+     */
+    public void endScope() {
+        if (depth == 0) {
+            return;
+        }
+        if (--depth == 0) {
+            logger.verbose(String.format(
+                    "Script results cache: %d hits, %d misses", hits, misses));
+            results.clear();
+            scopedValues.clear();
+        }
+    }
+
+    /**
+     * @return Whether results are currently cached.
+     */
+    public boolean isActive() {
+        return depth > 0;
+    }
+
+    /**
+     * Drops the cached script results (but not the scoped values), e.g.,
+     * since the page might have changed.
+     */
+    public void invalidate() {
+        results.clear();
+        ++generation;
+    }
+
+    /**
+     * @return A number which changes whenever the page might have changed
+     * (i.e., the results are invalidated or a new scope begins). Values read
+     * during the current scope are still valid as long as the generation
+     * didn't change.
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @param context The frame context in which the script is executed.
+     * @param script  The script.
+     * @return Whether the result of the script is cached.
+     */
+    public boolean containsResult(String context, String script) {
+        return results.containsKey(getKey(context, script));
+    }
+
+    /**
+     * @param context The frame context in which the script was executed.
+     * @param script  The script.
+     * @return The cached result of the script, or {@code null} if it isn't
+     * cached (use {@link #containsResult(String, String)} to tell it from a
+     * {@code null} result).
+     */
+    public Object getResult(String context, String script) {
+        String key = getKey(context, script);
+        if (results.containsKey(key)) {
+            ++hits;
+            return results.get(key);
+        }
+        return null;
+    }
+
+    /**
+     * Caches the result of a script, if a scope is open.
+     * @param context The frame context in which the script was executed.
+     * @param script  The script.
+     * @param result  The result of the script.
+     */
+    public void putResult(String context, String script, Object result) {
+        if (!isActive()) {
+            return;
+        }
+        ++misses;
+        results.put(getKey(context, script), result);
+    }
+
+    /**
+     * Returns a value which can't change during the scope (e.g., the viewport
+     * size), and so isn't dropped by {@link #invalidate()}.
+     * @param name The name of the value.
+     * @return The value, or {@code null} if it isn't cached.
+     */
+    public Object getScopedValue(String name) {
+        Object value = scopedValues.get(name);
+        if (value != null) {
+            ++hits;
+        }
+        return value;
+    }
+
+    /**
+     * Caches a value until the scope ends, if a scope is open.
+     * @param name  The name of the value.
+     * @param value The value.
+     */
+    public void putScopedValue(String name, Object value) {
+        if (!isActive()) {
+            return;
+        }
+        ++misses;
+        scopedValues.put(name, value);
+    }
+
+    /**
+     * @return The number of times a cached result was used (i.e., round
+     * trips to the browser which were saved) during the current (or last)
+     * outermost scope.
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of results which were read from the browser and
+     * cached during the current (or last) outermost scope.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    private static String getKey(String context, String script) {
+        return context + "\n" + script;
+    }
+}